@@ -15,6 +15,7 @@
  */
 package com.dattack.dbtools.drules;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
@@ -35,7 +36,9 @@ import com.dattack.dbtools.GlobalConfiguration;
 import com.dattack.dbtools.drules.beans.Identifier;
 import com.dattack.dbtools.drules.beans.Identifier.IdentifierBuilder;
 import com.dattack.dbtools.drules.engine.DrulesEngine;
+import com.dattack.dbtools.drules.engine.DrulesMetrics;
 import com.dattack.dbtools.drules.exceptions.DrulesNestableException;
+import com.dattack.dbtools.metrics.OpenMetricsServer;
 import com.dattack.jtoolbox.commons.configuration.ConfigurationUtil;
 
 /**
@@ -49,6 +52,7 @@ public final class DrulesClient {
     private static final String DRULES_OPTION = "d";
     private static final String TASK_OPTION = "t";
     private static final String PROPERTIES_OPTION = "p";
+    private static final String METRICS_OPTION = "m";
 
     private static Options createOptions() {
 
@@ -78,10 +82,20 @@ public final class DrulesClient {
                 .desc("the path of the file containing custom runtime properties") //
                 .build());
 
+        options.addOption(Option.builder(METRICS_OPTION) //
+                .required(false) //
+                .longOpt("metrics") //
+                .hasArg(true) //
+                .argName("[HOST:]PORT") //
+                .desc("expose the execution times in OpenMetrics format at http://HOST:PORT/metrics "
+                        + "(default host: localhost)") //
+                .build());
+
         return options;
     }
 
-    private static void execute(final String[] args) throws ConfigurationException, DrulesNestableException {
+    private static void execute(final String[] args)
+            throws ConfigurationException, DrulesNestableException, IOException {
 
         final Options options = createOptions();
 
@@ -98,16 +112,29 @@ public final class DrulesClient {
             final DrulesEngine engine = new DrulesEngine(filename, configuration);
 
             if (cmd.hasOption(TASK_OPTION)) {
-                for (final String taskName : cmd.getOptionValues(TASK_OPTION)) {
-                    final Identifier taskId = new IdentifierBuilder().withValue(taskName).build();
-                    engine.execute(taskId);
+                OpenMetricsServer metricsServer = null;
+                if (cmd.hasOption(METRICS_OPTION)) {
+                    metricsServer = new OpenMetricsServer(cmd.getOptionValue(METRICS_OPTION));
+                    metricsServer.register(DrulesMetrics.getInstance());
+                    metricsServer.start();
+                }
+
+                try {
+                    for (final String taskName : cmd.getOptionValues(TASK_OPTION)) {
+                        final Identifier taskId = new IdentifierBuilder().withValue(taskName).build();
+                        engine.execute(taskId);
+                    }
+                } finally {
+                    if (metricsServer != null) {
+                        metricsServer.stop();
+                    }
                 }
             } else {
                 // list available tasks
                 showTaskList(engine.listTasks());
 
             }
-        } catch (@SuppressWarnings("unused") final ParseException e) {
+        } catch (@SuppressWarnings("unused") final ParseException | NumberFormatException e) {
             showUsage(options);
         }
     }
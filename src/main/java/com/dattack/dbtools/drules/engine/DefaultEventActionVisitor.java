@@ -76,7 +76,8 @@ public class DefaultEventActionVisitor implements EventActionBeanVisitor {
 
             SourceResult sourceResult = null;
             try {
-                final SourceExecutor sourceExecutor = new SourceExecutor(sourceBean,
+                final SourceExecutor sourceExecutor = new SourceExecutor(flightRecorder.getTaskBean().getId(),
+                        sourceBean,
                         ConfigurationUtils.cloneConfiguration(ThreadContext.getInstance().getConfiguration()));
                 sourceResult = sourceExecutor.call();
             } catch (final DrulesNestableException e) {
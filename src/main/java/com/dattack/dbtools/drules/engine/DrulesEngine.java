@@ -83,13 +83,26 @@ public class DrulesEngine {
 
         LOGGER.info("Integrity task (Task ID: {}, Task name: {}): STARTED", taskBean.getId(), taskBean.getName());
 
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            executeTask(taskBean, configurationBean);
+            failed = false;
+        } finally {
+            DrulesMetrics.getInstance().recordTask(taskBean.getId(), System.nanoTime() - start, failed);
+        }
+    }
+
+    private static void executeTask(final TaskBean taskBean, final ConfigurationBean configurationBean)
+            throws ConfigurationException, DrulesNestableException {
+
         // start the flight recorder
         final FlightRecorder flightRecorder = new FlightRecorder(taskBean, configurationBean);
 
         executeJsEvals(taskBean);
 
         // executes the source' statements and retrieves the ResultSets to check
-        final SourceResultGroup sourceResultGroup = getSourceResultsList(taskBean.getSources());
+        final SourceResultGroup sourceResultGroup = getSourceResultsList(taskBean);
 
         try {
             // execute checks
@@ -174,15 +187,14 @@ public class DrulesEngine {
                 GlobalConfiguration.getProperty(GlobalConfiguration.DRULES_CONFIGURATION_FILE_KEY));
     }
 
-    private static SourceResultGroup getSourceResultsList(final List<SourceBean> sourceList)
-            throws DrulesNestableException {
+    private static SourceResultGroup getSourceResultsList(final TaskBean taskBean) throws DrulesNestableException {
 
         final ExecutorService executorService = Executors.newCachedThreadPool(createThreadFactory());
 
         final List<Future<SourceResult>> futureList = new ArrayList<>();
 
-        for (final SourceBean sourceBean : sourceList) {
-            futureList.add(executorService.submit(new SourceExecutor(sourceBean,
+        for (final SourceBean sourceBean : taskBean.getSources()) {
+            futureList.add(executorService.submit(new SourceExecutor(taskBean.getId(), sourceBean,
                     ConfigurationUtils.cloneConfiguration(ThreadContext.getInstance().getConfiguration()))));
         }
 
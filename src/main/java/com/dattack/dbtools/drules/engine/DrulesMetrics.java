@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.drules.engine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.dattack.dbtools.drules.beans.Identifier;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.dbtools.metrics.OpenMetricsCollector;
+import com.dattack.dbtools.metrics.OpenMetricsWriter;
+import com.dattack.dbtools.metrics.StripedCounter;
+
+/**
+ * Execution times of the tasks and of their sources. The engine threads record them without locking and the
+ * OpenMetrics endpoint reads them on every scrape.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class DrulesMetrics implements OpenMetricsCollector {
+
+    private static final transient DrulesMetrics INSTANCE = new DrulesMetrics();
+
+    private static final String TASK = "task";
+    private static final String SOURCE = "source";
+
+    private final ConcurrentMap<String, Timer> taskTimerMap;
+    private final ConcurrentMap<List<String>, Timer> sourceTimerMap;
+
+    private static final class Timer {
+
+        private final LatencyHistogram histogram;
+        private final StripedCounter failures;
+
+        Timer() {
+            this.histogram = new LatencyHistogram();
+            this.failures = new StripedCounter();
+        }
+
+        void record(final long nanos, final boolean failed) {
+            histogram.record(nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+    }
+
+    public static DrulesMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    private static <K> Timer getTimer(final ConcurrentMap<K, Timer> map, final K key) {
+
+        Timer timer = map.get(key);
+        if (timer == null) {
+            final Timer newTimer = new Timer();
+            timer = map.putIfAbsent(key, newTimer);
+            if (timer == null) {
+                timer = newTimer;
+            }
+        }
+        return timer;
+    }
+
+    private static String valueOf(final Identifier identifier) {
+        return identifier == null ? "" : StringUtils.defaultString(identifier.getValue());
+    }
+
+    private DrulesMetrics() {
+        this.taskTimerMap = new ConcurrentHashMap<>();
+        this.sourceTimerMap = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void collect(final OpenMetricsWriter writer) {
+
+        writer.family("drules_task_duration_seconds", OpenMetricsWriter.HISTOGRAM, "Execution time of the tasks");
+        for (final Map.Entry<String, Timer> entry : taskTimerMap.entrySet()) {
+            writer.histogram("drules_task_duration_seconds", entry.getValue().histogram.snapshot(), //
+                    TASK, entry.getKey());
+        }
+
+        writer.family("drules_task_failures", OpenMetricsWriter.COUNTER, "Failed executions of the tasks");
+        for (final Map.Entry<String, Timer> entry : taskTimerMap.entrySet()) {
+            writer.sample("drules_task_failures_total", entry.getValue().failures.sum(), TASK, entry.getKey());
+        }
+
+        writer.family("drules_source_duration_seconds", OpenMetricsWriter.HISTOGRAM,
+                "Execution time of the commands of the sources");
+        for (final Map.Entry<List<String>, Timer> entry : sourceTimerMap.entrySet()) {
+            writer.histogram("drules_source_duration_seconds", entry.getValue().histogram.snapshot(), //
+                    TASK, entry.getKey().get(0), SOURCE, entry.getKey().get(1));
+        }
+
+        writer.family("drules_source_failures", OpenMetricsWriter.COUNTER, "Failed executions of the sources");
+        for (final Map.Entry<List<String>, Timer> entry : sourceTimerMap.entrySet()) {
+            writer.sample("drules_source_failures_total", entry.getValue().failures.sum(), //
+                    TASK, entry.getKey().get(0), SOURCE, entry.getKey().get(1));
+        }
+    }
+
+    /**
+     * Records an execution of a source.
+     *
+     * @param taskId
+     *            the identifier of the task
+     * @param sourceId
+     *            the identifier of the source
+     * @param nanos
+     *            the execution time (nanoseconds)
+     * @param failed
+     *            <code>true</code> if the execution failed
+     */
+    public void recordSource(final Identifier taskId, final Identifier sourceId, final long nanos,
+            final boolean failed) {
+        getTimer(sourceTimerMap, Arrays.asList(valueOf(taskId), valueOf(sourceId))).record(nanos, failed);
+    }
+
+    /**
+     * Records an execution of a task.
+     *
+     * @param taskId
+     *            the identifier of the task
+     * @param nanos
+     *            the execution time (nanoseconds)
+     * @param failed
+     *            <code>true</code> if the execution failed
+     */
+    public void recordTask(final Identifier taskId, final long nanos, final boolean failed) {
+        getTimer(taskTimerMap, valueOf(taskId)).record(nanos, failed);
+    }
+}
@@ -51,6 +51,7 @@ final class SourceExecutor implements Callable<SourceResult> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SourceExecutor.class);
 
+    private final Identifier taskId;
     private final SourceBean sourceBean;
     private final Configuration initialConfiguration;
 
@@ -186,7 +187,8 @@ final class SourceExecutor implements Callable<SourceResult> {
         return new JNDIDataSource(jndiName).getConnection();
     }
 
-    SourceExecutor(final SourceBean sourceBean, final Configuration initialConfiguration) {
+    SourceExecutor(final Identifier taskId, final SourceBean sourceBean, final Configuration initialConfiguration) {
+        this.taskId = taskId;
         this.sourceBean = sourceBean;
         this.initialConfiguration = initialConfiguration;
     }
@@ -194,6 +196,8 @@ final class SourceExecutor implements Callable<SourceResult> {
     @Override
     public SourceResult call() throws DrulesNestableException {
 
+        final long start = System.nanoTime();
+        boolean failed = true;
         try {
             ThreadContext.getInstance().setInitialConfiguration(initialConfiguration);
 
@@ -207,9 +211,14 @@ final class SourceExecutor implements Callable<SourceResult> {
                 final SourceCommandBean command = it.next();
                 command.accept(visitor);
             }
-            return new SourceResult(sourceBean.getId(), connection, visitor.getLastResultSet());
+            final SourceResult sourceResult = new SourceResult(sourceBean.getId(), connection,
+                    visitor.getLastResultSet());
+            failed = false;
+            return sourceResult;
         } catch (final SQLException e) {
             throw new DrulesNestableException(e);
+        } finally {
+            DrulesMetrics.getInstance().recordSource(taskId, sourceBean.getId(), System.nanoTime() - start, failed);
         }
     }
 
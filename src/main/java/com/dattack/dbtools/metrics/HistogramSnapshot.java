@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Immutable copy of the values of a {@link LatencyHistogram}.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class HistogramSnapshot implements Serializable {
+
+    private static final long serialVersionUID = -3391950283570861723L;
+
+    private final long[] counts;
+    private final long totalCount;
+    private final long minValue;
+    private final long maxValue;
+
+    /**
+     * Reads a snapshot written by {@link #write(DataOutput)}.
+     *
+     * @param in
+     *            the input
+     * @return the snapshot
+     * @throws IOException
+     *             if the snapshot can't be read or its content is not valid
+     */
+    public static HistogramSnapshot read(final DataInput in) throws IOException {
+
+        final long minValue = in.readLong();
+        final long maxValue = in.readLong();
+        final int buckets = in.readInt();
+        if (buckets < 0 || buckets > LatencyHistogram.BUCKET_COUNT) {
+            throw new IOException("Invalid number of buckets: " + buckets);
+        }
+
+        final long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        for (int i = 0; i < buckets; i++) {
+            final int index = in.readInt();
+            final long count = in.readLong();
+            if (index < 0 || index >= LatencyHistogram.BUCKET_COUNT || count < 0) {
+                throw new IOException(String.format("Invalid bucket (index: %d, count: %d)", index, count));
+            }
+            counts[index] = count;
+        }
+        return new HistogramSnapshot(counts, minValue, maxValue);
+    }
+
+    HistogramSnapshot(final long[] counts, final long minValue, final long maxValue) {
+        this.counts = counts;
+        long total = 0;
+        for (final long value : counts) {
+            total += value;
+        }
+        this.totalCount = total;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+    }
+
+    long getBucketCount(final int index) {
+        return counts[index];
+    }
+
+    /**
+     * Returns the number of recorded values that are lower than or equal to a given value. The values sharing a
+     * bucket with the given one are only counted when the whole bucket is below it.
+     *
+     * @param value
+     *            the upper bound (nanoseconds)
+     * @return the number of values
+     */
+    public long getCountAtOrBelow(final long value) {
+
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (LatencyHistogram.highestEquivalentValue(i) > value) {
+                break;
+            }
+            count += counts[i];
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the highest recorded value (nanoseconds) or zero if the histogram is empty
+     */
+    public long getMax() {
+        if (totalCount == 0) {
+            return 0;
+        }
+        return maxValue;
+    }
+
+    /**
+     * Returns the approximate mean of the recorded values, computed from the middle point of each bucket.
+     *
+     * @return the mean (nanoseconds) or zero if the histogram is empty
+     */
+    public double getMean() {
+
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        double sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                final long lowest = LatencyHistogram.lowestEquivalentValue(i);
+                final long highest = LatencyHistogram.highestEquivalentValue(i);
+                sum += counts[i] * ((lowest + highest) / 2.0);
+            }
+        }
+        return sum / totalCount;
+    }
+
+    /**
+     * @return the lowest recorded value (nanoseconds) or zero if the histogram is empty
+     */
+    public long getMin() {
+        if (totalCount == 0) {
+            return 0;
+        }
+        return minValue;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall.
+     *
+     * @param percentile
+     *            the percentile (0 .. 100)
+     * @return the value (nanoseconds) or zero if the histogram is empty
+     */
+    public long getValueAtPercentile(final double percentile) {
+
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final double normalizedPercentile = Math.min(Math.max(0, percentile), 100);
+        final long rank = Math.max(1, (long) Math.ceil(normalizedPercentile / 100 * totalCount));
+
+        long accumulated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            accumulated += counts[i];
+            if (accumulated >= rank) {
+                return Math.max(getMin(), Math.min(LatencyHistogram.highestEquivalentValue(i), getMax()));
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Writes the bounds and the non-empty buckets of this snapshot, as index-count pairs.
+     *
+     * @param out
+     *            the output
+     * @throws IOException
+     *             if the snapshot can't be written
+     */
+    public void write(final DataOutput out) throws IOException {
+
+        int buckets = 0;
+        for (final long count : counts) {
+            if (count > 0) {
+                buckets++;
+            }
+        }
+
+        out.writeLong(minValue);
+        out.writeLong(maxValue);
+        out.writeInt(buckets);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                out.writeInt(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+}
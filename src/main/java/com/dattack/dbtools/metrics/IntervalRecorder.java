@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records latencies into a histogram that is swapped for an empty one at the end of every interval. The recording path
+ * is wait-free: writers never block and never see the swap. The reader flips the phase of a writer-reader phaser
+ * (the algorithm used by HdrHistogram's <code>Recorder</code>) and waits only for the writers that were already
+ * recording into the old histogram, so the returned interval is complete and no value is lost or counted twice.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class IntervalRecorder {
+
+    private static final long FLIP_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final AtomicLong startEpoch;
+    private final AtomicLong evenEndEpoch;
+    private final AtomicLong oddEndEpoch;
+
+    private volatile LatencyHistogram active;
+
+    public IntervalRecorder() {
+        this.startEpoch = new AtomicLong(0);
+        this.evenEndEpoch = new AtomicLong(0);
+        this.oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+        this.active = new LatencyHistogram();
+    }
+
+    /**
+     * Returns the values recorded since the previous call (or since the creation of this recorder) and starts a new
+     * interval.
+     *
+     * @return the values of the interval
+     */
+    public synchronized HistogramSnapshot nextInterval() {
+
+        final LatencyHistogram inactive = active;
+        active = new LatencyHistogram();
+        flipPhase();
+        return inactive.snapshot();
+    }
+
+    /**
+     * Records a value in the current interval.
+     *
+     * @param value
+     *            the value to record (nanoseconds)
+     */
+    public void record(final long value) {
+
+        final long epoch = startEpoch.getAndIncrement();
+        try {
+            active.record(value);
+        } finally {
+            if (epoch < 0) {
+                oddEndEpoch.getAndIncrement();
+            } else {
+                evenEndEpoch.getAndIncrement();
+            }
+        }
+    }
+
+    /**
+     * Switches the writers to the next phase and waits until every writer that entered the previous phase has left
+     * it. Writers entering after the switch already use the new histogram.
+     */
+    private void flipPhase() {
+
+        final boolean nextPhaseIsEven = startEpoch.get() < 0;
+        final long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+
+        if (nextPhaseIsEven) {
+            evenEndEpoch.lazySet(initialStartValue);
+        } else {
+            oddEndEpoch.lazySet(initialStartValue);
+        }
+
+        final long startValueAtFlip = startEpoch.getAndSet(initialStartValue);
+        final AtomicLong previousEndEpoch = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+        while (previousEndEpoch.get() != startValueAtFlip) {
+            LockSupport.parkNanos(FLIP_WAIT_NANOS);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free high dynamic range histogram of latencies expressed in nanoseconds. Values are stored in log-linear
+ * buckets: every power of two is divided into 64 linear sub-buckets, so the relative error of any recorded value is
+ * lower than 1/64 (1.6%) from one nanosecond up to more than two hours. Any number of threads may record values
+ * concurrently.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    /** The highest trackable value is 2^MAX_VALUE_BITS - 1 nanoseconds (~2.4 hours). */
+    private static final int MAX_VALUE_BITS = 43;
+
+    /** The number of buckets of any histogram. */
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    private static final long MAX_TRACKABLE_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong minValue;
+    private final AtomicLong maxValue;
+
+    /**
+     * Returns the index of the bucket that contains a value.
+     *
+     * @param value
+     *            the value (nanoseconds)
+     * @return the index of the bucket
+     */
+    static int bucketIndex(final long value) {
+
+        final long normalizedValue = Math.min(Math.max(0, value), MAX_TRACKABLE_VALUE);
+        if (normalizedValue < SUB_BUCKET_COUNT) {
+            return (int) normalizedValue;
+        }
+
+        final int shift = (63 - Long.numberOfLeadingZeros(normalizedValue)) - (SUB_BUCKET_BITS - 1);
+        final int subBucket = (int) (normalizedValue >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * Returns the highest value that is stored in the same bucket.
+     *
+     * @param index
+     *            the index of the bucket
+     * @return the highest value of the bucket (nanoseconds)
+     */
+    static long highestEquivalentValue(final int index) {
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        final int offset = index - SUB_BUCKET_COUNT;
+        final int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        final long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Returns the lowest value that is stored in the same bucket.
+     *
+     * @param index
+     *            the index of the bucket
+     * @return the lowest value of the bucket (nanoseconds)
+     */
+    static long lowestEquivalentValue(final int index) {
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        final int offset = index - SUB_BUCKET_COUNT;
+        final int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        final long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return subBucket << shift;
+    }
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.minValue = new AtomicLong(Long.MAX_VALUE);
+        this.maxValue = new AtomicLong(Long.MIN_VALUE);
+    }
+
+    /**
+     * Adds all the values of a snapshot to this histogram.
+     *
+     * @param snapshot
+     *            the values to add
+     */
+    public void add(final HistogramSnapshot snapshot) {
+
+        if (snapshot.getCount() == 0) {
+            return;
+        }
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            final long bucketCount = snapshot.getBucketCount(i);
+            if (bucketCount > 0) {
+                counts.addAndGet(i, bucketCount);
+            }
+        }
+        updateMin(snapshot.getMin());
+        updateMax(snapshot.getMax());
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value
+     *            the value to record (nanoseconds)
+     */
+    public void record(final long value) {
+
+        counts.incrementAndGet(bucketIndex(value));
+        updateMin(value);
+        updateMax(value);
+    }
+
+    /**
+     * Returns a copy of the current values. The copy is not atomic with respect to concurrent recordings,
+     * so a value recorded while the snapshot is taken may be included or not.
+     *
+     * @return the snapshot
+     */
+    public HistogramSnapshot snapshot() {
+
+        final long[] values = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            values[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(values, minValue.get(), maxValue.get());
+    }
+
+    private void updateMax(final long value) {
+
+        long current = maxValue.get();
+        while (value > current && !maxValue.compareAndSet(current, value)) {
+            current = maxValue.get();
+        }
+    }
+
+    private void updateMin(final long value) {
+
+        long current = minValue.get();
+        while (value < current && !minValue.compareAndSet(current, value)) {
+            current = minValue.get();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+/**
+ * A source of metrics exposed by an {@link OpenMetricsServer}. Implementations are called on every scrape and must
+ * only read their accumulators, never block the threads that update them.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public interface OpenMetricsCollector {
+
+    /**
+     * Writes the current value of the metrics.
+     *
+     * @param writer
+     *            the writer of the exposition
+     */
+    void collect(OpenMetricsWriter writer);
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP server that exposes the registered collectors at <code>/metrics</code> in the OpenMetrics text format,
+ * ready to be scraped by Prometheus. The server uses a single thread: a scrape never runs concurrently with another.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class OpenMetricsServer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenMetricsServer.class);
+
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    private static final String PATH = "/metrics";
+
+    private final InetSocketAddress address;
+    private final List<OpenMetricsCollector> collectorList;
+    private HttpServer server;
+
+    /**
+     * Parses an address with the format <code>[host:]port</code>. The loopback interface is used when no host is
+     * given.
+     *
+     * @param address
+     *            the address to parse
+     * @return the socket address
+     */
+    private static InetSocketAddress parseAddress(final String address) {
+
+        final String value = StringUtils.trimToEmpty(address);
+        final int index = value.lastIndexOf(':');
+        if (index < 0) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(value));
+        }
+        return new InetSocketAddress(value.substring(0, index), Integer.parseInt(value.substring(index + 1)));
+    }
+
+    /**
+     * Creates a new server.
+     *
+     * @param address
+     *            the listening address: <code>[host:]port</code>
+     * @throws NumberFormatException
+     *             if the port isn't a number
+     */
+    public OpenMetricsServer(final String address) {
+        this.address = parseAddress(address);
+        this.collectorList = new CopyOnWriteArrayList<>();
+    }
+
+    private byte[] collect() {
+
+        final OpenMetricsWriter writer = new OpenMetricsWriter();
+        for (final OpenMetricsCollector collector : collectorList) {
+            collector.collect(writer);
+        }
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds a collector to the exposition.
+     *
+     * @param collector
+     *            the collector
+     */
+    public void register(final OpenMetricsCollector collector) {
+        collectorList.add(collector);
+    }
+
+    /**
+     * Starts listening.
+     *
+     * @throws IOException
+     *             if the address can't be bound
+     */
+    public synchronized void start() throws IOException {
+
+        if (server != null) {
+            return;
+        }
+
+        server = HttpServer.create(address, 0);
+        server.createContext(PATH, new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+
+                try {
+                    final byte[] body = collect();
+                    exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                    exchange.sendResponseHeaders(200, body.length);
+                    final OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                } catch (final RuntimeException e) {
+                    LOGGER.warn("Unable to collect the metrics: {}", e.getMessage());
+                    exchange.sendResponseHeaders(500, -1);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        LOGGER.info("OpenMetrics endpoint listening on http://{}:{}{}", address.getHostString(), address.getPort(),
+                PATH);
+    }
+
+    /**
+     * Stops listening.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
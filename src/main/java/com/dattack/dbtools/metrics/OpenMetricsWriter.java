@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds an exposition in the OpenMetrics text format. Every metric family is declared with
+ * {@link #family(String, String, String)} before its samples. Labels are given as a list of name/value pairs.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class OpenMetricsWriter {
+
+    public static final String COUNTER = "counter";
+    public static final String GAUGE = "gauge";
+    public static final String HISTOGRAM = "histogram";
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** The upper bounds of the histogram buckets (seconds). */
+    private static final double[] BUCKET_BOUNDS = { 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1,
+        2.5, 5, 10, 30, 60 };
+
+    private final StringBuilder builder;
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(final double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%s", value);
+    }
+
+    public OpenMetricsWriter() {
+        this.builder = new StringBuilder();
+    }
+
+    private void appendLabels(final String[] labels, final String extraName, final String extraValue) {
+
+        if (labels.length == 0 && extraName == null) {
+            return;
+        }
+
+        builder.append('{');
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        if (extraName != null) {
+            if (labels.length > 0) {
+                builder.append(',');
+            }
+            builder.append(extraName).append("=\"").append(extraValue).append('"');
+        }
+        builder.append('}');
+    }
+
+    /**
+     * Declares a metric family.
+     *
+     * @param name
+     *            the name of the family (counters without the <code>_total</code> suffix)
+     * @param type
+     *            the type of the family: {@link #COUNTER}, {@link #GAUGE} or {@link #HISTOGRAM}
+     * @param help
+     *            the description of the family
+     * @return self object
+     */
+    public OpenMetricsWriter family(final String name, final String type, final String help) {
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        builder.append("# HELP ").append(name).append(' ').append(escape(help)).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes the samples of a latency histogram: cumulative buckets in seconds, count and sum.
+     *
+     * @param name
+     *            the name of the family
+     * @param snapshot
+     *            the values of the histogram (nanoseconds)
+     * @param labels
+     *            the label name/value pairs
+     * @return self object
+     */
+    public OpenMetricsWriter histogram(final String name, final HistogramSnapshot snapshot, final String... labels) {
+
+        for (final double bound : BUCKET_BOUNDS) {
+            builder.append(name).append("_bucket");
+            appendLabels(labels, "le", BigDecimal.valueOf(bound).stripTrailingZeros().toPlainString());
+            builder.append(' ').append(snapshot.getCountAtOrBelow((long) (bound * NANOS_PER_SECOND))).append('\n');
+        }
+
+        builder.append(name).append("_bucket");
+        appendLabels(labels, "le", "+Inf");
+        builder.append(' ').append(snapshot.getCount()).append('\n');
+
+        builder.append(name).append("_count");
+        appendLabels(labels, null, null);
+        builder.append(' ').append(snapshot.getCount()).append('\n');
+
+        builder.append(name).append("_sum");
+        appendLabels(labels, null, null);
+        builder.append(' ').append(format(snapshot.getMean() * snapshot.getCount() / NANOS_PER_SECOND)).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes a sample.
+     *
+     * @param name
+     *            the name of the sample (counters with the <code>_total</code> suffix)
+     * @param value
+     *            the value
+     * @param labels
+     *            the label name/value pairs
+     * @return self object
+     */
+    public OpenMetricsWriter sample(final String name, final double value, final String... labels) {
+        builder.append(name);
+        appendLabels(labels, null, null);
+        builder.append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * @return the exposition, terminated by the <code># EOF</code> marker
+     */
+    @Override
+    public String toString() {
+        return builder.toString() + "# EOF\n";
+    }
+}
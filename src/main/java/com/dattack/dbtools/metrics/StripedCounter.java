@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter updated by many threads with low contention. The value is split in several cells, each one in its own
+ * cache line, and every thread updates the cell selected by its identifier; reading the counter sums all the cells.
+ * Similar in purpose to <code>java.util.concurrent.atomic.LongAdder</code>, which isn't available in Java 7.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class StripedCounter {
+
+    /** Distance between two cells, in longs, so each cell lives in a different 64-byte cache line. */
+    private static final int PADDING = 8;
+
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells;
+
+    private static int stripes(final int processors) {
+        // the next power of two equal to or greater than twice the number of processors
+        int stripes = 1;
+        while (stripes < processors * 2) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private static int cellIndex() {
+        final long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return (hash & (STRIPES - 1)) * PADDING;
+    }
+
+    public StripedCounter() {
+        this.cells = new AtomicLongArray(STRIPES * PADDING);
+    }
+
+    /**
+     * Adds a value to the counter.
+     *
+     * @param value
+     *            the value to add (may be negative)
+     */
+    public void add(final long value) {
+        cells.getAndAdd(cellIndex(), value);
+    }
+
+    public void decrement() {
+        add(-1);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Returns the current value. It isn't an atomic snapshot: the updates made while the cells are being read may be
+     * partially included.
+     *
+     * @return the sum of all the cells
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+}
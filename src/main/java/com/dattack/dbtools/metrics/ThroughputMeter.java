@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the current and the peak throughput of a counter from periodic samples. The samples are taken by a single
+ * reporting thread, never by the threads that update the counter.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class ThroughputMeter {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long lastCount;
+    private long lastNanos;
+    private volatile double current;
+    private volatile double peak;
+
+    /**
+     * Creates a new meter.
+     *
+     * @param originNanos
+     *            the time of the first sample, as returned by {@link System#nanoTime()}
+     */
+    public ThroughputMeter(final long originNanos) {
+        this.lastNanos = originNanos;
+    }
+
+    /**
+     * @return the throughput of the last sampling interval (events per second)
+     */
+    public double getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return the highest throughput of any sampling interval (events per second)
+     */
+    public double getPeak() {
+        return peak;
+    }
+
+    /**
+     * Takes a new sample.
+     *
+     * @param count
+     *            the current value of the counter
+     * @param nowNanos
+     *            the current time, as returned by {@link System#nanoTime()}
+     */
+    public synchronized void sample(final long count, final long nowNanos) {
+
+        final long elapsed = nowNanos - lastNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+
+        current = (count - lastCount) * NANOS_PER_SECOND / elapsed;
+        peak = Math.max(peak, current);
+        lastCount = count;
+        lastNanos = nowNanos;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop schedule of a single worker. The intended start time of each execution is fixed in advance and doesn't
+ * depend on the duration of the previous one, so a slow database doesn't reduce the offered load. The workers of a
+ * task share the same origin and are evenly staggered.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class ArrivalSchedule {
+
+    private final long periodNanos;
+    private long nextStartNanos;
+
+    /**
+     * Creates the schedule of a worker.
+     *
+     * @param targetRate
+     *            the number of executions per second of the whole task
+     * @param originNanos
+     *            the time origin, as returned by {@link System#nanoTime()}, shared by all the workers of the task
+     * @param workerIndex
+     *            the index of the worker (0 .. workers - 1)
+     * @param workers
+     *            the number of workers of the task
+     */
+    ArrivalSchedule(final double targetRate, final long originNanos, final int workerIndex, final int workers) {
+
+        if (targetRate <= 0) {
+            throw new IllegalArgumentException("The target rate must be greater than zero");
+        }
+
+        final int workerCount = Math.max(1, workers);
+        this.periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) * workerCount / targetRate);
+        this.nextStartNanos = originNanos + periodNanos * workerIndex / workerCount;
+    }
+
+    /**
+     * Waits until the intended start time of the next execution. If the worker is late, it returns immediately and
+     * keeps the original timeline.
+     *
+     * @return the intended start time, as a {@link System#nanoTime()} value
+     */
+    long awaitNext() {
+
+        final long intendedStart = nextStartNanos;
+        nextStartNanos += periodNanos;
+
+        long remaining = intendedStart - System.nanoTime();
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = intendedStart - System.nanoTime();
+        }
+        return intendedStart;
+    }
+}
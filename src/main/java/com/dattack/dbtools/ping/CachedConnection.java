@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dattack.jtoolbox.jdbc.JDBCUtils;
+
+/**
+ * A connection together with its cache of prepared statements. A connection is used by a single worker at a time, so
+ * the cache isn't synchronized.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class CachedConnection {
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statementMap;
+
+    CachedConnection(final Connection connection) {
+        this.connection = connection;
+        this.statementMap = new HashMap<>();
+    }
+
+    /**
+     * Closes the cached statements and the connection.
+     */
+    void close() {
+        for (final PreparedStatement statement : statementMap.values()) {
+            JDBCUtils.closeQuietly(statement);
+        }
+        statementMap.clear();
+        JDBCUtils.closeQuietly(connection);
+    }
+
+    /**
+     * Closes the prepared statement of a SQL sentence and removes it from the cache, so the next execution uses a new
+     * one.
+     *
+     * @param sql
+     *            the SQL sentence
+     */
+    void evict(final String sql) {
+        JDBCUtils.closeQuietly(statementMap.remove(sql));
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns the prepared statement of a SQL sentence, creating it on first use. The returned statement must not be
+     * closed by the caller.
+     *
+     * @param sql
+     *            the SQL sentence
+     * @return the prepared statement
+     * @throws SQLException
+     *             if a database access error occurs
+     */
+    PreparedStatement prepareStatement(final String sql) throws SQLException {
+
+        PreparedStatement statement = statementMap.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql);
+            statementMap.put(sql, statement);
+        }
+        return statement;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.beans.SqlBatchBean;
+import com.dattack.dbtools.ping.beans.SqlCommandBean;
+import com.dattack.dbtools.ping.beans.SqlCommandVisitor;
+import com.dattack.dbtools.ping.beans.SqlScriptBean;
+import com.dattack.dbtools.ping.beans.SqlStatementBean;
+import com.dattack.dbtools.ping.beans.SqlStatementBean.ChecksumMode;
+
+/**
+ * Compares the checksum of each result with the expected one: the value set in the statement or, if there is none,
+ * the checksum of its first execution. An instance is shared by all the datasources of a task, so a replica or a cache
+ * that returns different results from the others is detected too. The results of statements with parameters depend
+ * on the generated values, so they are only compared with an explicit expected value.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class ChecksumVerifier {
+
+    private static final int HEX_RADIX = 16;
+
+    private final ConcurrentMap<SqlStatementBean, Long> expectedMap;
+
+    /**
+     * Formats a checksum as it is written to the log.
+     *
+     * @param value
+     *            the checksum
+     * @return the hexadecimal representation
+     */
+    static String format(final long value) {
+        return String.format("%016x", value);
+    }
+
+    private static long parse(final SqlStatementBean command, final String pingTaskName)
+            throws DbpingParserException {
+
+        try {
+            final BigInteger value = new BigInteger(StringUtils.trimToEmpty(command.getExpectedChecksum()), HEX_RADIX);
+            if (value.signum() >= 0 && value.bitLength() <= Long.SIZE) {
+                return value.longValue();
+            }
+        } catch (final NumberFormatException e) {
+            // handled below
+        }
+        throw new DbpingParserException(String.format("Invalid expected checksum '%s' (task: '%s', label: '%s')",
+                command.getExpectedChecksum(), pingTaskName, command.getLabel()));
+    }
+
+    /**
+     * Creates the verifier of a task, with the expected checksums of its statements.
+     *
+     * @param pingTaskBean
+     *            the task
+     * @throws DbpingParserException
+     *             if an expected checksum isn't a valid hexadecimal number
+     */
+    ChecksumVerifier(final PingTaskBean pingTaskBean) throws DbpingParserException {
+
+        this.expectedMap = new ConcurrentHashMap<>();
+
+        final List<SqlStatementBean> statementList = new ArrayList<>();
+        final SqlCommandVisitor visitor = new SqlCommandVisitor() {
+
+            @Override
+            public void visite(final SqlBatchBean command) {
+                // no result set
+            }
+
+            @Override
+            public void visite(final SqlScriptBean command) {
+                for (final SqlStatementBean item : command.getStatementList()) {
+                    item.accept(this);
+                }
+            }
+
+            @Override
+            public void visite(final SqlStatementBean command) {
+                if (command.getChecksum() != ChecksumMode.NONE && command.getExpectedChecksum() != null) {
+                    statementList.add(command);
+                }
+            }
+        };
+
+        for (final SqlCommandBean command : pingTaskBean.getSqlStatementList()) {
+            command.accept(visitor);
+        }
+
+        for (final SqlStatementBean command : statementList) {
+            expectedMap.put(command, parse(command, pingTaskBean.getName()));
+        }
+    }
+
+    /**
+     * Checks the checksum of a result.
+     *
+     * @param command
+     *            the executed statement
+     * @param value
+     *            the checksum of its result
+     * @return <code>false</code> if the checksum doesn't match the expected one
+     */
+    boolean verify(final SqlStatementBean command, final long value) {
+
+        final Long expected = expectedMap.get(command);
+        if (expected != null) {
+            return expected.longValue() == value;
+        }
+
+        if (!command.getParameterList().isEmpty()) {
+            return true;
+        }
+
+        // the first execution sets the expected value
+        final Long previous = expectedMap.putIfAbsent(command, value);
+        return previous == null || previous.longValue() == value;
+    }
+
+    /**
+     * @param command
+     *            the executed statement
+     * @return the expected checksum or <code>null</code> if it isn't known yet
+     */
+    Long getExpected(final SqlStatementBean command) {
+        return expectedMap.get(command);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.sql.SQLException;
+
+/**
+ * Defines the lifecycle of the connections used by the workers of a task.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+interface ConnectionProvider {
+
+    /**
+     * Acquires a connection.
+     *
+     * @return the connection
+     * @throws SQLException
+     *             if a database access error occurs
+     */
+    CachedConnection getConnection() throws SQLException;
+
+    /**
+     * Returns a connection previously acquired with {@link #getConnection()}.
+     *
+     * @param connection
+     *            the connection
+     * @param reusable
+     *            <code>false</code> when the connection must be discarded (i.e. a connection error occurred)
+     */
+    void release(final CachedConnection connection, final boolean reusable);
+
+    /**
+     * Closes all the connections retained by this provider.
+     */
+    void close();
+}
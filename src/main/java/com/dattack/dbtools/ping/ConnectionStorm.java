@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.dbtools.ping.LogEntry.LogEntryBuilder;
+import com.dattack.dbtools.ping.beans.ConnectionStormBean;
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.log.StageHeader;
+import com.dattack.jtoolbox.jdbc.JDBCUtils;
+import com.dattack.jtoolbox.util.TimeUtils;
+
+/**
+ * A connection storm against a datasource. In each round, the clients wait on a barrier and then open a connection at
+ * the same time; when every client has finished, a second barrier closes the round and the connections are released.
+ * Each attempt is logged as an execution with the label <code>connect</code>.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class ConnectionStorm {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionStorm.class);
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final String CONNECT_LABEL = "connect";
+
+    private final TaskContext context;
+    private final DataSource dataSource;
+    private final String groupName;
+    private final int clients;
+    private final int rounds;
+    private final long pauseMillis;
+    private final CyclicBarrier startBarrier;
+    private final CyclicBarrier endBarrier;
+    private final LatencyHistogram histogram;
+    private final List<Round> roundList;
+
+    // state of the current round, published to the clients by the barriers
+    private final AtomicLong lastConnectNanos;
+    private final AtomicInteger failures;
+    private LatencyHistogram roundHistogram;
+    private long roundStartNanos;
+
+    private static final class Round {
+
+        private final int index;
+        private final int connected;
+        private final int failures;
+        private final long allConnectedNanos;
+        private final HistogramSnapshot snapshot;
+
+        Round(final int index, final int connected, final int failures, final long allConnectedNanos,
+                final HistogramSnapshot snapshot) {
+            this.index = index;
+            this.connected = connected;
+            this.failures = failures;
+            this.allConnectedNanos = allConnectedNanos;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Opens a connection in each round.
+     */
+    private final class Client implements Runnable {
+
+        @Override
+        public void run() {
+
+            final String threadName = Thread.currentThread().getName();
+            final LogEntryBuilder logEntryBuilder = new LogEntryBuilder() //
+                    .withTaskName(context.getPingTaskBean().getName()) //
+                    .withThreadName(threadName) //
+                    .withDatasource(context.getDatasourceName());
+
+            for (int round = 0; round < rounds; round++) {
+
+                if (round > 0 && !pause()) {
+                    return;
+                }
+
+                if (!await(startBarrier)) {
+                    return;
+                }
+
+                final Connection connection = connect(logEntryBuilder.init(), round);
+                final boolean completed = await(endBarrier);
+
+                // nobody closes a connection while the others are still connecting
+                JDBCUtils.closeQuietly(connection);
+                if (!completed) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String getRoundName(final int round) {
+        return "round-" + (round + 1);
+    }
+
+    private static long parsePause(final PingTaskBean pingTaskBean, final String value)
+            throws DbpingParserException {
+
+        if (value == null) {
+            return 0;
+        }
+
+        Long millis = null;
+        try {
+            millis = TimeUtils.parseTimeSpanMillis(value);
+        } catch (final IllegalArgumentException e) {
+            // handled below
+        }
+
+        if (millis == null || millis < 0) {
+            throw new DbpingParserException(String.format("Invalid connection storm pause '%s' (task: '%s')", value,
+                    pingTaskBean.getName()));
+        }
+        return millis;
+    }
+
+    /**
+     * Creates the storm of a group of clients.
+     *
+     * @param context
+     *            the context of the task, with a connection storm
+     * @param dataSource
+     *            the datasource to connect to
+     * @param groupName
+     *            the name of the group of clients
+     * @throws DbpingParserException
+     *             if the storm has an invalid pause
+     */
+    ConnectionStorm(final TaskContext context, final DataSource dataSource, final String groupName)
+            throws DbpingParserException {
+
+        final PingTaskBean pingTaskBean = context.getPingTaskBean();
+        final ConnectionStormBean bean = pingTaskBean.getConnectionStorm();
+
+        this.context = context;
+        this.dataSource = dataSource;
+        this.groupName = groupName;
+        this.clients = bean.getClients() > 0 ? bean.getClients() : Math.max(1, pingTaskBean.getThreads());
+        this.rounds = bean.getRounds();
+        this.pauseMillis = parsePause(pingTaskBean, bean.getPause());
+        this.histogram = new LatencyHistogram();
+        this.roundList = new ArrayList<>();
+        this.lastConnectNanos = new AtomicLong();
+        this.failures = new AtomicInteger();
+
+        this.startBarrier = new CyclicBarrier(clients, new Runnable() {
+
+            @Override
+            public void run() {
+                startRound();
+            }
+        });
+        this.endBarrier = new CyclicBarrier(clients, new Runnable() {
+
+            @Override
+            public void run() {
+                endRound();
+            }
+        });
+    }
+
+    /**
+     * Waits for the other clients.
+     *
+     * @return <code>false</code> if the storm was aborted
+     */
+    private boolean await(final CyclicBarrier barrier) {
+
+        try {
+            barrier.await();
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final BrokenBarrierException e) {
+            // another client was interrupted
+        }
+        return false;
+    }
+
+    private Connection connect(final LogEntryBuilder logEntryBuilder, final int round) {
+
+        logEntryBuilder.withSqlLabel(CONNECT_LABEL) //
+                .withIteration(round) //
+                .withStage(getRoundName(round));
+
+        Connection connection = null;
+        context.getTaskMetrics().enter();
+        try {
+            connection = dataSource.getConnection();
+            final long now = System.nanoTime();
+            final long latency = now - logEntryBuilder.getStartNanos();
+            logEntryBuilder.withConnectionTime(latency) //
+                    .withTotalTime(latency);
+            roundHistogram.record(latency);
+            updateLastConnect(now);
+        } catch (final SQLException | RuntimeException e) {
+            failures.incrementAndGet();
+            logEntryBuilder.withException(e);
+            LOGGER.warn("Connection storm: {} (task: '{}', round: {})", e.getMessage(), groupName, round + 1);
+        } finally {
+            context.getTaskMetrics().exit();
+        }
+
+        final LogEntry logEntry = logEntryBuilder.build();
+        context.getLogWriter().write(logEntry);
+        context.getTaskMetrics().record(logEntry);
+        return connection;
+    }
+
+    private void endRound() {
+
+        final int index = roundList.size();
+        final HistogramSnapshot snapshot = roundHistogram.snapshot();
+        final int failed = failures.get();
+        final Round round = new Round(index, clients - failed, failed,
+                failed < clients ? lastConnectNanos.get() - roundStartNanos : -1, snapshot);
+        histogram.add(snapshot);
+        synchronized (roundList) {
+            roundList.add(round);
+        }
+
+        LOGGER.info("Connection storm '{}', {}: {} connected, {} failed, p99 {} ms", groupName, getRoundName(index),
+                round.connected, round.failures, snapshot.getValueAtPercentile(99) / NANOS_PER_MILLI);
+    }
+
+    /**
+     * @return the number of clients of each round
+     */
+    int getClients() {
+        return clients;
+    }
+
+    /**
+     * @return a new client of the storm; exactly {@link #getClients()} clients must run
+     */
+    Runnable newClient() {
+        return new Client();
+    }
+
+    private boolean pause() {
+
+        if (pauseMillis > 0) {
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                endBarrier.reset();
+                startBarrier.reset();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prints the connection latency of every round, the failures and the time until the last client was connected.
+     *
+     * @param out
+     *            the output stream
+     */
+    void print(final PrintStream out) {
+
+        out.format("%n%nConnection storm (task: %s, clients: %d, rounds: %d, unit: ms)%n", groupName, clients,
+                rounds);
+        out.format("%-10s %10s %10s %14s %10s %10s %10s %10s%n", "round", "connected", "failed", "all-connected",
+                "p50", "p90", "p99", "max");
+
+        synchronized (roundList) {
+            for (final Round round : roundList) {
+                print(out, getRoundName(round.index), round.connected, round.failures,
+                        round.allConnectedNanos >= 0 ? String.format("%.3f", round.allConnectedNanos / NANOS_PER_MILLI)
+                                : "-",
+                        round.snapshot);
+            }
+
+            if (roundList.size() < rounds) {
+                out.format("The storm was aborted after %d of %d rounds%n", roundList.size(), rounds);
+            }
+
+            final HistogramSnapshot snapshot = histogram.snapshot();
+            final long attempts = (long) clients * roundList.size();
+            print(out, "total", snapshot.getCount(), attempts - snapshot.getCount(), "-", snapshot);
+        }
+    }
+
+    private static void print(final PrintStream out, final String name, final long connected, final long failed,
+            final String allConnected, final HistogramSnapshot snapshot) {
+
+        out.format("%-10s %10d %10d %14s %10.3f %10.3f %10.3f %10.3f%n", name, connected, failed, allConnected,
+                snapshot.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                snapshot.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                snapshot.getValueAtPercentile(99) / NANOS_PER_MILLI, snapshot.getMax() / NANOS_PER_MILLI);
+    }
+
+    private void startRound() {
+
+        final int index = roundList.size();
+        roundHistogram = new LatencyHistogram();
+        failures.set(0);
+        roundStartNanos = System.nanoTime();
+        lastConnectNanos.set(roundStartNanos);
+
+        context.getLogWriter()
+                .write(new StageHeader(getRoundName(index), clients, 0, 0, System.currentTimeMillis()));
+    }
+
+    private void updateLastConnect(final long nanos) {
+
+        long last = lastConnectNanos.get();
+        while (nanos - last > 0 && !lastConnectNanos.compareAndSet(last, nanos)) {
+            last = lastConnectNanos.get();
+        }
+    }
+}
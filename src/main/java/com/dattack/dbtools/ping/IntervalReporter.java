@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.dbtools.ping.log.CSVConfigurationFactory;
+import com.dattack.formats.csv.CSVStringBuilder;
+import com.dattack.jtoolbox.io.IOUtils;
+
+/**
+ * Prints a compact summary of every task and SQL label at the end of each reporting interval: the number of
+ * executions, throughput, errors and latency percentiles of that interval only. The summary is optionally appended to a
+ * tab-separated interval file. The label named <code>*</code> holds the totals of the task.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class IntervalReporter implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IntervalReporter.class);
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final String TOTAL_LABEL = "*";
+
+    private final PrintStream out;
+    private final String filename;
+    private final CSVStringBuilder csvBuilder;
+    private final List<TaskMetrics> taskMetricsList;
+    private long intervalStartNanos;
+
+    private static String formatMillis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    IntervalReporter(final PrintStream out, final String filename) {
+        this.out = out;
+        this.filename = filename;
+        this.csvBuilder = new CSVStringBuilder(new CSVConfigurationFactory().create());
+        this.taskMetricsList = new CopyOnWriteArrayList<>();
+        this.intervalStartNanos = System.nanoTime();
+        writeFileHeader();
+    }
+
+    private void append(final Date date, final String taskName, final String label, final IntervalSummary summary) {
+
+        final HistogramSnapshot snapshot = summary.getSnapshot();
+        final boolean empty = snapshot.getCount() == 0;
+
+        out.format("%-30s %-30s %10d %10.1f %8d %10.3f %10.3f %10.3f %10.3f%n", taskName, label, //
+                summary.getCount(), //
+                summary.getThroughput(), //
+                summary.getErrors(), //
+                empty ? 0 : snapshot.getValueAtPercentile(50) / NANOS_PER_MILLI, //
+                empty ? 0 : snapshot.getValueAtPercentile(95) / NANOS_PER_MILLI, //
+                empty ? 0 : snapshot.getValueAtPercentile(99) / NANOS_PER_MILLI, //
+                empty ? 0 : snapshot.getMax() / NANOS_PER_MILLI);
+
+        if (filename != null) {
+            csvBuilder.append(date) //
+                    .append(taskName) //
+                    .append(label) //
+                    .append(TimeUnit.NANOSECONDS.toMillis(summary.getElapsedNanos())) //
+                    .append(summary.getCount()) //
+                    .append(String.format(Locale.ROOT, "%.1f", summary.getThroughput())) //
+                    .append(summary.getErrors()) //
+                    .append(empty ? "-1" : formatMillis(snapshot.getValueAtPercentile(50))) //
+                    .append(empty ? "-1" : formatMillis(snapshot.getValueAtPercentile(95))) //
+                    .append(empty ? "-1" : formatMillis(snapshot.getValueAtPercentile(99))) //
+                    .append(empty ? "-1" : formatMillis(snapshot.getMax())) //
+                    .eol();
+        }
+    }
+
+    /**
+     * Adds a task to the summary.
+     *
+     * @param taskMetrics
+     *            the metrics of the task
+     */
+    void register(final TaskMetrics taskMetrics) {
+        taskMetricsList.add(taskMetrics);
+    }
+
+    @Override
+    public synchronized void run() {
+
+        final long now = System.nanoTime();
+        final Date date = new Date();
+
+        out.format("%n[%tT] Interval summary (%.1f s, unit: ms)%n", date,
+                (now - intervalStartNanos) / NANOS_PER_SECOND);
+        out.format("%-30s %-30s %10s %10s %8s %10s %10s %10s %10s%n", "task", "label", "count", "ops/s", "errors",
+                "p50", "p95", "p99", "max");
+
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+
+            final LatencyHistogram total = new LatencyHistogram();
+            long totalCount = 0;
+            long totalErrors = 0;
+
+            for (final Map.Entry<String, LabelMetrics> entry : taskMetrics.getLabelMetricsMap().entrySet()) {
+                final IntervalSummary summary = entry.getValue().nextInterval(now);
+                append(date, taskMetrics.getTaskName(), entry.getKey(), summary);
+
+                total.add(summary.getSnapshot());
+                totalCount += summary.getCount();
+                totalErrors += summary.getErrors();
+            }
+
+            append(date, taskMetrics.getTaskName(), TOTAL_LABEL,
+                    new IntervalSummary(totalCount, totalErrors, now - intervalStartNanos, total.snapshot()));
+        }
+
+        intervalStartNanos = now;
+        writeFile();
+    }
+
+    private void write(final String message) {
+
+        FileOutputStream output = null;
+        try {
+            final File file = new File(filename);
+            final File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                LOGGER.warn("Unable to create directory: {}", parent);
+            }
+            output = new FileOutputStream(file, true);
+            output.write(message.getBytes());
+        } catch (final IOException e) {
+            LOGGER.warn(e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    private void writeFile() {
+
+        if (filename == null) {
+            return;
+        }
+        write(csvBuilder.toString());
+        csvBuilder.clear();
+    }
+
+    private void writeFileHeader() {
+
+        if (filename == null) {
+            return;
+        }
+
+        csvBuilder.comment() //
+                .append("date") //
+                .append("task-name") //
+                .append("sql-label") //
+                .append("interval") //
+                .append("count") //
+                .append("throughput") //
+                .append("errors") //
+                .append("p50") //
+                .append("p95") //
+                .append("p99") //
+                .append("max") //
+                .eol();
+        writeFile();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.util.concurrent.TimeUnit;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+
+/**
+ * The metrics of a SQL label (or a whole task) during a reporting interval.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class IntervalSummary {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long count;
+    private final long errors;
+    private final long elapsedNanos;
+    private final HistogramSnapshot snapshot;
+
+    IntervalSummary(final long count, final long errors, final long elapsedNanos, final HistogramSnapshot snapshot) {
+        this.count = count;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @return the number of finished executions, successful or not
+     */
+    long getCount() {
+        return count;
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the latencies of the successful executions
+     */
+    HistogramSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the executions per second
+     */
+    double getThroughput() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return count * NANOS_PER_SECOND / elapsedNanos;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the live metrics of the running tasks through the platform MBean server. Each task is registered as
+ * <code>com.dattack.dbtools.ping:type=Task,name=&lt;task&gt;</code> and each of its SQL labels as
+ * <code>com.dattack.dbtools.ping:type=Label,task=&lt;task&gt;,name=&lt;label&gt;</code>. The labels are discovered
+ * while the tasks run, so they are registered on every periodic execution of this exporter, which also samples the
+ * current throughput of the tasks.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class JmxExporter implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JmxExporter.class);
+
+    private static final String DOMAIN = "com.dattack.dbtools.ping";
+
+    private final MBeanServer mbeanServer;
+    private final List<TaskMetrics> taskMetricsList;
+    private final Set<ObjectName> registeredNames;
+
+    private static ObjectName createLabelName(final TaskMetrics taskMetrics, final String label) throws JMException {
+        return new ObjectName(String.format("%s:type=Label,task=%s,name=%s", DOMAIN,
+                ObjectName.quote(taskMetrics.getTaskName()), ObjectName.quote(label)));
+    }
+
+    private static ObjectName createTaskName(final TaskMetrics taskMetrics) throws JMException {
+        return new ObjectName(
+                String.format("%s:type=Task,name=%s", DOMAIN, ObjectName.quote(taskMetrics.getTaskName())));
+    }
+
+    JmxExporter() {
+        this.mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        this.taskMetricsList = new CopyOnWriteArrayList<>();
+        this.registeredNames = Collections.newSetFromMap(new ConcurrentHashMap<ObjectName, Boolean>());
+    }
+
+    /**
+     * Registers the metrics of a task and the labels known so far.
+     *
+     * @param taskMetrics
+     *            the metrics of the task
+     */
+    void register(final TaskMetrics taskMetrics) {
+
+        taskMetricsList.add(taskMetrics);
+        try {
+            register(createTaskName(taskMetrics), taskMetrics);
+            registerLabels(taskMetrics);
+        } catch (final JMException e) {
+            LOGGER.warn("Unable to register the MBean of task '{}': {}", taskMetrics.getTaskName(), e.getMessage());
+        }
+    }
+
+    private void register(final ObjectName objectName, final Object mbean) throws JMException {
+
+        if (registeredNames.contains(objectName)) {
+            return;
+        }
+
+        if (mbeanServer.isRegistered(objectName)) {
+            // a previous task with the same name
+            mbeanServer.unregisterMBean(objectName);
+        }
+        mbeanServer.registerMBean(mbean, objectName);
+        registeredNames.add(objectName);
+    }
+
+    private void registerLabels(final TaskMetrics taskMetrics) throws JMException {
+        for (final Map.Entry<String, LabelMetrics> entry : taskMetrics.getLabelMetricsMap().entrySet()) {
+            register(createLabelName(taskMetrics, entry.getKey()), entry.getValue());
+        }
+    }
+
+    @Override
+    public void run() {
+
+        final long now = System.nanoTime();
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            taskMetrics.sample(now);
+            try {
+                registerLabels(taskMetrics);
+            } catch (final JMException e) {
+                LOGGER.warn("Unable to register the MBeans of task '{}': {}", taskMetrics.getTaskName(),
+                        e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Removes all the MBeans registered by this exporter.
+     */
+    void unregisterAll() {
+
+        for (final ObjectName objectName : registeredNames) {
+            try {
+                mbeanServer.unregisterMBean(objectName);
+            } catch (final JMException e) {
+                LOGGER.debug("Unable to unregister the MBean '{}': {}", objectName, e.getMessage());
+            }
+        }
+        registeredNames.clear();
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dattack.dbtools.ping.log.CSVJvmSeriesWriter;
+import com.dattack.dbtools.ping.log.JvmSample;
+
+/**
+ * Samples the overhead of the client JVM through the platform MXBeans, so that a latency spike caused by the client
+ * can be told apart from one caused by the database. A dedicated thread sleeps for a short time in a loop: any delay
+ * in waking up beyond the requested time is a stall of the process, either a safepoint (like a GC pause) or a lack of
+ * CPU. The collectors also notify each collection, so the longest GC pause of an interval is known as well, when the
+ * JVM supports these notifications. The samples are written next to the log of every task.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class JvmSampler implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JvmSampler.class);
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final String GC_NOTIFICATION_INFO_CLASS = "com.sun.management.GarbageCollectionNotificationInfo";
+
+    /** The action of the cycles of a concurrent collector, that don't stop the application threads. */
+    private static final String CONCURRENT_GC_ACTION = "end of concurrent GC";
+
+    private final long periodNanos;
+    private final List<CSVJvmSeriesWriter> writerList;
+    private final Set<String> filenameSet;
+    private final List<GarbageCollectorMXBean> collectorList;
+    private final MemoryMXBean memoryBean;
+    private final OperatingSystemMXBean osBean;
+    private final ThreadMXBean threadBean;
+    private final int processors;
+    private final AtomicLong maxGcPause;
+    private GcListener gcListener;
+    private Thread thread;
+
+    // state of the previous sample, only used by the sampling thread
+    private long lastNanos;
+    private long lastGcCount;
+    private long lastGcTime;
+    private long lastCpuTime;
+    private Map<Long, Long> lastAllocatedMap;
+    private long maxStall;
+
+    /**
+     * Keeps the longest collection notified since the previous sample.
+     */
+    private final class GcListener implements NotificationListener {
+
+        @Override
+        public void handleNotification(final Notification notification, final Object handback) {
+
+            if (!com.sun.management.GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                    .equals(notification.getType())) {
+                return;
+            }
+
+            final com.sun.management.GarbageCollectionNotificationInfo info = //
+                    com.sun.management.GarbageCollectionNotificationInfo
+                            .from((CompositeData) notification.getUserData());
+            if (CONCURRENT_GC_ACTION.equals(info.getGcAction())) {
+                return;
+            }
+
+            final long pause = TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration());
+            long current = maxGcPause.get();
+            while (pause > current && !maxGcPause.compareAndSet(current, pause)) {
+                current = maxGcPause.get();
+            }
+        }
+    }
+
+    /**
+     * Creates a sampler.
+     *
+     * @param periodMillis
+     *            the length of each sample (milliseconds)
+     */
+    JvmSampler(final long periodMillis) {
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.writerList = new CopyOnWriteArrayList<>();
+        this.filenameSet = new HashSet<>();
+        this.collectorList = ManagementFactory.getGarbageCollectorMXBeans();
+        this.memoryBean = ManagementFactory.getMemoryMXBean();
+        this.osBean = ManagementFactory.getOperatingSystemMXBean();
+        this.threadBean = ManagementFactory.getThreadMXBean();
+        this.processors = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.maxGcPause = new AtomicLong();
+    }
+
+    /**
+     * @return <code>true</code> if the JVM notifies each collection
+     */
+    private static boolean isGcNotificationSupported() {
+
+        try {
+            Class.forName(GC_NOTIFICATION_INFO_CLASS);
+            return true;
+        } catch (final ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the bytes allocated by all the threads since the previous sample or -1 if the JVM doesn't support it
+     */
+    private long computeAllocatedBytes() {
+
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+
+        final long[] ids = bean.getAllThreadIds();
+        final long[] allocated = bean.getThreadAllocatedBytes(ids);
+        final Map<Long, Long> allocatedMap = new HashMap<>();
+
+        long total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (allocated[i] < 0) {
+                // the thread has finished
+                continue;
+            }
+            allocatedMap.put(ids[i], allocated[i]);
+            if (lastAllocatedMap != null) {
+                // the threads started after the previous sample allocated everything during this interval
+                final Long last = lastAllocatedMap.get(ids[i]);
+                total += allocated[i] - (last == null ? 0 : last);
+            }
+        }
+
+        final boolean baseline = lastAllocatedMap == null;
+        lastAllocatedMap = allocatedMap;
+        return baseline ? -1 : total;
+    }
+
+    /**
+     * @return the CPU time used by the process (nanoseconds) or -1 if the JVM doesn't support it
+     */
+    private long getCpuTime() {
+
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * Subscribes to the notifications of the collectors, if the JVM supports them.
+     */
+    private void registerGcListener() {
+
+        if (!isGcNotificationSupported()) {
+            LOGGER.info("The JVM doesn't notify the collections: the GC pauses will not be sampled");
+            return;
+        }
+
+        final GcListener listener = new GcListener();
+        boolean registered = false;
+        for (final GarbageCollectorMXBean collector : collectorList) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+                registered = true;
+            }
+        }
+        if (registered) {
+            gcListener = listener;
+        }
+    }
+
+    /**
+     * Writes the samples next to a log. Each log gets a single series, even if several tasks share it.
+     *
+     * @param logFilename
+     *            the name of the log of a task
+     */
+    synchronized void register(final String logFilename) {
+
+        final CSVJvmSeriesWriter writer = new CSVJvmSeriesWriter(logFilename);
+        if (filenameSet.add(writer.getFilename())) {
+            writer.writeHeader();
+            writerList.add(writer);
+        }
+    }
+
+    @Override
+    public void run() {
+
+        lastNanos = System.nanoTime();
+        sample(lastNanos);
+
+        while (!Thread.currentThread().isInterrupted()) {
+
+            final long before = System.nanoTime();
+            LockSupport.parkNanos(RESOLUTION_NANOS);
+            final long now = System.nanoTime();
+            maxStall = Math.max(maxStall, now - before - RESOLUTION_NANOS);
+
+            if (now - lastNanos >= periodNanos) {
+                write(sample(now));
+            }
+        }
+
+        // the last, possibly partial, interval
+        write(sample(System.nanoTime()));
+    }
+
+    /**
+     * Computes the overhead since the previous sample.
+     */
+    private JvmSample sample(final long nowNanos) {
+
+        long gcCount = 0;
+        long gcTime = 0;
+        for (final GarbageCollectorMXBean collector : collectorList) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcTime += Math.max(0, collector.getCollectionTime());
+        }
+
+        final long cpuTime = getCpuTime();
+        final long allocatedBytes = computeAllocatedBytes();
+        final long elapsedNanos = Math.max(1, nowNanos - lastNanos);
+
+        final JvmSample sample = new JvmSample(System.currentTimeMillis(), //
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), //
+                gcCount - lastGcCount, //
+                TimeUnit.MILLISECONDS.toNanos(gcTime - lastGcTime), //
+                gcListener == null ? -1 : maxGcPause.getAndSet(0), //
+                maxStall, //
+                cpuTime < 0 || lastCpuTime < 0 ? -1 : (cpuTime - lastCpuTime) * 100.0 / elapsedNanos / processors, //
+                allocatedBytes < 0 ? -1 : allocatedBytes * NANOS_PER_SECOND / elapsedNanos, //
+                memoryBean.getHeapMemoryUsage().getUsed());
+
+        lastNanos = nowNanos;
+        lastGcCount = gcCount;
+        lastGcTime = gcTime;
+        lastCpuTime = cpuTime;
+        maxStall = 0;
+        return sample;
+    }
+
+    /**
+     * Starts the sampling thread.
+     */
+    synchronized void start() {
+
+        if (thread == null) {
+            registerGcListener();
+            thread = new Thread(this, "dbping-jvm");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the sampling thread, once the last sample has been written.
+     */
+    synchronized void stop() {
+
+        if (thread == null) {
+            return;
+        }
+
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while writing the last JVM sample");
+        }
+        thread = null;
+        unregisterGcListener();
+    }
+
+    private void unregisterGcListener() {
+
+        if (gcListener == null) {
+            return;
+        }
+
+        for (final GarbageCollectorMXBean collector : collectorList) {
+            if (collector instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) collector).removeNotificationListener(gcListener);
+                } catch (final ListenerNotFoundException e) {
+                    LOGGER.debug(e.getMessage());
+                }
+            }
+        }
+        gcListener = null;
+    }
+
+    private void write(final JvmSample sample) {
+        for (final CSVJvmSeriesWriter writer : writerList) {
+            writer.write(sample);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.util.concurrent.TimeUnit;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+import com.dattack.dbtools.metrics.IntervalRecorder;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.dbtools.metrics.StripedCounter;
+import com.dattack.dbtools.metrics.ThroughputMeter;
+
+/**
+ * The metrics of a SQL label of a task. The workers update them without locking; the readers (the final summary and
+ * the JMX clients) compute the derived values on demand. The latencies exposed through JMX come from a histogram
+ * snapshot taken once per sample, so that reading all the attributes doesn't copy the histogram for each one. The
+ * interval values are read by a single reporting thread.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class LabelMetrics implements LabelMetricsMXBean {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final LatencyHistogram histogram;
+    private final StripedCounter operations;
+    private final StripedCounter errors;
+    private final StripedCounter rows;
+    private final StripedCounter queryTime;
+    private final ThroughputMeter throughputMeter;
+    private final IntervalRecorder intervalRecorder;
+    private final StripedCounter phasedOperations;
+    private final StripedCounter executeTime;
+    private final StripedCounter fetchTime;
+    private final StripedCounter closeTime;
+    private final StripedCounter fetchRoundTrips;
+    private volatile LatencyHistogram rowGapHistogram;
+
+    // the snapshot of the latencies served to the JMX clients, refreshed by each sample
+    private volatile HistogramSnapshot latencySnapshot;
+
+    // values at the start of the current interval, only used by the reporting thread
+    private long intervalOperations;
+    private long intervalErrors;
+    private long intervalStartNanos;
+
+    LabelMetrics() {
+        this.histogram = new LatencyHistogram();
+        this.operations = new StripedCounter();
+        this.errors = new StripedCounter();
+        this.rows = new StripedCounter();
+        this.queryTime = new StripedCounter();
+        this.throughputMeter = new ThroughputMeter(System.nanoTime());
+        this.intervalRecorder = new IntervalRecorder();
+        this.phasedOperations = new StripedCounter();
+        this.executeTime = new StripedCounter();
+        this.fetchTime = new StripedCounter();
+        this.closeTime = new StripedCounter();
+        this.fetchRoundTrips = new StripedCounter();
+        this.intervalStartNanos = System.nanoTime();
+        this.latencySnapshot = histogram.snapshot();
+    }
+
+    /**
+     * @return the total time spent closing the result sets and statements of the successful executions (nanoseconds)
+     */
+    long getCloseTime() {
+        return closeTime.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return the total time spent in <code>Statement.execute</code> by the successful executions (nanoseconds)
+     */
+    long getExecuteTime() {
+        return executeTime.sum();
+    }
+
+    /**
+     * @return the number of fetch round trips of the successful executions
+     */
+    long getFetchRoundTrips() {
+        return fetchRoundTrips.sum();
+    }
+
+    /**
+     * @return the total time spent reading the rows of the successful executions (nanoseconds)
+     */
+    long getFetchTime() {
+        return fetchTime.sum();
+    }
+
+    /**
+     * @return the snapshot of the latencies taken by the last sample
+     */
+    HistogramSnapshot getLatencySnapshot() {
+        return latencySnapshot;
+    }
+
+    @Override
+    public double getMaxLatency() {
+        return latencySnapshot.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanLatency() {
+        return latencySnapshot.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long getOperations() {
+        return operations.sum();
+    }
+
+    @Override
+    public double getP50Latency() {
+        return getPercentile(50);
+    }
+
+    @Override
+    public double getP90Latency() {
+        return getPercentile(90);
+    }
+
+    @Override
+    public double getP999Latency() {
+        return getPercentile(99.9);
+    }
+
+    @Override
+    public double getP99Latency() {
+        return getPercentile(99);
+    }
+
+    @Override
+    public double getPeakThroughput() {
+        return throughputMeter.getPeak();
+    }
+
+    private double getPercentile(final double percentile) {
+        return latencySnapshot.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return the number of successful executions whose phases were measured
+     */
+    long getPhasedOperations() {
+        return phasedOperations.sum();
+    }
+
+    /**
+     * Returns the histogram of the time spent in each call to <code>ResultSet.next()</code>, created on first use.
+     *
+     * @return the histogram (nanoseconds)
+     */
+    LatencyHistogram getRowGapHistogram() {
+
+        LatencyHistogram result = rowGapHistogram;
+        if (result == null) {
+            synchronized (this) {
+                result = rowGapHistogram;
+                if (result == null) {
+                    result = new LatencyHistogram();
+                    rowGapHistogram = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a copy of the row gap histogram or <code>null</code> if no gap has been recorded
+     */
+    HistogramSnapshot getRowGapSnapshot() {
+
+        final LatencyHistogram result = rowGapHistogram;
+        if (result == null) {
+            return null;
+        }
+        return result.snapshot();
+    }
+
+    /**
+     * @return the rows fetched or affected by the successful executions
+     */
+    long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        final long nanos = queryTime.sum();
+        if (nanos <= 0) {
+            return 0;
+        }
+        return rows.sum() * NANOS_PER_SECOND / nanos;
+    }
+
+    @Override
+    public double getThroughput() {
+        return throughputMeter.getCurrent();
+    }
+
+    /**
+     * Closes the current interval and starts a new one.
+     *
+     * @param nowNanos
+     *            the current time, as returned by {@link System#nanoTime()}
+     * @return the metrics of the closed interval
+     */
+    IntervalSummary nextInterval(final long nowNanos) {
+
+        final long currentOperations = operations.sum();
+        final long currentErrors = errors.sum();
+        final IntervalSummary summary = new IntervalSummary(currentOperations - intervalOperations,
+                currentErrors - intervalErrors, nowNanos - intervalStartNanos, intervalRecorder.nextInterval());
+
+        intervalOperations = currentOperations;
+        intervalErrors = currentErrors;
+        intervalStartNanos = nowNanos;
+        return summary;
+    }
+
+    /**
+     * Records a finished execution.
+     *
+     * @param logEntry
+     *            the execution
+     */
+    void record(final LogEntry logEntry) {
+
+        operations.increment();
+        final boolean failed = logEntry.getException() != null;
+        if (failed) {
+            errors.increment();
+            if (!logEntry.isTimedOut()) {
+                return;
+            }
+        }
+
+        // the latency of the timed-out executions is kept: it is the tail that the timeout would otherwise hide
+        if (logEntry.getTotalTime() >= 0) {
+            histogram.record(logEntry.getTotalTime());
+            intervalRecorder.record(logEntry.getTotalTime());
+        }
+        if (!failed && logEntry.getExecuteTime() >= 0) {
+            phasedOperations.increment();
+            executeTime.add(logEntry.getExecuteTime());
+            fetchTime.add(Math.max(0, logEntry.getFetchTime()));
+            closeTime.add(Math.max(0, logEntry.getCloseTime()));
+            fetchRoundTrips.add(Math.max(0, logEntry.getFetchRoundTrips()));
+        }
+        if (!failed && logEntry.getQueryTime() > 0) {
+            rows.add(logEntry.getRows());
+            queryTime.add(logEntry.getQueryTime());
+        }
+    }
+
+    void sample(final long nowNanos) {
+        throughputMeter.sample(operations.sum(), nowNanos);
+        latencySnapshot = histogram.snapshot();
+    }
+
+    HistogramSnapshot snapshot() {
+        return histogram.snapshot();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+/**
+ * Live metrics of a SQL label of a running task, published through JMX. Latencies are expressed in milliseconds.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public interface LabelMetricsMXBean {
+
+    /**
+     * @return the number of failed executions
+     */
+    long getErrors();
+
+    /**
+     * @return the maximum latency of the successful executions
+     */
+    double getMaxLatency();
+
+    /**
+     * @return the mean latency of the successful executions
+     */
+    double getMeanLatency();
+
+    /**
+     * @return the number of finished executions, successful or not
+     */
+    long getOperations();
+
+    /**
+     * @return the median latency of the successful executions
+     */
+    double getP50Latency();
+
+    /**
+     * @return the 90th percentile of the latency of the successful executions
+     */
+    double getP90Latency();
+
+    /**
+     * @return the 99th percentile of the latency of the successful executions
+     */
+    double getP99Latency();
+
+    /**
+     * @return the 99.9th percentile of the latency of the successful executions
+     */
+    double getP999Latency();
+
+    /**
+     * @return the highest throughput of any sampling interval (executions per second)
+     */
+    double getPeakThroughput();
+
+    /**
+     * @return the rows fetched or affected per second of query time
+     */
+    double getRowsPerSecond();
+
+    /**
+     * @return the throughput of the last sampling interval (executions per second)
+     */
+    double getThroughput();
+}
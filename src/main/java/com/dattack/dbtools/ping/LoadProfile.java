@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+import com.dattack.dbtools.ping.beans.LoadStageBean;
+import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.log.LogWriter;
+import com.dattack.dbtools.ping.log.StageHeader;
+import com.dattack.jtoolbox.util.TimeUtils;
+
+/**
+ * The fixed timeline of the stages of a load profile. The workers whose index is beyond the concurrency of the current
+ * stage stay idle until the next one. The first worker that sees a new stage writes its boundary to the log.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class LoadProfile extends StageTimeline {
+
+    private final String[] names;
+    private final int[] threads;
+    private final double[] targetRates;
+    private final long[] durations;
+    private final long[] startNanos;
+    private final long endNanos;
+    private final LogWriter logWriter;
+    private final AtomicInteger lastLoggedStage;
+
+    /**
+     * Creates the timeline of a task.
+     *
+     * @param pingTaskBean
+     *            the task definition, with a load profile
+     * @param originNanos
+     *            the start of the first stage, as returned by {@link System#nanoTime()}
+     * @param logWriter
+     *            the log of the task
+     * @throws DbpingParserException
+     *             if a stage has an invalid duration
+     */
+    LoadProfile(final PingTaskBean pingTaskBean, final long originNanos, final LogWriter logWriter)
+            throws DbpingParserException {
+
+        final List<LoadStageBean> stageList = pingTaskBean.getLoadProfile().getStageList();
+        if (stageList.isEmpty()) {
+            throw new DbpingParserException(
+                    String.format("The load profile of the task '%s' has no stages", pingTaskBean.getName()));
+        }
+
+        this.names = new String[stageList.size()];
+        this.threads = new int[stageList.size()];
+        this.targetRates = new double[stageList.size()];
+        this.durations = new long[stageList.size()];
+        this.startNanos = new long[stageList.size()];
+
+        long offset = originNanos;
+        for (int i = 0; i < stageList.size(); i++) {
+            final LoadStageBean stage = stageList.get(i);
+            names[i] = StringUtils.isBlank(stage.getName()) ? "stage-" + (i + 1) : stage.getName().trim();
+            threads[i] = stage.getThreads() > 0 ? stage.getThreads() : pingTaskBean.getThreads();
+            targetRates[i] = stage.getTargetRate();
+            durations[i] = parseDuration(pingTaskBean, stage);
+            startNanos[i] = offset;
+            offset += TimeUnit.MILLISECONDS.toNanos(durations[i]);
+        }
+        this.endNanos = offset;
+        this.logWriter = logWriter;
+        this.lastLoggedStage = new AtomicInteger(-1);
+    }
+
+    private static long parseDuration(final PingTaskBean pingTaskBean, final LoadStageBean stage)
+            throws DbpingParserException {
+
+        Long duration = null;
+        try {
+            duration = TimeUtils.parseTimeSpanMillis(stage.getDuration());
+        } catch (final IllegalArgumentException e) {
+            // handled below
+        }
+
+        if (duration == null || duration <= 0) {
+            throw new DbpingParserException(String.format("Invalid stage duration '%s' (task: '%s')",
+                    stage.getDuration(), pingTaskBean.getName()));
+        }
+        return duration;
+    }
+
+    @Override
+    int awaitStage(final int workerIndex) {
+
+        while (!Thread.currentThread().isInterrupted()) {
+            final long now = System.nanoTime();
+            if (now >= endNanos) {
+                return -1;
+            }
+
+            final int stage = getStageAt(now);
+            logStages(stage);
+            if (workerIndex < threads[stage]) {
+                return stage;
+            }
+
+            // idle until the next stage
+            LockSupport.parkNanos(getEndNanos(stage) - now);
+        }
+        return -1;
+    }
+
+    @Override
+    long getEndNanos(final int stage) {
+        if (stage + 1 < startNanos.length) {
+            return startNanos[stage + 1];
+        }
+        return endNanos;
+    }
+
+    @Override
+    String getName(final int stage) {
+        return names[stage];
+    }
+
+    private int getStageAt(final long nanos) {
+
+        int stage = 0;
+        while (stage + 1 < startNanos.length && startNanos[stage + 1] <= nanos) {
+            stage++;
+        }
+        return stage;
+    }
+
+    @Override
+    long getStartNanos(final int stage) {
+        return startNanos[stage];
+    }
+
+    @Override
+    double getTargetRate(final int stage) {
+        return targetRates[stage];
+    }
+
+    @Override
+    int getThreads(final int stage) {
+        return threads[stage];
+    }
+
+    /**
+     * Writes the boundaries of the stages up to the given one, once.
+     */
+    private void logStages(final int stage) {
+
+        int last = lastLoggedStage.get();
+        while (last < stage) {
+            if (lastLoggedStage.compareAndSet(last, last + 1)) {
+                final int next = last + 1;
+                final long eventTime = System.currentTimeMillis()
+                        - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos[next]);
+                logWriter.write(new StageHeader(names[next], threads[next], targetRates[next], durations[next],
+                        eventTime));
+            }
+            last = lastLoggedStage.get();
+        }
+    }
+}
@@ -20,10 +20,14 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.dattack.dbtools.Builder;
 
 /**
+ * The result of a single execution. All the durations are expressed in nanoseconds and measured with the monotonic
+ * {@link System#nanoTime()} clock; the event time is a wall-clock timestamp in milliseconds.
+ *
  * @author cvarela
  * @since 0.1
  */
@@ -31,17 +35,31 @@ public class LogEntry implements Serializable {
 
     private static final long serialVersionUID = 9149270318492709877L;
 
-    private final long connectionTime;
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
 
+    private final long queueTime;
+    private final long connectionTime;
+    private final long cancelTime;
+    private final boolean timedOut;
+    private final long executeTime;
+    private final long fetchTime;
+    private final long closeTime;
+    private final long fetchRoundTrips;
+
+    private final String checksum;
+    private final boolean checksumMismatch;
     private final Exception exception;
     private final long executionTime;
     private final long firstRowTime;
     private final long iteration;
     private final long rows;
     private final String sqlLabel;
+    private final String stage;
+    private final boolean warmUp;
     private final long startTime;
     private final String taskName;
     private final String threadName;
+    private final String datasource;
     private final List<DataRow> rowList;
 
     public static final class LogEntryBuilder implements Serializable, Builder<LogEntry> {
@@ -50,16 +68,31 @@ public class LogEntry implements Serializable {
 
         private static final long UNKNOWN = -1;
 
+        private long queueTime;
+        private long connectStartNanos;
         private long connectionTime;
+        private long cancelTime;
+        private boolean timedOut;
+        private long executeTime;
+        private long fetchTime;
+        private long closeTime;
+        private long fetchRoundTrips;
+        private String checksum;
+        private boolean checksumMismatch;
         private Exception exception;
         private long totalTime;
         private long firstRowTime;
         private long iteration;
         private long rows;
+        private long columnCount;
         private String sqlLabel;
+        private String stage;
+        private boolean warmUp;
         private long eventTime;
+        private long startNanos;
         private String taskName;
         private String threadName;
+        private String datasource;
         private final long maxRowsToDump;
 
         private List<DataRow> rowList;
@@ -74,23 +107,36 @@ public class LogEntry implements Serializable {
         }
 
         /**
-         * Adds a new {@link DataRow} from a ResultSet.
+         * Adds the current row of a ResultSet. The first rows are kept to be dumped to the log; the columns of the
+         * other rows are only read if they must be materialized.
          *
          * @param resultSet
          *            the ResultSet that contains the data
+         * @param materialize
+         *            <code>true</code> if all the columns must be read
          * @throws SQLException
          *             if an database error occurs
          */
-        public void addRow(final ResultSet resultSet) throws SQLException {
+        public void addRow(final ResultSet resultSet, final boolean materialize) throws SQLException {
 
             incrRows();
-            if (maxRowsToDump > rows) {
-                final int columnCount = resultSet.getMetaData().getColumnCount();
-                final DataRow dataRow = new DataRow(columnCount);
+            final boolean dump = maxRowsToDump > rows;
+            if (dump || materialize) {
+                if (columnCount == UNKNOWN) {
+                    // the metadata is retrieved once for each result set
+                    columnCount = resultSet.getMetaData().getColumnCount();
+                }
+
+                final DataRow dataRow = dump ? new DataRow((int) columnCount) : null;
                 for (int i = 1; i <= columnCount; i++) {
-                    dataRow.add(resultSet.getObject(i));
+                    final Object value = resultSet.getObject(i);
+                    if (dump) {
+                        dataRow.add(value);
+                    }
+                }
+                if (dump) {
+                    this.rowList.add(dataRow);
                 }
-                this.rowList.add(dataRow);
             }
         }
 
@@ -111,14 +157,22 @@ public class LogEntry implements Serializable {
         }
 
         private long computeRelativeTime() {
-            return System.currentTimeMillis() - eventTime;
+            return System.nanoTime() - startNanos;
         }
 
         /**
-         * Sets the connection time.
+         * Sets the connection time, measured from the call to {@link #startConnect()}.
          */
         public synchronized void connect() {
-            this.connectionTime = computeRelativeTime();
+            this.connectionTime = System.nanoTime() - connectStartNanos;
+        }
+
+        /**
+         * Marks the request of a connection. Any delay before it, like the wait for the intended start of an
+         * open-loop execution, is not part of the connection time.
+         */
+        public synchronized void startConnect() {
+            this.connectStartNanos = System.nanoTime();
         }
 
         /**
@@ -138,11 +192,23 @@ public class LogEntry implements Serializable {
          */
         public LogEntryBuilder init() {
             this.eventTime = System.currentTimeMillis();
+            this.startNanos = System.nanoTime();
+            this.connectStartNanos = startNanos;
+            this.queueTime = UNKNOWN;
             this.connectionTime = UNKNOWN;
+            this.cancelTime = UNKNOWN;
+            this.timedOut = false;
+            this.executeTime = UNKNOWN;
+            this.fetchTime = UNKNOWN;
+            this.closeTime = UNKNOWN;
+            this.fetchRoundTrips = UNKNOWN;
+            this.checksum = null;
+            this.checksumMismatch = false;
             this.exception = null;
             this.firstRowTime = UNKNOWN;
             this.iteration = UNKNOWN;
             this.rows = 0;
+            this.columnCount = UNKNOWN;
             this.sqlLabel = null;
             this.totalTime = UNKNOWN;
             if (this.rowList == null) {
@@ -153,21 +219,174 @@ public class LogEntry implements Serializable {
             return this;
         }
 
+        /**
+         * @return the label of the current execution
+         */
+        public String getSqlLabel() {
+            return sqlLabel;
+        }
+
+        /**
+         * @return the queue time of the current execution (nanoseconds) or -1 if unknown
+         */
+        public long getQueueTime() {
+            return queueTime;
+        }
+
+        /**
+         * @return the start of the measured interval, as returned by {@link System#nanoTime()}
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        /**
+         * Sets the time elapsed since the cancel request of a timed-out execution until the worker got the control
+         * back.
+         *
+         * @param value
+         *            the cancel latency (nanoseconds)
+         * @return self object
+         */
+        public LogEntryBuilder withCancelTime(final long value) {
+            this.cancelTime = value;
+            return this;
+        }
+
+        /**
+         * Sets the time spent closing the result set and the statement.
+         *
+         * @param value
+         *            the close time (nanoseconds)
+         * @return self object
+         */
+        public LogEntryBuilder withCloseTime(final long value) {
+            this.closeTime = value;
+            return this;
+        }
+
+        /**
+         * Sets the checksum of the rows returned by the execution.
+         *
+         * @param value
+         *            the checksum, in hexadecimal
+         * @return self object
+         */
+        public LogEntryBuilder withChecksum(final String value) {
+            this.checksum = value;
+            return this;
+        }
+
+        /**
+         * Flags the executions whose checksum doesn't match the expected one.
+         *
+         * @param value
+         *            <code>true</code> if the checksum doesn't match
+         * @return self object
+         */
+        public LogEntryBuilder withChecksumMismatch(final boolean value) {
+            this.checksumMismatch = value;
+            return this;
+        }
+
         public LogEntryBuilder withConnectionTime(final long value) {
             this.connectionTime = value;
             return this;
         }
 
+        public LogEntryBuilder withDatasource(final String value) {
+            this.datasource = value;
+            return this;
+        }
+
         public LogEntryBuilder withEventTime(final long value) {
             this.eventTime = value;
             return this;
         }
 
+        /**
+         * Sets the intended start time of an open-loop or replayed execution. The measured interval starts at that
+         * instant, and the delay until now is kept as the queue time.
+         *
+         * @param value
+         *            the intended start time, as returned by {@link System#nanoTime()}
+         * @return self object
+         */
+        public LogEntryBuilder withIntendedStart(final long value) {
+            final long now = System.nanoTime();
+            withStartNanos(value);
+            this.queueTime = Math.max(0, now - value);
+            return this;
+        }
+
+        /**
+         * Sets the time elapsed since the intended start of an execution until it was started.
+         *
+         * @param value
+         *            the queue time (nanoseconds)
+         * @return self object
+         */
+        public LogEntryBuilder withQueueTime(final long value) {
+            this.queueTime = value;
+            return this;
+        }
+
+        /**
+         * Moves the start of the measured interval to an earlier instant, like the start of a transactional script.
+         * The event time is adjusted accordingly.
+         *
+         * @param value
+         *            the start time, as returned by {@link System#nanoTime()}
+         * @return self object
+         */
+        public LogEntryBuilder withStartNanos(final long value) {
+            this.eventTime -= TimeUnit.NANOSECONDS.toMillis(this.startNanos - value);
+            this.startNanos = value;
+            return this;
+        }
+
         public LogEntryBuilder withException(final Exception value) {
             this.exception = value;
             return this;
         }
 
+        /**
+         * Sets the time spent in <code>Statement.execute</code>, until the server answered.
+         *
+         * @param value
+         *            the execute time (nanoseconds)
+         * @return self object
+         */
+        public LogEntryBuilder withExecuteTime(final long value) {
+            this.executeTime = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of calls to <code>ResultSet.next()</code> slow enough to be a round trip to the server.
+         *
+         * @param value
+         *            the number of round trips
+         * @return self object
+         */
+        public LogEntryBuilder withFetchRoundTrips(final long value) {
+            this.fetchRoundTrips = value;
+            return this;
+        }
+
+        /**
+         * Sets the time spent reading the rows, from the end of <code>Statement.execute</code> to the last call to
+         * <code>ResultSet.next()</code>.
+         *
+         * @param value
+         *            the fetch time (nanoseconds)
+         * @return self object
+         */
+        public LogEntryBuilder withFetchTime(final long value) {
+            this.fetchTime = value;
+            return this;
+        }
+
         public LogEntryBuilder withFirstRowTime(final long value) {
             this.firstRowTime = value;
             return this;
@@ -188,6 +407,19 @@ public class LogEntry implements Serializable {
             return this;
         }
 
+        /**
+         * Sets the stage of the load profile. Unlike the other execution values, the stage is kept by
+         * {@link #init()}.
+         *
+         * @param value
+         *            the name of the stage
+         * @return self object
+         */
+        public LogEntryBuilder withStage(final String value) {
+            this.stage = value;
+            return this;
+        }
+
         public LogEntryBuilder withTaskName(final String value) {
             this.taskName = value;
             return this;
@@ -198,30 +430,97 @@ public class LogEntry implements Serializable {
             return this;
         }
 
+        /**
+         * Flags the executions cancelled because of their timeout.
+         *
+         * @param value
+         *            <code>true</code> if the execution timed out
+         * @return self object
+         */
+        public LogEntryBuilder withTimedOut(final boolean value) {
+            this.timedOut = value;
+            return this;
+        }
+
         public LogEntryBuilder withTotalTime(final long value) {
             this.totalTime = value;
             return this;
         }
+
+        /**
+         * Flags the executions as warm-up. Like the stage, this value is kept by {@link #init()}.
+         *
+         * @param value
+         *            <code>true</code> during the warm-up
+         * @return self object
+         */
+        public LogEntryBuilder withWarmUp(final boolean value) {
+            this.warmUp = value;
+            return this;
+        }
     }
 
     private LogEntry(final LogEntryBuilder builder) {
         this.taskName = builder.taskName;
         this.threadName = builder.threadName;
+        this.datasource = builder.datasource;
         this.iteration = builder.iteration;
         this.sqlLabel = builder.sqlLabel;
+        this.stage = builder.stage;
+        this.warmUp = builder.warmUp;
         this.rows = builder.rows;
         this.startTime = builder.eventTime;
+        this.queueTime = builder.queueTime;
         this.connectionTime = builder.connectionTime;
+        this.cancelTime = builder.cancelTime;
+        this.timedOut = builder.timedOut;
+        this.executeTime = builder.executeTime;
+        this.fetchTime = builder.fetchTime;
+        this.closeTime = builder.closeTime;
+        this.fetchRoundTrips = builder.fetchRoundTrips;
+        this.checksum = builder.checksum;
+        this.checksumMismatch = builder.checksumMismatch;
         this.firstRowTime = builder.firstRowTime;
         this.executionTime = builder.totalTime;
         this.exception = builder.exception;
         this.rowList = new ArrayList<DataRow>(builder.rowList);
     }
 
+    /**
+     * @return the cancel latency of a timed-out execution (nanoseconds) or -1 if it didn't time out
+     */
+    public long getCancelTime() {
+        return cancelTime;
+    }
+
+    /**
+     * @return the checksum of the rows, in hexadecimal, or <code>null</code> if it wasn't computed
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return the time spent closing the result set and the statement (nanoseconds) or -1 if unknown
+     */
+    public long getCloseTime() {
+        return closeTime;
+    }
+
+    /**
+     * @return the time spent acquiring the connection (nanoseconds)
+     */
     public long getConnectionTime() {
         return connectionTime;
     }
 
+    /**
+     * @return the JNDI name of the datasource
+     */
+    public String getDatasource() {
+        return datasource;
+    }
+
     public long getEventTime() {
         return startTime;
     }
@@ -230,6 +529,31 @@ public class LogEntry implements Serializable {
         return exception;
     }
 
+    /**
+     * @return the time spent in <code>Statement.execute</code> (nanoseconds) or -1 if unknown
+     */
+    public long getExecuteTime() {
+        return executeTime;
+    }
+
+    /**
+     * @return the number of calls to <code>ResultSet.next()</code> that made a round trip to the server or -1 if
+     *         unknown
+     */
+    public long getFetchRoundTrips() {
+        return fetchRoundTrips;
+    }
+
+    /**
+     * @return the time spent reading the rows after <code>Statement.execute</code> (nanoseconds) or -1 if unknown
+     */
+    public long getFetchTime() {
+        return fetchTime;
+    }
+
+    /**
+     * @return the first row time (nanoseconds)
+     */
     public long getFirstRowTime() {
         return firstRowTime;
     }
@@ -246,10 +570,51 @@ public class LogEntry implements Serializable {
         return rows;
     }
 
+    /**
+     * Returns the time spent executing the statement and retrieving its rows, excluding the queue time and the time
+     * needed to acquire the connection.
+     *
+     * @return the query time (nanoseconds) or -1 if unknown
+     */
+    public long getQueryTime() {
+        if (executionTime < 0 || connectionTime < 0) {
+            return -1;
+        }
+        return executionTime - Math.max(0, queueTime) - connectionTime;
+    }
+
+    /**
+     * @return the time elapsed since the intended start of an open-loop or replayed execution until it was started
+     *         (nanoseconds) or -1 if the execution had no intended start
+     */
+    public long getQueueTime() {
+        return queueTime;
+    }
+
+    /**
+     * Returns the throughput of the execution: the number of rows (fetched or affected) per second of query time.
+     *
+     * @return the rows per second or -1 if unknown
+     */
+    public double getRowsPerSecond() {
+        final long queryTime = getQueryTime();
+        if (queryTime <= 0) {
+            return -1;
+        }
+        return rows * NANOS_PER_SECOND / queryTime;
+    }
+
     public String getSqlLabel() {
         return sqlLabel;
     }
 
+    /**
+     * @return the stage of the load profile or <code>null</code> if the task doesn't define it
+     */
+    public String getStage() {
+        return stage;
+    }
+
     public String getTaskName() {
         return taskName;
     }
@@ -258,7 +623,31 @@ public class LogEntry implements Serializable {
         return threadName;
     }
 
+    /**
+     * @return the total time (nanoseconds)
+     */
     public long getTotalTime() {
         return executionTime;
     }
+
+    /**
+     * @return <code>true</code> if the checksum of the rows doesn't match the expected one
+     */
+    public boolean isChecksumMismatch() {
+        return checksumMismatch;
+    }
+
+    /**
+     * @return <code>true</code> if the execution was cancelled because of its timeout
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * @return <code>true</code> if the execution belongs to the warm-up phase
+     */
+    public boolean isWarmUp() {
+        return warmUp;
+    }
 }
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.beans.SqlCommandBean;
+import com.dattack.dbtools.ping.log.CSVFileLogReader;
+import com.dattack.dbtools.ping.log.LogReader;
+import com.dattack.jtoolbox.io.IOUtils;
+
+/**
+ * Replays the executions recorded in a log as an open-loop workload. Every execution recorded by the task against one
+ * datasource is issued again, with the command of the task that has the same label, at its original offset from the
+ * first one divided by the speed-up factor. A batch command logs each batch as an execution, so each one replays a
+ * single batch; the executions of a fetch size sweep replay the recorded fetch size. All the workers of the task take
+ * the executions from the same instance, in order, and the latency is measured from the intended start time, so a
+ * slower database doesn't reduce the replayed load.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class LogReplay {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** The suffix added to the label of the executions of a fetch size sweep. */
+    private static final Pattern FETCH_SIZE_LABEL = Pattern.compile("(.*)\\[fetch=(\\d{1,9})\\]");
+
+    private final File logFile;
+    private final String recordedDatasource;
+    private final List<Item> itemList;
+    private final Map<String, LatencyHistogram> recordedMap;
+    private final AtomicInteger nextItem;
+    private final long originNanos;
+    private final int recordedThreads;
+    private final long unmatched;
+
+    /**
+     * A recorded execution.
+     */
+    static final class Item {
+
+        private final long startNanos;
+        private final SqlCommandBean command;
+        private final int fetchSize;
+
+        Item(final long startNanos, final SqlCommandBean command, final int fetchSize) {
+            this.startNanos = startNanos;
+            this.command = command;
+            this.fetchSize = fetchSize;
+        }
+
+        SqlCommandBean getCommand() {
+            return command;
+        }
+
+        /**
+         * @return the fetch size recorded by an execution of a fetch size sweep or 0 if there is none
+         */
+        int getFetchSize() {
+            return fetchSize;
+        }
+
+        /**
+         * @return the intended start time, as returned by {@link System#nanoTime()}
+         */
+        long getStartNanos() {
+            return startNanos;
+        }
+    }
+
+    private static Map<String, SqlCommandBean> createCommandMap(final PingTaskBean pingTaskBean) {
+
+        final Map<String, SqlCommandBean> map = new HashMap<>();
+        for (final SqlCommandBean command : pingTaskBean.getSqlStatementList()) {
+            map.put(StringUtils.trimToEmpty(command.getLabel()), command);
+        }
+        return map;
+    }
+
+    private static SqlCommandBean findCommand(final Map<String, SqlCommandBean> commandMap, final String label) {
+
+        final SqlCommandBean command = commandMap.get(label);
+        if (command != null) {
+            return command;
+        }
+
+        final Matcher matcher = FETCH_SIZE_LABEL.matcher(label);
+        if (matcher.matches()) {
+            return commandMap.get(matcher.group(1));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the fetch size recorded in the label of an execution of a fetch size sweep, or 0 if there is none.
+     */
+    private static int parseFetchSize(final String label) {
+
+        final Matcher matcher = FETCH_SIZE_LABEL.matcher(label);
+        if (matcher.matches()) {
+            return Integer.parseInt(matcher.group(2));
+        }
+        return 0;
+    }
+
+    private static LatencyHistogram getHistogram(final Map<String, LatencyHistogram> map, final String label) {
+
+        LatencyHistogram histogram = map.get(label);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            map.put(label, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * Chooses the recorded datasource whose executions are replayed against a datasource: the requested one, the same
+     * one or the only one of the log.
+     */
+    private static String chooseDatasource(final Set<String> recordedSet, final String datasource,
+            final String requested, final PingTaskBean pingTaskBean) throws IOException {
+
+        if (requested != null) {
+            if (!recordedSet.contains(requested)) {
+                throw new IOException(String.format("The log has no execution of the task '%s' against '%s'",
+                        pingTaskBean.getName(), requested));
+            }
+            return requested;
+        }
+
+        if (recordedSet.contains(datasource)) {
+            return datasource;
+        }
+        if (recordedSet.size() > 1) {
+            throw new IOException(String.format("The log recorded the task '%s' against several datasources %s: "
+                    + "choose the one to replay", pingTaskBean.getName(), recordedSet));
+        }
+        return recordedSet.isEmpty() ? null : recordedSet.iterator().next();
+    }
+
+    private static List<LogEntry> readLog(final File logFile) throws IOException {
+
+        final List<LogEntry> entryList = new ArrayList<>();
+        LogReader reader = null;
+        try {
+            reader = new CSVFileLogReader(logFile);
+            LogEntry entry = reader.next();
+            while (entry != null) {
+                entryList.add(entry);
+                entry = reader.next();
+            }
+        } catch (final ParseException e) {
+            throw new IOException(e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        Collections.sort(entryList, new Comparator<LogEntry>() {
+
+            @Override
+            public int compare(final LogEntry o1, final LogEntry o2) {
+                return Long.compare(o1.getEventTime(), o2.getEventTime());
+            }
+        });
+        return entryList;
+    }
+
+    /**
+     * Loads the executions of a log.
+     *
+     * @param logFile
+     *            the log to replay
+     * @param pingTaskBean
+     *            the task whose commands are replayed; the executions of other tasks are ignored
+     * @param datasource
+     *            the datasource the executions are replayed against
+     * @param requestedDatasource
+     *            the recorded datasource to replay or <code>null</code> to replay the same datasource, or the only
+     *            one recorded by the task
+     * @param speed
+     *            the speed-up factor (2 replays the log in half the time)
+     * @throws IOException
+     *             if the log can't be read or the recorded datasource is ambiguous
+     */
+    LogReplay(final File logFile, final PingTaskBean pingTaskBean, final String datasource,
+            final String requestedDatasource, final double speed) throws IOException {
+
+        if (speed <= 0) {
+            throw new IllegalArgumentException("The speed-up factor must be greater than zero");
+        }
+
+        // each group of workers replays the executions of its task against one recorded datasource
+        final List<LogEntry> taskEntryList = new ArrayList<>();
+        final Set<String> recordedSet = new TreeSet<>();
+        for (final LogEntry entry : readLog(logFile)) {
+            if (pingTaskBean.getName().equals(StringUtils.trimToEmpty(entry.getTaskName()))) {
+                taskEntryList.add(entry);
+                if (entry.getDatasource() != null) {
+                    recordedSet.add(entry.getDatasource());
+                }
+            }
+        }
+
+        final String recorded = chooseDatasource(recordedSet, datasource, requestedDatasource, pingTaskBean);
+        final List<LogEntry> entryList = new ArrayList<>();
+        for (final LogEntry entry : taskEntryList) {
+            if (recorded == null || recorded.equals(entry.getDatasource())) {
+                entryList.add(entry);
+            }
+        }
+
+        final Map<String, SqlCommandBean> commandMap = createCommandMap(pingTaskBean);
+        final Set<String> threadSet = new HashSet<>();
+
+        // the replay starts once the log has been loaded
+        final long originNanos = System.nanoTime();
+
+        this.logFile = logFile;
+        this.recordedDatasource = recorded;
+        this.itemList = new ArrayList<>(entryList.size());
+        this.recordedMap = new TreeMap<>();
+
+        long unmatchedCount = 0;
+        final long firstEventTime = entryList.isEmpty() ? 0 : entryList.get(0).getEventTime();
+        for (final LogEntry entry : entryList) {
+
+            final String label = StringUtils.trimToEmpty(entry.getSqlLabel());
+            final SqlCommandBean command = findCommand(commandMap, label);
+            if (command == null) {
+                // statements of a script, commits and labels unknown to the task
+                unmatchedCount++;
+                continue;
+            }
+
+            final long offsetNanos = (long) (TimeUnit.MILLISECONDS.toNanos(entry.getEventTime() - firstEventTime)
+                    / speed);
+            final int fetchSize = commandMap.containsKey(label) ? 0 : parseFetchSize(label);
+            itemList.add(new Item(originNanos + offsetNanos, command, fetchSize));
+            threadSet.add(StringUtils.trimToEmpty(entry.getThreadName()));
+            // the same population as the replayed histograms: the failed executions are excluded, except the
+            // timed-out ones
+            final boolean failed = entry.getException() != null && !entry.isTimedOut();
+            if (!failed && entry.getTotalTime() >= 0) {
+                getHistogram(recordedMap, label).record(entry.getTotalTime());
+            }
+        }
+
+        this.nextItem = new AtomicInteger();
+        this.originNanos = originNanos;
+        this.recordedThreads = threadSet.size();
+        this.unmatched = unmatchedCount;
+    }
+
+    /**
+     * Takes the next execution and waits until its intended start time.
+     *
+     * @return the execution or <code>null</code> when the replay is over
+     */
+    Item awaitNext() {
+
+        final int index = nextItem.getAndIncrement();
+        if (index >= itemList.size()) {
+            return null;
+        }
+
+        final Item item = itemList.get(index);
+        long remaining = item.getStartNanos() - System.nanoTime();
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = item.getStartNanos() - System.nanoTime();
+        }
+        return item;
+    }
+
+    /**
+     * @return the number of distinct threads that recorded the log
+     */
+    int getRecordedThreads() {
+        return recordedThreads;
+    }
+
+    /**
+     * Prints the latency of the recorded executions next to the latency of the replayed ones, for every label.
+     *
+     * @param out
+     *            the output stream
+     * @param taskMetrics
+     *            the metrics of the replay
+     */
+    void print(final PrintStream out, final TaskMetrics taskMetrics) {
+
+        final long lastStart = itemList.isEmpty() ? originNanos : itemList.get(itemList.size() - 1).getStartNanos();
+        out.format("%n%nReplay of %s (task: %s, recorded datasource: %s, executions: %d, skipped: %d, span: %.3f s, "
+                + "latency unit: ms)%n", logFile, taskMetrics.getTaskName(),
+                recordedDatasource == null ? "-" : recordedDatasource, itemList.size(), unmatched,
+                (lastStart - originNanos) / (NANOS_PER_MILLI * TimeUnit.SECONDS.toMillis(1)));
+        out.format("%-30s %10s %10s %10s %10s %10s %10s %10s %10s %9s%n", "label", "count", "replayed", "p50",
+                "p50'", "p99", "p99'", "max", "max'", "p99 diff");
+
+        final Map<String, HistogramSnapshot> replayMap = taskMetrics.snapshot();
+        for (final Map.Entry<String, LatencyHistogram> entry : recordedMap.entrySet()) {
+
+            final HistogramSnapshot recorded = entry.getValue().snapshot();
+            HistogramSnapshot replayed = replayMap.get(entry.getKey());
+            if (replayed == null) {
+                replayed = new LatencyHistogram().snapshot();
+            }
+
+            final long recordedP99 = recorded.getValueAtPercentile(99);
+            final long replayedP99 = replayed.getValueAtPercentile(99);
+            out.format("%-30s %10d %10d %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f %8s%%%n", entry.getKey(), //
+                    recorded.getCount(), //
+                    replayed.getCount(), //
+                    recorded.getValueAtPercentile(50) / NANOS_PER_MILLI, //
+                    replayed.getValueAtPercentile(50) / NANOS_PER_MILLI, //
+                    recordedP99 / NANOS_PER_MILLI, //
+                    replayedP99 / NANOS_PER_MILLI, //
+                    recorded.getMax() / NANOS_PER_MILLI, //
+                    replayed.getMax() / NANOS_PER_MILLI, //
+                    recordedP99 > 0 ? String.format("%+.1f", (replayedP99 - recordedP99) * 100.0 / recordedP99)
+                            : "-");
+        }
+        out.format("(' = replayed)%n");
+    }
+}
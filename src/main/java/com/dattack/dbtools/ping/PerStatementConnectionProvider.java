@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * Opens a new connection for every statement and closes it right after.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class PerStatementConnectionProvider implements ConnectionProvider {
+
+    private final DataSource dataSource;
+
+    PerStatementConnectionProvider(final DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+
+    @Override
+    public CachedConnection getConnection() throws SQLException {
+        return new CachedConnection(dataSource.getConnection());
+    }
+
+    @Override
+    public void release(final CachedConnection connection, final boolean reusable) {
+        connection.close();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * Keeps one connection for a single worker. The connection is opened on first use and reopened only after a
+ * connection error. Instances of this class aren't thread-safe: each worker must use its own provider.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class PerThreadConnectionProvider implements ConnectionProvider {
+
+    private final DataSource dataSource;
+    private CachedConnection connection;
+
+    PerThreadConnectionProvider(final DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+    }
+
+    @Override
+    public CachedConnection getConnection() throws SQLException {
+        if (connection == null) {
+            connection = new CachedConnection(dataSource.getConnection());
+        }
+        return connection;
+    }
+
+    @Override
+    public void release(final CachedConnection value, final boolean reusable) {
+        if (!reusable) {
+            close();
+        }
+    }
+}
@@ -16,11 +16,17 @@
 package com.dattack.dbtools.ping;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -36,16 +42,26 @@ import org.apache.commons.configuration.ConfigurationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.dattack.dbtools.metrics.OpenMetricsServer;
 import com.dattack.dbtools.ping.beans.DbpingBean;
 import com.dattack.dbtools.ping.beans.DbpingParser;
 import com.dattack.dbtools.ping.beans.DbpingParserException;
 import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.beans.PingTaskBean.ConnectionMode;
+import com.dattack.dbtools.ping.beans.PingTaskBean.ThreadMode;
+import com.dattack.dbtools.ping.beans.SqlCommandBean;
 import com.dattack.dbtools.ping.log.CSVFileLogWriter;
 import com.dattack.dbtools.ping.log.LogHeader;
 import com.dattack.dbtools.ping.log.LogWriter;
+import com.dattack.dbtools.ping.parameters.ParameterGenerator;
+import com.dattack.dbtools.ping.parameters.ParameterGeneratorFactory;
+import com.dattack.dbtools.ping.thinktime.ThinkTime;
+import com.dattack.dbtools.ping.thinktime.ThinkTimeFactory;
 import com.dattack.jtoolbox.commons.configuration.ConfigurationUtil;
+import com.dattack.jtoolbox.concurrent.SimpleThreadFactory.ThreadFactoryBuilder;
 import com.dattack.jtoolbox.io.FilesystemUtils;
 import com.dattack.jtoolbox.jdbc.JNDIDataSource;
+import com.dattack.jtoolbox.util.TimeUtils;
 
 /**
  * @author cvarela
@@ -59,9 +75,48 @@ public final class Ping {
     private static final String LONG_FILE_OPTION = "file";
     private static final String TASK_NAME_OPTION = "t";
     private static final String LONG_TASK_NAME_OPTION = "task";
+    private static final String INTERVAL_OPTION = "i";
+    private static final String LONG_INTERVAL_OPTION = "interval";
+    private static final String INTERVAL_FILE_OPTION = "o";
+    private static final String LONG_INTERVAL_FILE_OPTION = "interval-file";
+    private static final long DEFAULT_INTERVAL_SECONDS = 10;
+    private static final String METRICS_OPTION = "m";
+    private static final String LONG_METRICS_OPTION = "metrics";
+    private static final long METRICS_PERIOD_MILLIS = 1000;
+    private static final String REPLAY_OPTION = "r";
+    private static final String LONG_REPLAY_OPTION = "replay";
+    private static final String REPLAY_DATASOURCE_OPTION = "d";
+    private static final String LONG_REPLAY_DATASOURCE_OPTION = "replay-datasource";
+    private static final String SPEED_OPTION = "s";
+    private static final String LONG_SPEED_OPTION = "speed";
+    private static final String COORDINATOR_OPTION = "c";
+    private static final String LONG_COORDINATOR_OPTION = "coordinator";
+    private static final String WORKERS_OPTION = "n";
+    private static final String LONG_WORKERS_OPTION = "workers";
+    private static final String WORKER_OPTION = "w";
+    private static final String LONG_WORKER_OPTION = "worker";
+    private static final long WORKER_REPORT_PERIOD_MILLIS = 1000;
+    private static final String JVM_SAMPLE_OPTION = "j";
+    private static final String LONG_JVM_SAMPLE_OPTION = "jvm-sample";
 
     // private final ExecutorService pool;
     private final ThreadPool pool;
+    private final List<TaskMetrics> taskMetricsList;
+    private final List<SaturationSearch> saturationSearchList;
+    private final List<ConnectionStorm> connectionStormList;
+    private final List<ConnectionProvider> connectionProviderList;
+    private final JmxExporter jmxExporter;
+    private final ScheduledExecutorService scheduler;
+    private final IntervalReporter intervalReporter;
+    private final PingMetricsCollector metricsCollector;
+    private final QueryWatchdog watchdog;
+    private final File replayFile;
+    private final double replaySpeed;
+    private final String replayDatasource;
+    private final Map<LogReplay, TaskMetrics> replayMap;
+    private final JvmSampler jvmSampler;
+    private OpenMetricsServer metricsServer;
+    private PingWorker worker;
 
     private class ThreadPool {
 
@@ -71,12 +126,39 @@ public final class Ping {
             this.threadList = new ArrayList<>();
         }
 
-        public void submit(final Runnable task, final String threadName) {
+        public void submit(final Runnable task, final String threadName, final ThreadMode threadMode) {
 
-            final Thread thread = new Thread(task, threadName);
+            Thread thread = null;
+            if (threadMode == ThreadMode.VIRTUAL) {
+                thread = VirtualThreads.newThread(task, threadName);
+                if (thread == null) {
+                    LOGGER.warn("Virtual threads are not available, using platform thread '{}'", threadName);
+                }
+            }
+
+            if (thread == null) {
+                thread = new Thread(task, threadName);
+            }
             thread.start();
             threadList.add(thread);
         }
+
+        /**
+         * Waits for all the submitted tasks to finish. Virtual threads are always daemon threads so the JVM won't wait
+         * for them unless they are joined.
+         */
+        public void awaitTermination() {
+
+            for (final Thread thread : threadList) {
+                try {
+                    thread.join();
+                } catch (final InterruptedException e) {
+                    LOGGER.warn("Interrupted while waiting for thread '{}'", thread.getName());
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
     }
 
     private static Options createOptions() {
@@ -84,11 +166,12 @@ public final class Ping {
         final Options options = new Options();
 
         options.addOption(Option.builder(FILE_OPTION) //
-                .required(true) //
+                .required(false) //
                 .longOpt(LONG_FILE_OPTION) //
                 .hasArg(true) //
                 .argName("DBPING_FILE") //
-                .desc("the path of the file containing the DBPing configuration") //
+                .desc("the path of the file containing the DBPing configuration (required unless running as a "
+                        + "worker)") //
                 .build());
 
         options.addOption(Option.builder(TASK_NAME_OPTION) //
@@ -99,9 +182,110 @@ public final class Ping {
                 .desc("the name of the task to execute") //
                 .build());
 
+        options.addOption(Option.builder(INTERVAL_OPTION) //
+                .required(false) //
+                .longOpt(LONG_INTERVAL_OPTION) //
+                .hasArg(true) //
+                .argName("SECONDS") //
+                .desc("print a summary of every task each SECONDS seconds") //
+                .build());
+
+        options.addOption(Option.builder(INTERVAL_FILE_OPTION) //
+                .required(false) //
+                .longOpt(LONG_INTERVAL_FILE_OPTION) //
+                .hasArg(true) //
+                .argName("INTERVAL_FILE") //
+                .desc("the path of the file where the interval summaries are written (default interval: "
+                        + DEFAULT_INTERVAL_SECONDS + " seconds)") //
+                .build());
+
+        options.addOption(Option.builder(METRICS_OPTION) //
+                .required(false) //
+                .longOpt(LONG_METRICS_OPTION) //
+                .hasArg(true) //
+                .argName("[HOST:]PORT") //
+                .desc("expose the metrics in OpenMetrics format at http://HOST:PORT/metrics "
+                        + "(default host: localhost)") //
+                .build());
+
+        options.addOption(Option.builder(REPLAY_OPTION) //
+                .required(false) //
+                .longOpt(LONG_REPLAY_OPTION) //
+                .hasArg(true) //
+                .argName("LOG_FILE") //
+                .desc("replay the executions recorded in LOG_FILE with their original inter-arrival times, and "
+                        + "compare the latencies") //
+                .build());
+
+        options.addOption(Option.builder(REPLAY_DATASOURCE_OPTION) //
+                .required(false) //
+                .longOpt(LONG_REPLAY_DATASOURCE_OPTION) //
+                .hasArg(true) //
+                .argName("DATASOURCE") //
+                .desc("the recorded datasource to replay (default: the same datasource, or the only one recorded by "
+                        + "the task)") //
+                .build());
+
+        options.addOption(Option.builder(SPEED_OPTION) //
+                .required(false) //
+                .longOpt(LONG_SPEED_OPTION) //
+                .hasArg(true) //
+                .argName("FACTOR") //
+                .desc("the speed-up factor of the replay (default: 1)") //
+                .build());
+
+        options.addOption(Option.builder(COORDINATOR_OPTION) //
+                .required(false) //
+                .longOpt(LONG_COORDINATOR_OPTION) //
+                .hasArg(true) //
+                .argName("[HOST:]PORT") //
+                .desc("coordinate a group of worker processes from HOST:PORT and merge their metrics "
+                        + "(default host: localhost)") //
+                .build());
+
+        options.addOption(Option.builder(WORKERS_OPTION) //
+                .required(false) //
+                .longOpt(LONG_WORKERS_OPTION) //
+                .hasArg(true) //
+                .argName("WORKERS") //
+                .desc("the number of worker processes that the coordinator waits for (default: 1)") //
+                .build());
+
+        options.addOption(Option.builder(WORKER_OPTION) //
+                .required(false) //
+                .longOpt(LONG_WORKER_OPTION) //
+                .hasArg(true) //
+                .argName("[HOST:]PORT") //
+                .desc("run as a worker of the coordinator at HOST:PORT (default host: localhost)") //
+                .build());
+
+        options.addOption(Option.builder(JVM_SAMPLE_OPTION) //
+                .required(false) //
+                .longOpt(LONG_JVM_SAMPLE_OPTION) //
+                .hasArg(true) //
+                .argName("TIME_SPAN") //
+                .desc("sample the GC, stalls, CPU and allocation rate of the client JVM every TIME_SPAN, next to the "
+                        + "logs (disabled by default)") //
+                .build());
+
         return options;
     }
 
+    private ConnectionProvider getConnectionProvider(final PingTaskBean pingTaskBean, final DataSource dataSource,
+            final ConnectionProvider sharedProvider) {
+
+        if (sharedProvider != null) {
+            return sharedProvider;
+        }
+
+        if (pingTaskBean.getConnectionMode() == ConnectionMode.PER_THREAD) {
+            final ConnectionProvider connectionProvider = new PerThreadConnectionProvider(dataSource);
+            connectionProviderList.add(connectionProvider);
+            return connectionProvider;
+        }
+        return new PerStatementConnectionProvider(dataSource);
+    }
+
     private static SqlCommandProvider getSentenceProvider(final String clazzname) {
 
         SqlCommandProvider sentenceProvider = null;
@@ -136,22 +320,84 @@ public final class Ping {
             final CommandLine cmd = parser.parse(options, args);
             final String[] filenames = cmd.getOptionValues(FILE_OPTION);
             final String[] taskNames = cmd.getOptionValues(TASK_NAME_OPTION);
+            if (filenames == null && !cmd.hasOption(WORKER_OPTION)) {
+                showUsage(options);
+                return;
+            }
 
             HashSet<String> hs = null;
             if (taskNames != null) {
                 hs = new HashSet<>(Arrays.asList(taskNames));
             }
 
-            final Ping ping = new Ping();
-            ping.execute(filenames, hs);
+            if (cmd.hasOption(COORDINATOR_OPTION)) {
+                final PingCoordinator coordinator = new PingCoordinator(cmd.getOptionValue(COORDINATOR_OPTION),
+                        Integer.parseInt(cmd.getOptionValue(WORKERS_OPTION, "1")));
+                coordinator.execute(filenames, hs);
+                coordinator.print(System.out);
+                return;
+            }
+
+            final String intervalFile = cmd.getOptionValue(INTERVAL_FILE_OPTION);
+            long intervalSeconds = 0;
+            if (cmd.hasOption(INTERVAL_OPTION)) {
+                intervalSeconds = Long.parseLong(cmd.getOptionValue(INTERVAL_OPTION));
+            } else if (intervalFile != null) {
+                intervalSeconds = DEFAULT_INTERVAL_SECONDS;
+            }
 
-        } catch (@SuppressWarnings("unused") final ParseException e) {
+            File replayFile = null;
+            if (cmd.hasOption(REPLAY_OPTION)) {
+                replayFile = new File(cmd.getOptionValue(REPLAY_OPTION));
+            }
+            double replaySpeed = 1;
+            if (cmd.hasOption(SPEED_OPTION)) {
+                replaySpeed = Double.parseDouble(cmd.getOptionValue(SPEED_OPTION));
+                if (replaySpeed <= 0 || Double.isInfinite(replaySpeed)) {
+                    throw new NumberFormatException("Invalid speed-up factor: " + replaySpeed);
+                }
+            }
+
+            long jvmSamplePeriod = 0;
+            if (cmd.hasOption(JVM_SAMPLE_OPTION)) {
+                jvmSamplePeriod = parseJvmSamplePeriod(cmd.getOptionValue(JVM_SAMPLE_OPTION));
+            }
+
+            final Ping ping = new Ping(intervalSeconds, intervalFile, replayFile, replaySpeed,
+                    cmd.getOptionValue(REPLAY_DATASOURCE_OPTION), jvmSamplePeriod);
+            if (cmd.hasOption(METRICS_OPTION)) {
+                ping.startMetricsServer(cmd.getOptionValue(METRICS_OPTION));
+            }
+            if (cmd.hasOption(WORKER_OPTION)) {
+                ping.executeWorker(new PingWorker(cmd.getOptionValue(WORKER_OPTION)));
+            } else {
+                ping.execute(filenames, hs);
+                ping.awaitTermination();
+            }
+
+        } catch (final ParseException | NumberFormatException e) {
+            System.err.println(e.getMessage());
             showUsage(options);
-        } catch (final ConfigurationException | DbpingParserException e) {
+        } catch (final ConfigurationException | DbpingParserException | IOException e) {
             System.err.println(e.getMessage());
         }
     }
 
+    private static long parseJvmSamplePeriod(final String value) {
+
+        Long millis = null;
+        try {
+            millis = TimeUtils.parseTimeSpanMillis(value);
+        } catch (final IllegalArgumentException e) {
+            // handled below
+        }
+
+        if (millis == null || millis <= 0) {
+            throw new NumberFormatException("Invalid JVM sampling period: " + value);
+        }
+        return millis;
+    }
+
     private static void showUsage(final Options options) {
         final HelpFormatter formatter = new HelpFormatter();
         final int descPadding = 5;
@@ -163,11 +409,47 @@ public final class Ping {
         formatter.printHelp("dbping ", header, options, footer, true);
     }
 
-    private Ping() {
+    private Ping(final long intervalSeconds, final String intervalFile, final File replayFile,
+            final double replaySpeed, final String replayDatasource, final long jvmSamplePeriod) {
         pool = new ThreadPool();
+        this.replayFile = replayFile;
+        this.replaySpeed = replaySpeed;
+        this.replayDatasource = replayDatasource;
+        replayMap = new LinkedHashMap<>();
+        taskMetricsList = new ArrayList<>();
+        saturationSearchList = new ArrayList<>();
+        connectionStormList = new ArrayList<>();
+        connectionProviderList = new ArrayList<>();
+        jmxExporter = new JmxExporter();
+        watchdog = new QueryWatchdog();
+        metricsCollector = new PingMetricsCollector();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder() //
+                .withThreadNamePrefix("dbping-metrics") //
+                .withDaemon(true) //
+                .build());
+        scheduler.scheduleAtFixedRate(jmxExporter, METRICS_PERIOD_MILLIS, METRICS_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS);
+
+        if (intervalSeconds > 0) {
+            intervalReporter = new IntervalReporter(System.out, intervalFile);
+            scheduler.scheduleAtFixedRate(intervalReporter, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            intervalReporter = null;
+        }
+
+        if (jvmSamplePeriod > 0) {
+            jvmSampler = new JvmSampler(jvmSamplePeriod);
+            jvmSampler.start();
+        } else {
+            jvmSampler = null;
+        }
     }
 
-    private void execute(final File file, final Set<String> taskNames)
+    /**
+     * Prepares the tasks defined in a file, or in the files of a directory. The workers aren't started: the returned
+     * launchers submit them once every task has been validated.
+     */
+    private void prepare(final File file, final Set<String> taskNames, final List<Runnable> launcherList)
             throws ConfigurationException, DbpingParserException {
 
         if (file.isDirectory()) {
@@ -175,7 +457,7 @@ public final class Ping {
             final File[] files = file.listFiles(FilesystemUtils.createFilenameFilterByExtension("xml"));
             if (files != null) {
                 for (final File child : files) {
-                    execute(child, taskNames);
+                    prepare(child, taskNames, launcherList);
                 }
             }
 
@@ -190,32 +472,296 @@ public final class Ping {
 
                 final CompositeConfiguration conf = new CompositeConfiguration();
                 conf.setProperty("task.name", pingTaskBean.getName());
+                if (worker != null) {
+                    // the workers of a coordinator must not share their log files
+                    conf.setProperty("worker.index", worker.getWorkerIndex());
+                }
                 conf.addConfiguration(ConfigurationUtil.createEnvSystemConfiguration());
 
-                final DataSource dataSource = new JNDIDataSource(pingTaskBean.getDatasource());
-
                 final SqlCommandProvider sentenceProvider = getSentenceProvider(pingTaskBean.getCommandProvider());
                 sentenceProvider.setSentences(pingTaskBean.getSqlStatementList());
 
-                final LogWriter logWriter = new CSVFileLogWriter(
-                        ConfigurationUtil.interpolate(pingTaskBean.getLogFile(), conf));
+                final String logFilename = ConfigurationUtil.interpolate(pingTaskBean.getLogFile(), conf);
+                final LogWriter logWriter = new CSVFileLogWriter(logFilename);
+                if (jvmSampler != null) {
+                    jvmSampler.register(logFilename);
+                }
 
                 final LogHeader logHeader = new LogHeader(pingTaskBean);
                 logWriter.write(logHeader);
 
-                for (int i = 0; i < pingTaskBean.getThreads(); i++) {
-                    pool.submit(new PingJob(pingTaskBean, dataSource, sentenceProvider, logWriter),
-                            pingTaskBean.getName() + "@Thread-" + i);
+                final Map<String, ParameterGenerator> parameterGeneratorMap = ParameterGeneratorFactory
+                        .create(pingTaskBean.getParameterList());
+                final ThinkTime thinkTime = ThinkTimeFactory.create(pingTaskBean);
+
+                // all the worker groups share the same timeline
+                final long originNanos = System.nanoTime();
+                final ChecksumVerifier checksumVerifier = new ChecksumVerifier(pingTaskBean);
+                LoadProfile loadProfile = null;
+                if (pingTaskBean.getLoadProfile() != null) {
+                    if (pingTaskBean.getSaturationSearch() != null) {
+                        throw new DbpingParserException(String.format(
+                                "The task '%s' can't define both a load profile and a saturation search",
+                                pingTaskBean.getName()));
+                    }
+                    loadProfile = new LoadProfile(pingTaskBean, originNanos, logWriter);
+                }
+                if (pingTaskBean.getConnectionStorm() != null
+                        && (loadProfile != null || pingTaskBean.getSaturationSearch() != null)) {
+                    throw new DbpingParserException(String.format(
+                            "The task '%s' can't combine a connection storm with a load profile or a saturation search",
+                            pingTaskBean.getName()));
+                }
+
+                final List<String> datasourceList = pingTaskBean.getDatasourceList();
+                if (datasourceList.isEmpty()) {
+                    throw new DbpingParserException(
+                            String.format("The task '%s' has no datasource", pingTaskBean.getName()));
+                }
+
+                // the maximum rates are shared by all the datasources and split among the worker processes
+                final int processes = worker == null ? 1 : worker.getWorkers();
+                final RateLimiter taskRateLimiter = TaskContext.createTaskRateLimiter(pingTaskBean, processes);
+                final Map<SqlCommandBean, RateLimiter> commandRateLimiterMap = TaskContext
+                        .createCommandRateLimiters(pingTaskBean, processes);
+
+                for (final String datasource : datasourceList) {
+
+                    final String groupName = datasourceList.size() > 1 ? pingTaskBean.getName() + "@" + datasource
+                            : pingTaskBean.getName();
+
+                    final TaskMetrics taskMetrics = new TaskMetrics(groupName);
+                    taskMetricsList.add(taskMetrics);
+                    jmxExporter.register(taskMetrics);
+                    metricsCollector.register(taskMetrics);
+                    if (intervalReporter != null) {
+                        intervalReporter.register(taskMetrics);
+                    }
+                    if (worker != null) {
+                        worker.register(taskMetrics);
+                    }
+
+                    final TaskContext context = new TaskContext(pingTaskBean, sentenceProvider, logWriter,
+                            taskMetrics, parameterGeneratorMap, thinkTime, datasource, checksumVerifier, watchdog,
+                            taskRateLimiter, commandRateLimiterMap);
+                    final DataSource dataSource = new JNDIDataSource(datasource);
+
+                    if (pingTaskBean.getConnectionStorm() != null) {
+                        final ConnectionStorm storm = new ConnectionStorm(context, dataSource, groupName);
+                        connectionStormList.add(storm);
+                        launcherList.add(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                submitStormClients(context, storm, groupName);
+                            }
+                        });
+                        continue;
+                    }
+
+                    if (replayFile != null) {
+                        final LogReplay replay = createReplay(context);
+                        replayMap.put(replay, taskMetrics);
+                        launcherList.add(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                submitReplayWorkers(context, dataSource, groupName, replay);
+                            }
+                        });
+                        continue;
+                    }
+
+                    // each datasource has its own saturation point
+                    StageTimeline timeline = loadProfile;
+                    if (pingTaskBean.getSaturationSearch() != null) {
+                        final SaturationSearch saturationSearch = new SaturationSearch(pingTaskBean, groupName,
+                                originNanos, logWriter);
+                        saturationSearchList.add(saturationSearch);
+                        timeline = saturationSearch;
+                    }
+
+                    final StageTimeline workerTimeline = timeline;
+                    launcherList.add(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            submitWorkers(context, dataSource, groupName, originNanos, workerTimeline);
+                        }
+                    });
                 }
             }
         }
     }
 
+    /**
+     * Starts the group of workers of a task that run against a datasource.
+     */
+    private void submitWorkers(final TaskContext context, final DataSource dataSource, final String groupName,
+            final long originNanos, final StageTimeline timeline) {
+
+        final PingTaskBean pingTaskBean = context.getPingTaskBean();
+
+        ConnectionProvider sharedProvider = null;
+        if (pingTaskBean.getConnectionMode() == ConnectionMode.POOLED) {
+            sharedProvider = new PooledConnectionProvider(dataSource, pingTaskBean.getPoolSize());
+            connectionProviderList.add(sharedProvider);
+        }
+
+        if (timeline != null) {
+            for (int i = 0; i < pingTaskBean.getMaxThreads(); i++) {
+                pool.submit(
+                        new PingJob(context, getConnectionProvider(pingTaskBean, dataSource, sharedProvider),
+                                timeline, i),
+                        groupName + "@Thread-" + i, pingTaskBean.getThreadMode());
+            }
+            return;
+        }
+
+        for (int i = 0; i < pingTaskBean.getThreads(); i++) {
+
+            ArrivalSchedule arrivalSchedule = null;
+            if (pingTaskBean.getTargetRate() > 0) {
+                arrivalSchedule = new ArrivalSchedule(pingTaskBean.getTargetRate(), originNanos, i,
+                        pingTaskBean.getThreads());
+            }
+
+            pool.submit(
+                    new PingJob(context, getConnectionProvider(pingTaskBean, dataSource, sharedProvider),
+                            arrivalSchedule),
+                    groupName + "@Thread-" + i, pingTaskBean.getThreadMode());
+        }
+    }
+
+    /**
+     * Starts the group of workers that replay a log against a datasource. The load profile, the saturation search and
+     * the target rate of the task don't apply: the log sets the pace. There are as many workers as threads recorded
+     * the log, so the replay can reach the original concurrency, unless the task defines more. Only the executions
+     * recorded by the same task against one datasource are replayed, so a task with several datasources replays the
+     * recorded load of each one against its counterpart.
+     */
+    private void submitReplayWorkers(final TaskContext context, final DataSource dataSource, final String groupName,
+            final LogReplay replay) {
+
+        final PingTaskBean pingTaskBean = context.getPingTaskBean();
+
+        ConnectionProvider sharedProvider = null;
+        if (pingTaskBean.getConnectionMode() == ConnectionMode.POOLED) {
+            sharedProvider = new PooledConnectionProvider(dataSource, pingTaskBean.getPoolSize());
+            connectionProviderList.add(sharedProvider);
+        }
+
+        final int threads = Math.max(pingTaskBean.getThreads(), replay.getRecordedThreads());
+        for (int i = 0; i < threads; i++) {
+            pool.submit(
+                    new PingJob(context, getConnectionProvider(pingTaskBean, dataSource, sharedProvider), replay),
+                    groupName + "@Thread-" + i, pingTaskBean.getThreadMode());
+        }
+    }
+
+    /**
+     * Loads the executions of the log to replay against the datasource of a task.
+     */
+    private LogReplay createReplay(final TaskContext context) throws DbpingParserException {
+
+        try {
+            return new LogReplay(replayFile, context.getPingTaskBean(), context.getDatasourceName(), replayDatasource,
+                    replaySpeed);
+        } catch (final IOException e) {
+            throw new DbpingParserException(e);
+        }
+    }
+
+    /**
+     * Starts the clients of a connection storm against a datasource. They only open connections: the statements of
+     * the task aren't executed.
+     */
+    private void submitStormClients(final TaskContext context, final ConnectionStorm storm, final String groupName) {
+
+        for (int i = 0; i < storm.getClients(); i++) {
+            pool.submit(storm.newClient(), groupName + "@Client-" + i, context.getPingTaskBean().getThreadMode());
+        }
+    }
+
+    private void awaitTermination() {
+        pool.awaitTermination();
+        scheduler.shutdownNow();
+        if (jvmSampler != null) {
+            jvmSampler.stop();
+        }
+        watchdog.shutdown();
+        jmxExporter.unregisterAll();
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        if (intervalReporter != null) {
+            // the last, possibly partial, interval
+            intervalReporter.run();
+        }
+        for (final ConnectionProvider connectionProvider : connectionProviderList) {
+            connectionProvider.close();
+        }
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            taskMetrics.print(System.out);
+        }
+        for (final SaturationSearch saturationSearch : saturationSearchList) {
+            saturationSearch.print(System.out);
+        }
+        for (final ConnectionStorm connectionStorm : connectionStormList) {
+            connectionStorm.print(System.out);
+        }
+        for (final Map.Entry<LogReplay, TaskMetrics> entry : replayMap.entrySet()) {
+            entry.getKey().print(System.out, entry.getValue());
+        }
+    }
+
+    /**
+     * Runs the tasks assigned by a coordinator, from the common start time, and reports their metrics to it.
+     */
+    private void executeWorker(final PingWorker pingWorker)
+            throws ConfigurationException, DbpingParserException, IOException {
+
+        this.worker = pingWorker;
+        final WorkerAssignment assignment = pingWorker.join();
+        final String[] filenames = pingWorker.saveFiles();
+        try {
+            pingWorker.awaitStart();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pingWorker.finish();
+            return;
+        }
+
+        scheduler.scheduleAtFixedRate(pingWorker, WORKER_REPORT_PERIOD_MILLIS, WORKER_REPORT_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS);
+        try {
+            execute(filenames, assignment.getTaskNames());
+            awaitTermination();
+        } finally {
+            pingWorker.finish();
+        }
+    }
+
+    private void startMetricsServer(final String address) throws IOException {
+        metricsServer = new OpenMetricsServer(address);
+        metricsServer.register(metricsCollector);
+        metricsServer.start();
+    }
+
+    /**
+     * Runs the tasks defined in a set of files. Every task is validated before any worker starts, so a configuration
+     * error doesn't leave the previous tasks running.
+     */
     private void execute(final String[] filenames, final Set<String> taskNames)
             throws ConfigurationException, DbpingParserException {
 
+        final List<Runnable> launcherList = new ArrayList<>();
         for (final String filename : filenames) {
-            execute(new File(filename), taskNames);
+            prepare(new File(filename), taskNames, launcherList);
+        }
+
+        for (final Runnable launcher : launcherList) {
+            launcher.run();
         }
     }
 }
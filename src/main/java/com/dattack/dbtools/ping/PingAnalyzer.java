@@ -44,6 +44,8 @@ public final class PingAnalyzer {
     private static final String DATA_FILE_OPTION = "file";
     private static final String MAX_VALUE_OPTION = "max";
     private static final String MIN_VALUE_OPTION = "min";
+    private static final String INCLUDE_WARM_UP_OPTION = "include_warm_up";
+    private static final String STALL_THRESHOLD_OPTION = "stall_threshold";
 
     /**
      * The <code>main</code> method.
@@ -66,6 +68,9 @@ public final class PingAnalyzer {
             options.addOption(METRIC_OPTION, true, "the metric to analyze");
             options.addOption(MAX_VALUE_OPTION, true, "the maximum value to use");
             options.addOption(MIN_VALUE_OPTION, true, "the minimum value to use");
+            options.addOption(INCLUDE_WARM_UP_OPTION, false, "include the executions flagged as warm-up");
+            options.addOption(STALL_THRESHOLD_OPTION, true,
+                    "the longest stall of the client JVM that doesn't taint the executions (default: 10ms)");
 
             final CommandLineParser parser = new DefaultParser();
             final CommandLine cmd = parser.parse(options, args);
@@ -76,6 +81,11 @@ public final class PingAnalyzer {
             context.setTimeSpan(TimeUtils.parseTimeSpanMillis(cmd.getOptionValue(SPAN_OPTION)));
             context.setMaxValue(parseLong(cmd.getOptionValue(MAX_VALUE_OPTION)));
             context.setMinValue(parseLong(cmd.getOptionValue(MIN_VALUE_OPTION)));
+            context.setIncludeWarmUp(cmd.hasOption(INCLUDE_WARM_UP_OPTION));
+            final Long stallThreshold = TimeUtils.parseTimeSpanMillis(cmd.getOptionValue(STALL_THRESHOLD_OPTION));
+            if (stallThreshold != null) {
+                context.setStallThreshold(stallThreshold);
+            }
             if (cmd.hasOption(METRIC_OPTION)) {
                 for (final String metricName : cmd.getOptionValues(METRIC_OPTION)) {
                     context.addMetricNameFilter(MetricName.parse(metricName));
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.jtoolbox.io.FilesystemUtils;
+import com.dattack.jtoolbox.io.IOUtils;
+
+/**
+ * Drives several dbping worker processes as a single load generator. The coordinator waits for the expected number of
+ * workers, sends them the task definitions and a common start time, and merges the histogram snapshots they report
+ * into one summary. The workers run on the same host, so they share the wall clock used for the start time. The
+ * messages use the explicit format of {@link WorkerProtocol}: a peer that doesn't register as a worker is dropped.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class PingCoordinator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PingCoordinator.class);
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** The time the workers have to parse the tasks before the common start. */
+    private static final long START_DELAY_MILLIS = 2000;
+
+    /** The time a new connection has to register as a worker. */
+    private static final int HELLO_TIMEOUT_MILLIS = 10000;
+
+    private final InetSocketAddress address;
+    private final int workers;
+    private final WorkerReport[] lastReports;
+
+    /**
+     * Receives the reports of a worker until its last one.
+     */
+    private final class ReportReader implements Runnable {
+
+        private final int workerIndex;
+        private final DataInputStream in;
+
+        ReportReader(final int workerIndex, final DataInputStream in) {
+            this.workerIndex = workerIndex;
+            this.in = in;
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                WorkerReport report;
+                do {
+                    report = WorkerReport.read(in);
+                    if (report.getWorkerIndex() != workerIndex) {
+                        throw new IOException("Unexpected worker index: " + report.getWorkerIndex());
+                    }
+                    update(report);
+                } while (!report.isFinished());
+                LOGGER.info("Worker {} finished", workerIndex);
+            } catch (final IOException e) {
+                LOGGER.warn("Lost connection with worker {}: {}", workerIndex, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The merged metrics of a SQL label.
+     */
+    private static final class MergedLabel {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long operations;
+        private long errors;
+        private long rows;
+
+        void add(final WorkerReport.LabelReport labelReport) {
+            histogram.add(labelReport.getSnapshot());
+            operations += labelReport.getOperations();
+            errors += labelReport.getErrors();
+            rows += labelReport.getRows();
+        }
+    }
+
+    /**
+     * Parses an address with the format <code>[host:]port</code>. The loopback interface is used when no host is
+     * given.
+     *
+     * @param address
+     *            the address to parse
+     * @return the socket address
+     */
+    static InetSocketAddress parseAddress(final String address) {
+
+        final String value = StringUtils.trimToEmpty(address);
+        final int index = value.lastIndexOf(':');
+        if (index < 0) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(value));
+        }
+        return new InetSocketAddress(value.substring(0, index), Integer.parseInt(value.substring(index + 1)));
+    }
+
+    private static void readFiles(final File file, final Map<String, byte[]> fileMap) throws IOException {
+
+        if (file.isDirectory()) {
+            final File[] files = file.listFiles(FilesystemUtils.createFilenameFilterByExtension("xml"));
+            if (files != null) {
+                for (final File child : files) {
+                    readFiles(child, fileMap);
+                }
+            }
+        } else {
+            // the canonical path: files with the same name may be found in different directories
+            fileMap.put(file.getCanonicalPath(), Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    /**
+     * Creates a new coordinator.
+     *
+     * @param address
+     *            the listening address: <code>[host:]port</code>
+     * @param workers
+     *            the number of workers to wait for
+     */
+    PingCoordinator(final String address, final int workers) {
+
+        if (workers <= 0) {
+            throw new IllegalArgumentException("The number of workers must be greater than zero");
+        }
+        this.address = parseAddress(address);
+        this.workers = workers;
+        this.lastReports = new WorkerReport[workers];
+    }
+
+    /**
+     * Waits for the workers, starts them and waits for their last report.
+     *
+     * @param filenames
+     *            the task definition files and directories
+     * @param taskNames
+     *            the tasks to execute or <code>null</code> to execute all of them
+     * @throws IOException
+     *             if the files can't be read or the address can't be bound
+     */
+    void execute(final String[] filenames, final Set<String> taskNames) throws IOException {
+
+        final Map<String, byte[]> fileMap = new LinkedHashMap<>();
+        for (final String filename : filenames) {
+            readFiles(new File(filename), fileMap);
+        }
+
+        final List<Socket> socketList = new ArrayList<>();
+        final List<DataOutputStream> outList = new ArrayList<>();
+        final List<Thread> readerList = new ArrayList<>();
+        final ServerSocket serverSocket = new ServerSocket();
+        try {
+            serverSocket.bind(address);
+            LOGGER.info("Waiting for {} workers at {}", workers, address);
+
+            final List<DataInputStream> inList = new ArrayList<>();
+            while (socketList.size() < workers) {
+                final Socket socket = serverSocket.accept();
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                final String name;
+                try {
+                    socket.setSoTimeout(HELLO_TIMEOUT_MILLIS);
+                    name = WorkerProtocol.readHello(in);
+                    socket.setSoTimeout(0);
+                } catch (final IOException e) {
+                    LOGGER.warn("Rejected connection from {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                    IOUtils.closeQuietly(socket);
+                    continue;
+                }
+
+                socketList.add(socket);
+                socket.setTcpNoDelay(true);
+                inList.add(in);
+                outList.add(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+                LOGGER.info("Worker {} joined: {}", socketList.size() - 1, name);
+            }
+
+            // all the workers start at the same time, once every one of them has parsed the tasks
+            final long startTimeMillis = System.currentTimeMillis() + START_DELAY_MILLIS;
+            for (int i = 0; i < workers; i++) {
+                new WorkerAssignment(i, workers, startTimeMillis, fileMap, taskNames).write(outList.get(i));
+                outList.get(i).flush();
+
+                final Thread reader = new Thread(new ReportReader(i, inList.get(i)), "dbping-coordinator-" + i);
+                reader.start();
+                readerList.add(reader);
+            }
+
+            for (final Thread reader : readerList) {
+                reader.join();
+            }
+        } catch (final InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for the workers");
+            Thread.currentThread().interrupt();
+        } finally {
+            for (final DataOutputStream out : outList) {
+                IOUtils.closeQuietly(out);
+            }
+            for (final Socket socket : socketList) {
+                IOUtils.closeQuietly(socket);
+            }
+            IOUtils.closeQuietly(serverSocket);
+        }
+    }
+
+    /**
+     * Prints the metrics of all the workers, merged by task and label.
+     *
+     * @param out
+     *            the output stream
+     */
+    void print(final PrintStream out) {
+
+        final Map<String, Map<String, MergedLabel>> taskMap = new TreeMap<>();
+        long elapsedNanos = 0;
+        int reporting = 0;
+        synchronized (lastReports) {
+            for (final WorkerReport report : lastReports) {
+                if (report == null) {
+                    continue;
+                }
+                reporting++;
+                elapsedNanos = Math.max(elapsedNanos, report.getElapsedNanos());
+                for (final WorkerReport.LabelReport labelReport : report.getLabelReportList()) {
+                    Map<String, MergedLabel> labelMap = taskMap.get(labelReport.getTaskName());
+                    if (labelMap == null) {
+                        labelMap = new TreeMap<>();
+                        taskMap.put(labelReport.getTaskName(), labelMap);
+                    }
+                    MergedLabel merged = labelMap.get(labelReport.getLabel());
+                    if (merged == null) {
+                        merged = new MergedLabel();
+                        labelMap.put(labelReport.getLabel(), merged);
+                    }
+                    merged.add(labelReport);
+                }
+            }
+        }
+
+        out.format("%n%nMerged latency histograms (workers: %d/%d, elapsed: %.3f s, unit: ms)%n", reporting, workers,
+                elapsedNanos / NANOS_PER_SECOND);
+        for (final Map.Entry<String, Map<String, MergedLabel>> taskEntry : taskMap.entrySet()) {
+            out.format("%ntask: %s%n", taskEntry.getKey());
+            out.format("%-30s %10s %10s %10s %10s %10s %10s %10s %10s %12s%n", "label", "count", "errors", "ops/s",
+                    "mean", "p50", "p99", "p99.9", "max", "rows");
+
+            for (final Map.Entry<String, MergedLabel> entry : taskEntry.getValue().entrySet()) {
+                final MergedLabel merged = entry.getValue();
+                final HistogramSnapshot snapshot = merged.histogram.snapshot();
+                out.format("%-30s %10d %10d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f %12d%n", entry.getKey(), //
+                        merged.operations, //
+                        merged.errors, //
+                        elapsedNanos > 0 ? merged.operations * NANOS_PER_SECOND / elapsedNanos : 0, //
+                        snapshot.getMean() / NANOS_PER_MILLI, //
+                        snapshot.getValueAtPercentile(50) / NANOS_PER_MILLI, //
+                        snapshot.getValueAtPercentile(99) / NANOS_PER_MILLI, //
+                        snapshot.getValueAtPercentile(99.9) / NANOS_PER_MILLI, //
+                        snapshot.getMax() / NANOS_PER_MILLI, //
+                        merged.rows);
+            }
+        }
+    }
+
+    /**
+     * Keeps the last report of a worker. The reports are cumulative, so the last one replaces the previous ones.
+     */
+    private void update(final WorkerReport report) {
+        synchronized (lastReports) {
+            lastReports[report.getWorkerIndex()] = report;
+        }
+    }
+}
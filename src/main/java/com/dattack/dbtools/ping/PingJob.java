@@ -16,22 +16,29 @@
 package com.dattack.dbtools.ping;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-
-import javax.sql.DataSource;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.dattack.dbtools.metrics.LatencyHistogram;
 import com.dattack.dbtools.ping.LogEntry.LogEntryBuilder;
 import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.beans.SqlBatchBean;
 import com.dattack.dbtools.ping.beans.SqlCommandBean;
 import com.dattack.dbtools.ping.beans.SqlCommandVisitor;
 import com.dattack.dbtools.ping.beans.SqlScriptBean;
 import com.dattack.dbtools.ping.beans.SqlStatementBean;
-import com.dattack.dbtools.ping.log.LogWriter;
+import com.dattack.dbtools.ping.beans.SqlStatementBean.ChecksumMode;
+import com.dattack.dbtools.ping.beans.SqlStatementBean.ConsumptionMode;
 import com.dattack.jtoolbox.jdbc.JDBCUtils;
 
 /**
@@ -44,18 +51,572 @@ class PingJob implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PingJob.class);
 
+    private final TaskContext context;
     private final PingTaskBean pingTaskBean;
-    private final DataSource dataSource;
-    private final SqlCommandProvider sentenceProvider;
-    private final LogWriter logWriter;
+    private final ConnectionProvider connectionProvider;
+    private final ArrivalSchedule arrivalSchedule;
+    private final StageTimeline timeline;
+    private final LogReplay replay;
+    private final int workerIndex;
+    private final ResultChecksum resultChecksum;
+    private int currentStage;
+
+    /**
+     * Executes the commands selected in an iteration.
+     */
+    private class ExecutionVisitor implements SqlCommandVisitor {
+
+        private final LogEntryBuilder logEntryBuilder;
+        private final String threadName;
+        private final Map<SqlStatementBean, Integer> fetchSweepIndexMap;
+        private long iteration;
+        private LogReplay.Item replayItem;
+
+        ExecutionVisitor(final LogEntryBuilder logEntryBuilder, final String threadName) {
+            this.logEntryBuilder = logEntryBuilder;
+            this.threadName = threadName;
+            this.fetchSweepIndexMap = new IdentityHashMap<>();
+        }
+
+        /**
+         * Executes a transactional script on a single connection. Each statement and the commit are logged as
+         * separate entries; a last entry, labelled as the script, records the whole unit of work. Only this entry is
+         * recorded in the metrics, as one operation, whether the unit of work succeeds or fails.
+         */
+        private void visiteTransaction(final SqlScriptBean command) {
+
+            if (command.getStatementList().isEmpty()) {
+                return;
+            }
+
+            final long scriptStartNanos = logEntryBuilder.getStartNanos();
+            final long scriptQueueTime = logEntryBuilder.getQueueTime();
+            logEntryBuilder.withSqlLabel(command.getStatementList().get(0).getLabel()) //
+                    .withIteration(iteration);
+
+            CachedConnection connection = null;
+            boolean reusable = true;
+            try {
+                logEntryBuilder.startConnect();
+                connection = connectionProvider.getConnection();
+
+                // sets the connection time of the first statement
+                logEntryBuilder.connect();
+
+                executeTransaction(connection, command, scriptStartNanos, scriptQueueTime);
+
+            } catch (final SQLException e) {
+                reusable = !isConnectionError(e);
+
+                // the statement or the commit that failed, and the failed unit of work
+                log(logEntryBuilder.withException(e).build());
+                write(logEntryBuilder.init().withStartNanos(scriptStartNanos) //
+                        .withQueueTime(scriptQueueTime) //
+                        .withSqlLabel(command.getLabel()) //
+                        .withIteration(iteration) //
+                        .withException(e) //
+                        .build());
+                LOGGER.warn("Job error (job-name: '{}', thread: '{}'): {}", pingTaskBean.getName(), threadName,
+                        e.getMessage());
+            } finally {
+                if (connection != null) {
+                    connectionProvider.release(connection, reusable);
+                }
+            }
+        }
+
+        private void executeTransaction(final CachedConnection connection, final SqlScriptBean command,
+                final long scriptStartNanos, final long scriptQueueTime) throws SQLException {
+
+            final Connection jdbcConnection = connection.getConnection();
+            final boolean autoCommit = jdbcConnection.getAutoCommit();
+            final int isolation = jdbcConnection.getTransactionIsolation();
+            if (command.getIsolation() != null) {
+                jdbcConnection.setTransactionIsolation(command.getIsolation().getLevel());
+            }
+            jdbcConnection.setAutoCommit(false);
+
+            long connectionTime = -1;
+            long rows = 0;
+            boolean completed = false;
+            try {
+                boolean first = true;
+                for (final SqlStatementBean item : command.getStatementList()) {
+                    if (!first) {
+                        // the connection is already open
+                        logEntryBuilder.init().withSqlLabel(item.getLabel()) //
+                                .withIteration(iteration) //
+                                .withConnectionTime(0);
+                    }
+
+                    execute(connection, item, nextFetchSize(item), logEntryBuilder);
+                    final LogEntry logEntry = logEntryBuilder.build();
+                    log(logEntry);
+
+                    if (first) {
+                        connectionTime = logEntry.getConnectionTime();
+                        first = false;
+                    }
+                    rows += logEntry.getRows();
+                }
+
+                logEntryBuilder.init().withSqlLabel(command.getLabel() + "[commit]") //
+                        .withIteration(iteration) //
+                        .withConnectionTime(0);
+                jdbcConnection.commit();
+                log(logEntryBuilder.build());
+                completed = true;
+            } finally {
+                if (!completed) {
+                    rollbackQuietly(jdbcConnection);
+                }
+                jdbcConnection.setAutoCommit(autoCommit);
+                if (command.getIsolation() != null) {
+                    jdbcConnection.setTransactionIsolation(isolation);
+                }
+            }
+
+            // the whole unit of work, from the start of the script
+            logEntryBuilder.init().withStartNanos(scriptStartNanos) //
+                    .withQueueTime(scriptQueueTime) //
+                    .withSqlLabel(command.getLabel()) //
+                    .withIteration(iteration) //
+                    .withRows(rows) //
+                    .withConnectionTime(connectionTime);
+            write(logEntryBuilder.build());
+        }
+
+        /**
+         * Returns the fetch size of the next execution of a statement. When the statement defines a sweep, the fetch
+         * sizes are used in turn and the label of the execution reflects the selected one. A replayed execution uses
+         * the fetch size it recorded.
+         */
+        private int nextFetchSize(final SqlStatementBean command) {
+
+            if (replayItem != null && replayItem.getCommand() == command && replayItem.getFetchSize() > 0) {
+                logEntryBuilder.withSqlLabel(String.format("%s[fetch=%d]", command.getLabel(),
+                        replayItem.getFetchSize()));
+                return replayItem.getFetchSize();
+            }
+
+            final List<Integer> fetchSizeList = command.getFetchSizeList();
+            if (fetchSizeList.isEmpty()) {
+                return command.getFetchSize();
+            }
+
+            final Integer previousIndex = fetchSweepIndexMap.get(command);
+            final int index = previousIndex == null ? 0 : (previousIndex + 1) % fetchSizeList.size();
+            fetchSweepIndexMap.put(command, index);
+
+            final int fetchSize = fetchSizeList.get(index);
+            logEntryBuilder.withSqlLabel(String.format("%s[fetch=%d]", command.getLabel(), fetchSize));
+            return fetchSize;
+        }
+
+        private void setIteration(final long value) {
+            this.iteration = value;
+        }
+
+        private void setReplayItem(final LogReplay.Item value) {
+            this.replayItem = value;
+        }
+
+        @Override
+        public void visite(final SqlBatchBean command) {
+
+            CachedConnection connection = null;
+            boolean reusable = true;
+            try {
+                logEntryBuilder.startConnect();
+                connection = connectionProvider.getConnection();
+
+                // sets the connection time
+                logEntryBuilder.connect();
+
+                // each replayed execution is one of the logged batches
+                final int batches = replayItem == null ? command.getBatches() : 1;
+                executeBatch(connection, command, batches, logEntryBuilder, iteration);
+
+            } catch (final SQLException e) {
+                reusable = !isConnectionError(e);
+                write(logEntryBuilder.withException(e).build());
+                LOGGER.warn("Job error (job-name: '{}', thread: '{}'): {}", pingTaskBean.getName(), threadName,
+                        e.getMessage());
+            } finally {
+                if (connection != null) {
+                    connectionProvider.release(connection, reusable);
+                }
+            }
+        }
+
+        @Override
+        public void visite(final SqlScriptBean command) {
+
+            if (command.isTransactional()) {
+                visiteTransaction(command);
+                return;
+            }
+
+            boolean first = true;
+            for (final SqlStatementBean item : command.getStatementList()) {
+                if (first) {
+                    // keeps the start time of the script
+                    first = false;
+                } else {
+                    logEntryBuilder.init();
+                }
+                logEntryBuilder.withSqlLabel(item.getLabel()) //
+                        .withIteration(iteration);
+                item.accept(this);
+            }
+        }
+
+        @Override
+        public void visite(final SqlStatementBean command) {
+
+            final int fetchSize = nextFetchSize(command);
+
+            CachedConnection connection = null;
+            boolean reusable = true;
+            try {
+                logEntryBuilder.startConnect();
+                connection = connectionProvider.getConnection();
+
+                // sets the connection time
+                logEntryBuilder.connect();
+
+                execute(connection, command, fetchSize, logEntryBuilder);
+
+                // sets the total time
+                write(logEntryBuilder.build());
+
+            } catch (final SQLException e) {
+                reusable = !isConnectionError(e);
+                write(logEntryBuilder.withException(e).build());
+                LOGGER.warn("Job error (job-name: '{}', thread: '{}'): {}", pingTaskBean.getName(), threadName,
+                        e.getMessage());
+            } finally {
+                if (connection != null) {
+                    connectionProvider.release(connection, reusable);
+                }
+            }
+        }
+    }
+
+    public PingJob(final TaskContext context, final ConnectionProvider connectionProvider) {
+        this(context, connectionProvider, (ArrivalSchedule) null);
+    }
+
+    public PingJob(final TaskContext context, final ConnectionProvider connectionProvider,
+            final ArrivalSchedule arrivalSchedule) {
+        this(context, connectionProvider, arrivalSchedule, null, null, 0);
+    }
+
+    public PingJob(final TaskContext context, final ConnectionProvider connectionProvider,
+            final StageTimeline timeline, final int workerIndex) {
+        this(context, connectionProvider, null, timeline, null, workerIndex);
+    }
+
+    public PingJob(final TaskContext context, final ConnectionProvider connectionProvider, final LogReplay replay) {
+        this(context, connectionProvider, null, null, replay, 0);
+    }
+
+    private PingJob(final TaskContext context, final ConnectionProvider connectionProvider,
+            final ArrivalSchedule arrivalSchedule, final StageTimeline timeline, final LogReplay replay,
+            final int workerIndex) {
+
+        this.context = context;
+        this.pingTaskBean = context.getPingTaskBean();
+        this.connectionProvider = connectionProvider;
+        this.arrivalSchedule = arrivalSchedule;
+        this.timeline = timeline;
+        this.replay = replay;
+        this.workerIndex = workerIndex;
+        this.resultChecksum = new ResultChecksum();
+        this.currentStage = -1;
+    }
+
+    /**
+     * Checks if an exception reports a broken connection (SQLState class '08').
+     */
+    private static boolean isConnectionError(final SQLException exception) {
+        return exception.getSQLState() != null && exception.getSQLState().startsWith("08");
+    }
+
+    private void bindParameters(final PreparedStatement statement, final List<String> parameterList)
+            throws SQLException {
+
+        for (int i = 0; i < parameterList.size(); i++) {
+            statement.setObject(i + 1, context.getParameterGenerator(parameterList.get(i)).next());
+        }
+    }
+
+    /**
+     * Creates the open-loop schedule of this worker for a stage of the timeline.
+     *
+     * @return the schedule or <code>null</code> if the stage runs in closed-loop mode
+     */
+    private ArrivalSchedule createSchedule(final int stage) {
+
+        if (timeline.getTargetRate(stage) > 0) {
+            return new ArrivalSchedule(timeline.getTargetRate(stage), timeline.getStartNanos(stage),
+                    workerIndex, timeline.getThreads(stage));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of rows affected by a batch. The drivers that don't report the count of a statement
+     * (<code>SUCCESS_NO_INFO</code>) are counted as one row per statement.
+     */
+    private static long countRows(final int[] updateCounts) {
+
+        long rows = 0;
+        for (final int count : updateCounts) {
+            if (count >= 0) {
+                rows += count;
+            } else if (count == Statement.SUCCESS_NO_INFO) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sends a number of batches of a batch command, writing a log entry for each one of them.
+     */
+    private void executeBatch(final CachedConnection connection, final SqlBatchBean command, final int batches,
+            final LogEntryBuilder logEntryBuilder, final long iteration) throws SQLException {
+
+        final Connection jdbcConnection = connection.getConnection();
+        final boolean transactional = command.getCommitInterval() > 0;
+        final boolean autoCommit = jdbcConnection.getAutoCommit();
+        if (transactional && autoCommit) {
+            jdbcConnection.setAutoCommit(false);
+        }
+
+        PreparedStatement statement = connection.prepareStatement(command.getSql());
+        boolean completed = false;
+        try {
+            int uncommittedBatches = 0;
+            for (int batch = 0; batch < batches; batch++) {
+                if (batch > 0) {
+                    // the connection is already open
+                    logEntryBuilder.init().withSqlLabel(command.getLabel()) //
+                            .withIteration(iteration) //
+                            .withConnectionTime(0);
+                }
+
+                for (int i = 0; i < command.getBatchSize(); i++) {
+                    bindParameters(statement, command.getParameterList());
+                    statement.addBatch();
+                }
+                final QueryWatchdog.Watch watch = watch(statement, command);
+                boolean executed = false;
+                final boolean stale;
+                try {
+                    final long executeStartNanos = System.nanoTime();
+                    logEntryBuilder.withRows(countRows(statement.executeBatch())) //
+                            .withExecuteTime(System.nanoTime() - executeStartNanos);
+                    executed = true;
+                } finally {
+                    stale = disarm(watch, logEntryBuilder, executed);
+                }
+                if (stale) {
+                    // a late cancel request may be pending on the statement
+                    connection.evict(command.getSql());
+                    statement = connection.prepareStatement(command.getSql());
+                }
+
+                uncommittedBatches++;
+                if (transactional && (uncommittedBatches >= command.getCommitInterval()
+                        || batch == batches - 1)) {
+                    jdbcConnection.commit();
+                    uncommittedBatches = 0;
+                }
+
+                write(logEntryBuilder.build());
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                clearBatchQuietly(statement);
+                // the pending work must not leak into the next executions on the same connection
+                if (transactional || !autoCommit) {
+                    rollbackQuietly(jdbcConnection);
+                }
+            }
+            if (transactional && autoCommit) {
+                jdbcConnection.setAutoCommit(autoCommit);
+            }
+        }
+    }
 
-    public PingJob(final PingTaskBean configuration, final DataSource dataSource,
-            final SqlCommandProvider sentenceProvider, final LogWriter logWriter) {
+    /**
+     * Starts watching the execution of a command, if it has a timeout.
+     *
+     * @return the watch or <code>null</code> if the command has no timeout
+     */
+    private QueryWatchdog.Watch watch(final Statement statement, final SqlCommandBean command) {
 
-        this.pingTaskBean = configuration;
-        this.dataSource = dataSource;
-        this.sentenceProvider = sentenceProvider;
-        this.logWriter = logWriter;
+        final long timeoutNanos = context.getTimeoutNanos(command);
+        if (timeoutNanos <= 0) {
+            return null;
+        }
+        return context.getWatchdog().watch(statement, timeoutNanos);
+    }
+
+    /**
+     * Stops watching an execution and flags it as timed out if the watch cancelled it. An execution that completed
+     * before the cancel request reached it didn't time out, but the request may still be pending on its statement.
+     *
+     * @param completed
+     *            whether the execution completed without throwing an exception
+     * @return <code>true</code> if the cancel request may reach the next execution of the statement, so it must not be
+     *         reused
+     */
+    private static boolean disarm(final QueryWatchdog.Watch watch, final LogEntryBuilder logEntryBuilder,
+            final boolean completed) {
+
+        if (watch == null || !watch.disarm()) {
+            return false;
+        }
+
+        if (completed) {
+            return true;
+        }
+        logEntryBuilder.withTimedOut(true) //
+                .withCancelTime(System.nanoTime() - watch.getCancelNanos());
+        return false;
+    }
+
+    private void clearBatchQuietly(final PreparedStatement statement) {
+
+        try {
+            statement.clearBatch();
+        } catch (final SQLException e) {
+            LOGGER.warn("Unable to clear the batch (job-name: '{}'): {}", pingTaskBean.getName(), e.getMessage());
+        }
+    }
+
+    private void rollbackQuietly(final Connection connection) {
+
+        try {
+            connection.rollback();
+        } catch (final SQLException e) {
+            LOGGER.warn("Unable to rollback the transaction (job-name: '{}'): {}", pingTaskBean.getName(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Executes a statement and reads the rows it returns, according to its consumption mode. Statements with
+     * parameters are executed as prepared statements, cached by the connection.
+     */
+    private void execute(final CachedConnection connection, final SqlStatementBean command, final int fetchSize,
+            final LogEntryBuilder logEntryBuilder) throws SQLException {
+
+        Statement adHocStatement = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        QueryWatchdog.Watch watch = null;
+        boolean completed = false;
+        try {
+            final Statement statement;
+            if (command.getParameterList().isEmpty()) {
+                adHocStatement = connection.getConnection().createStatement();
+                if (fetchSize > 0) {
+                    adHocStatement.setFetchSize(fetchSize);
+                }
+                if (command.getMaxRows() > 0) {
+                    adHocStatement.setMaxRows(command.getMaxRows());
+                }
+                statement = adHocStatement;
+            } else {
+                preparedStatement = connection.prepareStatement(command.getSql());
+                // the statement is reused so the previous values are always overwritten
+                preparedStatement.setFetchSize(fetchSize);
+                preparedStatement.setMaxRows(command.getMaxRows());
+                bindParameters(preparedStatement, command.getParameterList());
+                statement = preparedStatement;
+            }
+
+            // the timeout covers the execution and the consumption of the rows
+            watch = watch(statement, command);
+            final long executeStartNanos = System.nanoTime();
+            final boolean executeResult = preparedStatement == null ? adHocStatement.execute(command.getSql())
+                    : preparedStatement.execute();
+            final long executeEndNanos = System.nanoTime();
+            logEntryBuilder.withExecuteTime(executeEndNanos - executeStartNanos);
+
+            if (executeResult && command.getConsumption() != ConsumptionMode.NONE) {
+                resultSet = statement.getResultSet();
+                consume(resultSet, command, logEntryBuilder);
+                logEntryBuilder.withFetchTime(System.nanoTime() - executeEndNanos);
+            } else {
+                // not a ResultSet or not consumed
+            }
+            completed = true;
+        } finally {
+            final boolean stale = disarm(watch, logEntryBuilder, completed);
+            final long closeStartNanos = System.nanoTime();
+            JDBCUtils.closeQuietly(resultSet);
+            // prepared statements are closed by the connection, unless a late cancel request may be pending on them
+            JDBCUtils.closeQuietly(adHocStatement);
+            if (stale && preparedStatement != null) {
+                connection.evict(command.getSql());
+            }
+            logEntryBuilder.withCloseTime(System.nanoTime() - closeStartNanos);
+        }
+    }
+
+    /**
+     * Reads the rows of a result set. Each call to <code>ResultSet.next()</code> is timed: the ones slower than the
+     * round trip threshold of the task are counted as fetch round trips to the server, and their times are optionally
+     * recorded in the row gap histogram of the label.
+     */
+    private void consume(final ResultSet resultSet, final SqlStatementBean command,
+            final LogEntryBuilder logEntryBuilder) throws SQLException {
+
+        final boolean checksum = command.getChecksum() != ChecksumMode.NONE;
+        // the checksum already reads every column
+        final boolean materialize = command.getConsumption() == ConsumptionMode.FULL && !checksum;
+        if (checksum) {
+            resultChecksum.start(resultSet.getMetaData(), command.getChecksum() == ChecksumMode.ORDERED);
+        }
+
+        final long roundTripNanos = TimeUnit.MICROSECONDS.toNanos(pingTaskBean.getRoundTripThreshold());
+        final LatencyHistogram rowGapHistogram = pingTaskBean.isRowGapHistogram()
+                ? context.getTaskMetrics().getRowGapHistogram(logEntryBuilder.getSqlLabel()) : null;
+
+        long roundTrips = 0;
+        long nextStartNanos = System.nanoTime();
+        boolean hasNext = resultSet.next();
+        while (true) {
+            final long gap = System.nanoTime() - nextStartNanos;
+            if (gap > roundTripNanos) {
+                roundTrips++;
+            }
+            if (rowGapHistogram != null) {
+                rowGapHistogram.record(gap);
+            }
+            if (!hasNext) {
+                break;
+            }
+
+            logEntryBuilder.addRow(resultSet, materialize);
+            if (checksum) {
+                resultChecksum.update(resultSet);
+            }
+
+            nextStartNanos = System.nanoTime();
+            hasNext = resultSet.next();
+        }
+        logEntryBuilder.withFetchRoundTrips(roundTrips);
+
+        if (checksum) {
+            verifyChecksum(command, logEntryBuilder);
+        }
     }
 
     @Override
@@ -69,81 +630,161 @@ class PingJob implements Runnable {
 
         final LogEntryBuilder logEntryBuilder = new LogEntryBuilder(pingTaskBean.getMaxRowsToDump()) //
                 .withTaskName(pingTaskBean.getName()) //
-                .withThreadName(threadName);
+                .withThreadName(threadName) //
+                .withDatasource(context.getDatasourceName());
 
-        while (testLoop(iter)) {
-            final long currentIteration = iter++;
-            // retrieve the SQL to be executed
-            final SqlCommandBean sqlSentence = sentenceProvider.nextSql();
+        final ExecutionVisitor visitor = new ExecutionVisitor(logEntryBuilder, threadName);
 
-            logEntryBuilder.init().withSqlLabel(sqlSentence.getLabel()) //
-                    .withIteration(iter);
-
-            // sets the connection time
-            logEntryBuilder.connect();
+        final long warmUpEndNanos = System.nanoTime() + context.getWarmUpNanos();
+        ArrivalSchedule schedule = arrivalSchedule;
+        int stage = -1;
 
-            sqlSentence.accept(new SqlCommandVisitor() {
+        while (testLoop(iter)) {
 
-                @Override
-                public void visite(final SqlScriptBean command) {
+            if (timeline != null) {
+                final int activeStage = timeline.awaitStage(workerIndex);
+                if (activeStage < 0) {
+                    // end of the timeline
+                    break;
+                }
 
-                    for (final SqlStatementBean item : command.getStatementList()) {
-                        logEntryBuilder.init().withSqlLabel(item.getLabel()) //
-                                .withIteration(currentIteration);
+                if (activeStage != stage) {
+                    stage = activeStage;
+                    currentStage = stage;
+                    schedule = createSchedule(stage);
+                    logEntryBuilder.withStage(timeline.getName(stage));
+                }
+            }
 
-                        // sets the connection time
-                        logEntryBuilder.connect();
-                        item.accept(this);
-                    }
+            // in open-loop mode, the latency is measured from the intended start time
+            long intendedStart = -1;
+            if (schedule != null) {
+                intendedStart = schedule.awaitNext();
+                if (timeline != null && intendedStart >= timeline.getEndNanos(stage)) {
+                    // this execution belongs to the next stage
+                    continue;
                 }
+            }
 
-                @Override
-                public void visite(final SqlStatementBean command) {
-
-                    try (Connection connection = dataSource.getConnection()) {
-                        try (Statement stmt = connection.createStatement()) {
-                            ResultSet resultSet = null;
-                            try {
-
-                                final boolean executeResult = stmt.execute(command.getSql());
-                                if (executeResult) {
-                                    resultSet = stmt.getResultSet();
-                                    while (resultSet.next()) {
-                                        logEntryBuilder.addRow(resultSet);
-                                    }
-                                } else {
-                                    // not a ResultSet
-                                }
-
-                                // sets the total time
-                                logWriter.write(logEntryBuilder.build());
-                            } finally {
-                                JDBCUtils.closeQuietly(resultSet);
-                            }
-                        }
-                    } catch (final SQLException e) {
-                        logWriter.write(logEntryBuilder.withException(e).build());
-                        LOGGER.warn("Job error (job-name: '{}', thread: '{}'): {}", pingTaskBean.getName(), threadName,
-                                e.getMessage());
-                    }
+            // retrieve the SQL to be executed
+            final SqlCommandBean sqlSentence;
+            if (replay == null) {
+                sqlSentence = context.getSentenceProvider().nextSql();
+            } else {
+                final LogReplay.Item item = replay.awaitNext();
+                if (item == null) {
+                    // end of the log
+                    break;
                 }
-            });
+                intendedStart = item.getStartNanos();
+                sqlSentence = item.getCommand();
+                visitor.setReplayItem(item);
+            }
 
-            if (testLoop(iter) && pingTaskBean.getTimeBetweenExecutions() > 0) {
-                synchronized (this) {
-                    try {
-                        wait(pingTaskBean.getTimeBetweenExecutions());
-                    } catch (final InterruptedException e) {
-                        LOGGER.warn(e.getMessage());
-                    }
+            final long currentIteration = iter++;
+
+            // in closed-loop mode the throttling delay isn't part of the latency; in open-loop mode it is queueing
+            // time, like any other delay over the intended start
+            final long throttleNanos = context.throttle(sqlSentence);
+            if (throttleNanos > 0) {
+                context.getTaskMetrics().recordThrottle(throttleNanos);
+            }
+
+            logEntryBuilder.init().withSqlLabel(sqlSentence.getLabel()) //
+                    .withIteration(iter) //
+                    .withWarmUp(replay == null && isWarmUp(currentIteration, warmUpEndNanos));
+            if (schedule != null || replay != null) {
+                // the delay over the intended start is queue time, not connection or query time
+                logEntryBuilder.withIntendedStart(intendedStart);
+            }
+
+            visitor.setIteration(currentIteration);
+            context.getTaskMetrics().enter();
+            if (timeline != null) {
+                timeline.enter(stage);
+            }
+            try {
+                sqlSentence.accept(visitor);
+            } finally {
+                context.getTaskMetrics().exit();
+                if (timeline != null) {
+                    timeline.exit(stage);
                 }
             }
+
+            if (schedule == null && replay == null && testLoop(iter)) {
+                pause(context.getThinkTime().nextNanos());
+            }
         }
 
         LOGGER.info("Job finished (job-name: '{}', thread: '{}')", pingTaskBean.getName(), threadName);
     }
 
+    /**
+     * Checks if an iteration belongs to the warm-up phase: the first iterations of the worker or the ones started
+     * before the end of the warm-up time.
+     */
+    private boolean isWarmUp(final long iteration, final long warmUpEndNanos) {
+        return iteration < pingTaskBean.getWarmUpIterations()
+                || (context.getWarmUpNanos() > 0 && System.nanoTime() - warmUpEndNanos < 0);
+    }
+
+    /**
+     * Parks the worker during the think time. Unlike <code>Object.wait</code>, it doesn't need a monitor, so it
+     * doesn't pin a virtual thread to its carrier.
+     */
+    private static void pause(final long nanos) {
+
+        final long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
     private boolean testLoop(final long iteration) {
-        return pingTaskBean.getExecutions() <= 0 || iteration < pingTaskBean.getExecutions();
+        // a replay ends with the log
+        return replay != null || pingTaskBean.getExecutions() <= 0 || iteration < pingTaskBean.getExecutions();
+    }
+
+    private void verifyChecksum(final SqlStatementBean command, final LogEntryBuilder logEntryBuilder) {
+
+        final long value = resultChecksum.getValue();
+        final boolean match = context.getChecksumVerifier().verify(command, value);
+        logEntryBuilder.withChecksum(ChecksumVerifier.format(value)) //
+                .withChecksumMismatch(!match);
+
+        if (!match) {
+            LOGGER.warn("Checksum mismatch (job-name: '{}', label: '{}', datasource: '{}'): expected {}, found {}",
+                    pingTaskBean.getName(), command.getLabel(), context.getDatasourceName(),
+                    ChecksumVerifier.format(context.getChecksumVerifier().getExpected(command)),
+                    ChecksumVerifier.format(value));
+        }
+    }
+
+    /**
+     * Logs a part of an operation, like a statement of a transactional script, without recording it in the metrics.
+     */
+    private void log(final LogEntry logEntry) {
+
+        if (logEntry.isWarmUp() && !pingTaskBean.isLogWarmUp()) {
+            // discards the warm-up executions
+            return;
+        }
+        context.getLogWriter().write(logEntry);
+    }
+
+    private void write(final LogEntry logEntry) {
+
+        if (logEntry.isWarmUp() && !pingTaskBean.isLogWarmUp()) {
+            // discards the warm-up executions
+            return;
+        }
+        context.getLogWriter().write(logEntry);
+        context.getTaskMetrics().record(logEntry);
+        if (timeline != null && currentStage >= 0) {
+            timeline.record(currentStage, logEntry);
+        }
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.dattack.dbtools.metrics.OpenMetricsCollector;
+import com.dattack.dbtools.metrics.OpenMetricsWriter;
+
+/**
+ * Exposes the counters and latency histograms of the running tasks in the OpenMetrics format. The values are read from
+ * the accumulators updated by the workers, so a scrape never blocks them.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class PingMetricsCollector implements OpenMetricsCollector {
+
+    private static final String TASK = "task";
+    private static final String LABEL = "label";
+
+    private final List<TaskMetrics> taskMetricsList;
+
+    PingMetricsCollector() {
+        this.taskMetricsList = new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public void collect(final OpenMetricsWriter writer) {
+
+        writer.family("dbping_operations", OpenMetricsWriter.COUNTER, "Finished executions, successful or not");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            for (final Map.Entry<String, LabelMetrics> entry : taskMetrics.getLabelMetricsMap().entrySet()) {
+                writer.sample("dbping_operations_total", entry.getValue().getOperations(), //
+                        TASK, taskMetrics.getTaskName(), LABEL, entry.getKey());
+            }
+        }
+
+        writer.family("dbping_errors", OpenMetricsWriter.COUNTER, "Failed executions");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            for (final Map.Entry<String, LabelMetrics> entry : taskMetrics.getLabelMetricsMap().entrySet()) {
+                writer.sample("dbping_errors_total", entry.getValue().getErrors(), //
+                        TASK, taskMetrics.getTaskName(), LABEL, entry.getKey());
+            }
+        }
+
+        writer.family("dbping_rows", OpenMetricsWriter.COUNTER, "Rows fetched or affected by successful executions");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            for (final Map.Entry<String, LabelMetrics> entry : taskMetrics.getLabelMetricsMap().entrySet()) {
+                writer.sample("dbping_rows_total", entry.getValue().getRows(), //
+                        TASK, taskMetrics.getTaskName(), LABEL, entry.getKey());
+            }
+        }
+
+        writer.family("dbping_timeouts", OpenMetricsWriter.COUNTER, "Executions cancelled because of their timeout");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            writer.sample("dbping_timeouts_total", taskMetrics.getTimeouts(), TASK, taskMetrics.getTaskName());
+        }
+
+        writer.family("dbping_cancel_seconds", OpenMetricsWriter.COUNTER,
+                "Time from the cancel request of the timed-out executions until their workers got the control back");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            writer.sample("dbping_cancel_seconds_total", taskMetrics.getCancelTime() / 1000, TASK,
+                    taskMetrics.getTaskName());
+        }
+
+        writer.family("dbping_checksum_mismatches", OpenMetricsWriter.COUNTER,
+                "Executions whose result checksum doesn't match the expected one");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            writer.sample("dbping_checksum_mismatches_total", taskMetrics.getChecksumMismatches(), TASK,
+                    taskMetrics.getTaskName());
+        }
+
+        writer.family("dbping_in_flight", OpenMetricsWriter.GAUGE, "Executions in progress");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            writer.sample("dbping_in_flight", taskMetrics.getInFlight(), TASK, taskMetrics.getTaskName());
+        }
+
+        writer.family("dbping_throttled", OpenMetricsWriter.COUNTER, "Executions delayed by a rate limit");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            writer.sample("dbping_throttled_total", taskMetrics.getThrottled(), TASK, taskMetrics.getTaskName());
+        }
+
+        writer.family("dbping_throttle_wait_seconds", OpenMetricsWriter.COUNTER,
+                "Time spent waiting for the rate limits");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            writer.sample("dbping_throttle_wait_seconds_total", taskMetrics.getThrottleTime() / 1000, TASK,
+                    taskMetrics.getTaskName());
+        }
+
+        writer.family("dbping_latency_seconds", OpenMetricsWriter.HISTOGRAM,
+                "Latency of the successful and the timed-out executions");
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            for (final Map.Entry<String, LabelMetrics> entry : taskMetrics.getLabelMetricsMap().entrySet()) {
+                writer.histogram("dbping_latency_seconds", entry.getValue().snapshot(), //
+                        TASK, taskMetrics.getTaskName(), LABEL, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Adds a task to the exposition.
+     *
+     * @param taskMetrics
+     *            the metrics of the task
+     */
+    void register(final TaskMetrics taskMetrics) {
+        taskMetricsList.add(taskMetrics);
+    }
+}
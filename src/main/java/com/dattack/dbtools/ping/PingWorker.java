@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dattack.jtoolbox.io.IOUtils;
+
+/**
+ * The connection of a worker process with its coordinator. The worker registers itself, receives its
+ * {@link WorkerAssignment} and then streams a cumulative {@link WorkerReport} of the registered tasks each time it is
+ * run, until {@link #finish()} sends the last one.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class PingWorker implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PingWorker.class);
+
+    private final String address;
+    private final List<TaskMetrics> taskMetricsList;
+    private Socket socket;
+    private DataOutputStream out;
+    private WorkerAssignment assignment;
+    private long startNanos;
+
+    /**
+     * Creates a new worker.
+     *
+     * @param address
+     *            the address of the coordinator: <code>[host:]port</code>
+     */
+    PingWorker(final String address) {
+        this.address = address;
+        this.taskMetricsList = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Waits until the start time of the assignment.
+     *
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    void awaitStart() throws InterruptedException {
+
+        long remaining = assignment.getStartTimeMillis() - System.currentTimeMillis();
+        while (remaining > 0) {
+            Thread.sleep(remaining);
+            remaining = assignment.getStartTimeMillis() - System.currentTimeMillis();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    private synchronized void close() {
+        IOUtils.closeQuietly(out);
+        IOUtils.closeQuietly(socket);
+        out = null;
+    }
+
+    private WorkerReport createReport(final boolean finished) {
+
+        final List<WorkerReport.LabelReport> labelReportList = new ArrayList<>();
+        for (final TaskMetrics taskMetrics : taskMetricsList) {
+            for (final Map.Entry<String, LabelMetrics> entry : taskMetrics.getLabelMetricsMap().entrySet()) {
+                labelReportList.add(new WorkerReport.LabelReport(taskMetrics.getTaskName(), entry.getKey(),
+                        entry.getValue()));
+            }
+        }
+        return new WorkerReport(assignment.getWorkerIndex(), System.nanoTime() - startNanos, finished,
+                labelReportList);
+    }
+
+    /**
+     * Sends the last report and closes the connection.
+     */
+    void finish() {
+        send(createReport(true));
+        close();
+    }
+
+    /**
+     * @return the index of this worker
+     */
+    int getWorkerIndex() {
+        return assignment.getWorkerIndex();
+    }
+
+    /**
+     * @return the number of workers of the coordinator, this one included
+     */
+    int getWorkers() {
+        return assignment.getWorkers();
+    }
+
+    /**
+     * Registers this process with the coordinator and waits for its assignment.
+     *
+     * @return the assignment
+     * @throws IOException
+     *             if the coordinator can't be reached
+     */
+    WorkerAssignment join() throws IOException {
+
+        socket = new Socket();
+        socket.connect(PingCoordinator.parseAddress(address));
+        socket.setTcpNoDelay(true);
+
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        WorkerProtocol.writeHello(out, ManagementFactory.getRuntimeMXBean().getName());
+        out.flush();
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        try {
+            assignment = WorkerAssignment.read(in);
+        } catch (final IOException e) {
+            close();
+            throw new IOException("Unexpected message from the coordinator", e);
+        }
+
+        LOGGER.info("Joined the coordinator at {} as worker {}", address, assignment.getWorkerIndex());
+        return assignment;
+    }
+
+    /**
+     * Registers the metrics of a task to be reported.
+     *
+     * @param taskMetrics
+     *            the metrics of the task
+     */
+    void register(final TaskMetrics taskMetrics) {
+        taskMetricsList.add(taskMetrics);
+    }
+
+    @Override
+    public void run() {
+        send(createReport(false));
+    }
+
+    /**
+     * Writes the task definition files of the assignment to a temporary directory.
+     *
+     * @return the paths of the files
+     * @throws IOException
+     *             if the files can't be written
+     */
+    String[] saveFiles() throws IOException {
+
+        final File directory = Files.createTempDirectory("dbping-worker").toFile();
+        directory.deleteOnExit();
+
+        final List<String> filenames = new ArrayList<>();
+        int index = 0;
+        for (final Map.Entry<String, byte[]> entry : assignment.getFileMap().entrySet()) {
+            // the prefix avoids collisions between files with the same name in different directories
+            final String name = new File(entry.getKey()).getName();
+            final File file = new File(directory, String.format("%d-%s", index++, name));
+            Files.write(file.toPath(), entry.getValue());
+            file.deleteOnExit();
+            filenames.add(file.getPath());
+        }
+        return filenames.toArray(new String[filenames.size()]);
+    }
+
+    private synchronized void send(final WorkerReport report) {
+
+        if (out == null) {
+            return;
+        }
+
+        try {
+            report.write(out);
+            out.flush();
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to send the report to the coordinator: {}", e.getMessage());
+            close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import javax.sql.DataSource;
+
+/**
+ * Bounded pool of connections shared by all the workers of a task. Connections are opened lazily, up to the size of
+ * the pool; a worker that requests a connection when all of them are in use waits until one is released, and that
+ * wait is part of the measured connection time.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class PooledConnectionProvider implements ConnectionProvider {
+
+    private final DataSource dataSource;
+    private final Semaphore permits;
+    private final BlockingQueue<CachedConnection> idleConnections;
+
+    PooledConnectionProvider(final DataSource dataSource, final int poolSize) {
+
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("The size of the connection pool must be greater than zero");
+        }
+
+        this.dataSource = dataSource;
+        this.permits = new Semaphore(poolSize, true);
+        this.idleConnections = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    @Override
+    public void close() {
+
+        CachedConnection connection = idleConnections.poll();
+        while (connection != null) {
+            connection.close();
+            connection = idleConnections.poll();
+        }
+    }
+
+    @Override
+    public CachedConnection getConnection() throws SQLException {
+
+        try {
+            permits.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+
+        try {
+            final CachedConnection connection = idleConnections.poll();
+            if (connection != null) {
+                return connection;
+            }
+            return new CachedConnection(dataSource.getConnection());
+        } catch (final SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(final CachedConnection connection, final boolean reusable) {
+
+        if (!reusable || !idleConnections.offer(connection)) {
+            connection.close();
+        }
+        permits.release();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dattack.jtoolbox.concurrent.SimpleThreadFactory.ThreadFactoryBuilder;
+
+/**
+ * Cancels the statements that run longer than their timeout. A single scheduler thread watches the statements of all
+ * the workers, instead of the timer thread per statement that some drivers create for
+ * {@link Statement#setQueryTimeout(int)}. The watches of the executions that finish in time are removed from the
+ * scheduler as soon as they are disarmed.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class QueryWatchdog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryWatchdog.class);
+
+    private static final int ARMED = 0;
+    private static final int DISARMED = 1;
+    private static final int CANCELLING = 2;
+    private static final int CANCELLED = 3;
+
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * The watch of a single execution.
+     */
+    final class Watch implements Runnable {
+
+        private final Statement statement;
+        private final AtomicInteger state;
+        private volatile long cancelNanos;
+        private ScheduledFuture<?> future;
+
+        Watch(final Statement statement) {
+            this.statement = statement;
+            this.state = new AtomicInteger(ARMED);
+        }
+
+        /**
+         * Stops watching the execution. If the watch has already fired, it waits until the cancel request has been
+         * sent. The request may still reach an execution that had just finished, so it's up to the caller to decide
+         * whether the execution timed out and whether the statement can be reused.
+         *
+         * @return <code>true</code> if a cancel request was sent because of the timeout
+         */
+        boolean disarm() {
+
+            if (state.compareAndSet(ARMED, DISARMED)) {
+                future.cancel(false);
+                return false;
+            }
+
+            while (state.get() == CANCELLING) {
+                LockSupport.parkNanos(SPIN_NANOS);
+            }
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * @return the time when the cancel request was sent, as returned by {@link System#nanoTime()}
+         */
+        long getCancelNanos() {
+            return cancelNanos;
+        }
+
+        @Override
+        public void run() {
+
+            if (!state.compareAndSet(ARMED, CANCELLING)) {
+                return;
+            }
+
+            cancelNanos = System.nanoTime();
+            try {
+                statement.cancel();
+            } catch (final SQLException e) {
+                LOGGER.warn("Unable to cancel the statement: {}", e.getMessage());
+            } finally {
+                state.set(CANCELLED);
+            }
+        }
+    }
+
+    QueryWatchdog() {
+        this.scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder() //
+                .withThreadNamePrefix("dbping-watchdog") //
+                .withDaemon(true) //
+                .build());
+        // most of the executions finish in time: their watches mustn't stay queued until the timeout
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Stops the scheduler.
+     */
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Starts watching an execution.
+     *
+     * @param statement
+     *            the statement being executed
+     * @param timeoutNanos
+     *            the timeout (nanoseconds)
+     * @return the watch, to be disarmed when the execution finishes
+     */
+    Watch watch(final Statement statement, final long timeoutNanos) {
+
+        final Watch watch = new Watch(statement);
+        watch.future = scheduler.schedule(watch, timeoutNanos, TimeUnit.NANOSECONDS);
+        return watch;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket shared by the workers of a task, implemented as a generic cell rate algorithm (GCRA): the whole state
+ * is the theoretical arrival time of the next execution, updated with a single compare-and-set. Every worker reserves
+ * its slot without locking and then waits, on its own, until the slot starts.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Creates a new limiter.
+     *
+     * @param maxRate
+     *            the maximum number of executions per second
+     * @param maxBurst
+     *            the number of executions that may start back to back after an idle period
+     */
+    RateLimiter(final double maxRate, final int maxBurst) {
+
+        if (maxRate <= 0) {
+            throw new IllegalArgumentException("The maximum rate must be greater than zero");
+        }
+
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / maxRate));
+        this.burstToleranceNanos = intervalNanos * (Math.max(1, maxBurst) - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Reserves the next execution slot and waits until it starts.
+     *
+     * @return the time spent waiting (nanoseconds), zero if the caller wasn't throttled
+     */
+    long acquire() {
+
+        final long now = System.nanoTime();
+        long allowedAt;
+        while (true) {
+            final long current = theoreticalArrival.get();
+            final long next = Math.max(current, now) + intervalNanos;
+            allowedAt = next - intervalNanos - burstToleranceNanos;
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                break;
+            }
+        }
+
+        if (allowedAt - now <= 0) {
+            return 0;
+        }
+
+        long remaining = allowedAt - now;
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = allowedAt - System.nanoTime();
+        }
+        return allowedAt - now;
+    }
+}
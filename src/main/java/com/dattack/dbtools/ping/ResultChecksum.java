@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Computes a 64-bit checksum (FNV-1a) of a result set while it is consumed. Each column is read with the getter of
+ * its type and encoded as a type tag followed by its value, so the same values give the same checksum whatever the
+ * driver returns for <code>getObject</code>: all the integer types, and the decimals without fractional part, are
+ * encoded as a long. The types of the columns are resolved once per result set and no object is allocated per row,
+ * besides the ones returned by the driver.
+ *
+ * <p>
+ * Instances of this class aren't thread-safe: each worker must use its own instance.
+ * </p>
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class ResultChecksum {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int NULL = 0;
+    private static final int BOOLEAN = 1;
+    private static final int INTEGER = 2;
+    private static final int FLOAT = 3;
+    private static final int DECIMAL = 4;
+    private static final int STRING = 5;
+    private static final int BYTES = 6;
+    private static final int TIMESTAMP = 7;
+    private static final int DATE = 8;
+    private static final int TIME = 9;
+
+    private static final int BYTE_MASK = 0xff;
+    private static final int BITS_PER_BYTE = 8;
+    private static final int BYTES_PER_LONG = 8;
+    private static final int BYTES_PER_CHAR = 2;
+    private static final int LONG_DIGITS = 18;
+
+    private int[] columnTypes;
+    private int columnCount;
+    private boolean ordered;
+    private long digest;
+    private long rows;
+
+    private static int getColumnType(final int sqlType) {
+
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return INTEGER;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return FLOAT;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return DECIMAL;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BYTES;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.DATE:
+                return DATE;
+            case Types.TIME:
+                return TIME;
+            default:
+                return STRING;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if an integer value is within the range of a long
+     */
+    private static boolean isLong(final BigDecimal integerValue) {
+
+        final int digits = integerValue.precision() - integerValue.scale();
+        if (digits <= LONG_DIGITS) {
+            return true;
+        }
+        return digits == LONG_DIGITS + 1 && integerValue.toBigInteger().bitLength() < Long.SIZE;
+    }
+
+    private static long mix(final long hash, final int value) {
+        return (hash ^ (value & BYTE_MASK)) * FNV_PRIME;
+    }
+
+    private static long mix(final long hash, final long value) {
+
+        long result = hash;
+        for (int i = 0; i < BYTES_PER_LONG; i++) {
+            result = mix(result, (int) (value >>> (i * BITS_PER_BYTE)));
+        }
+        return result;
+    }
+
+    private static long mix(final long hash, final String value) {
+
+        long result = mix(hash, (long) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            for (int j = 0; j < BYTES_PER_CHAR; j++) {
+                result = mix(result, c >>> (j * BITS_PER_BYTE));
+            }
+        }
+        return result;
+    }
+
+    private static long mix(final long hash, final byte[] value) {
+
+        long result = mix(hash, (long) value.length);
+        for (final byte b : value) {
+            result = mix(result, b);
+        }
+        return result;
+    }
+
+    private static long mixDecimal(final long hash, final BigDecimal value) {
+
+        if (value.signum() == 0) {
+            return mix(mix(hash, INTEGER), 0L);
+        }
+
+        final BigDecimal normalized = value.stripTrailingZeros();
+        if (normalized.scale() <= 0 && isLong(normalized)) {
+            // an integer value, whatever the declared type of the column
+            return mix(mix(hash, INTEGER), normalized.longValue());
+        }
+        return mix(mix(hash, DECIMAL), normalized.toPlainString());
+    }
+
+    ResultChecksum() {
+        this.columnTypes = new int[0];
+    }
+
+    /**
+     * @return the checksum of the rows read since the last call to {@link #start(ResultSetMetaData, boolean)}
+     */
+    long getValue() {
+        return mix(digest, rows);
+    }
+
+    private long mixColumn(final long hash, final ResultSet resultSet, final int column) throws SQLException {
+
+        switch (columnTypes[column - 1]) {
+            case BOOLEAN:
+                final boolean booleanValue = resultSet.getBoolean(column);
+                return resultSet.wasNull() ? mix(hash, NULL) : mix(mix(hash, BOOLEAN), booleanValue ? 1 : 0);
+            case INTEGER:
+                final long longValue = resultSet.getLong(column);
+                return resultSet.wasNull() ? mix(hash, NULL) : mix(mix(hash, INTEGER), longValue);
+            case FLOAT:
+                final double doubleValue = resultSet.getDouble(column);
+                return resultSet.wasNull() ? mix(hash, NULL)
+                        : mix(mix(hash, FLOAT), Double.doubleToLongBits(doubleValue));
+            case DECIMAL:
+                final BigDecimal decimalValue = resultSet.getBigDecimal(column);
+                return decimalValue == null ? mix(hash, NULL) : mixDecimal(hash, decimalValue);
+            case BYTES:
+                final byte[] bytesValue = resultSet.getBytes(column);
+                return bytesValue == null ? mix(hash, NULL) : mix(mix(hash, BYTES), bytesValue);
+            case TIMESTAMP:
+                final Timestamp timestampValue = resultSet.getTimestamp(column);
+                return timestampValue == null ? mix(hash, NULL)
+                        : mix(mix(mix(hash, TIMESTAMP), timestampValue.getTime()), (long) timestampValue.getNanos());
+            case DATE:
+                final Date dateValue = resultSet.getDate(column);
+                return dateValue == null ? mix(hash, NULL) : mix(mix(hash, DATE), dateValue.getTime());
+            case TIME:
+                final Time timeValue = resultSet.getTime(column);
+                return timeValue == null ? mix(hash, NULL) : mix(mix(hash, TIME), timeValue.getTime());
+            default:
+                final String stringValue = resultSet.getString(column);
+                return stringValue == null ? mix(hash, NULL) : mix(mix(hash, STRING), stringValue);
+        }
+    }
+
+    /**
+     * Prepares the checksum of a new result set.
+     *
+     * @param metaData
+     *            the metadata of the result set
+     * @param orderedRows
+     *            <code>true</code> if the checksum depends on the order of the rows
+     * @throws SQLException
+     *             if the metadata can't be read
+     */
+    void start(final ResultSetMetaData metaData, final boolean orderedRows) throws SQLException {
+
+        columnCount = metaData.getColumnCount();
+        if (columnTypes.length < columnCount) {
+            columnTypes = new int[columnCount];
+        }
+        for (int i = 0; i < columnCount; i++) {
+            columnTypes[i] = getColumnType(metaData.getColumnType(i + 1));
+        }
+
+        this.ordered = orderedRows;
+        this.digest = mix(FNV_OFFSET_BASIS, (long) columnCount);
+        this.rows = 0;
+    }
+
+    /**
+     * Adds the current row of a result set.
+     *
+     * @param resultSet
+     *            the result set
+     * @throws SQLException
+     *             if a column can't be read
+     */
+    void update(final ResultSet resultSet) throws SQLException {
+
+        long rowHash = FNV_OFFSET_BASIS;
+        for (int i = 1; i <= columnCount; i++) {
+            rowHash = mixColumn(rowHash, resultSet, i);
+        }
+
+        if (ordered) {
+            digest = mix(digest, rowHash);
+        } else {
+            // the sum is commutative: the order of the rows doesn't change it
+            digest += mix(FNV_OFFSET_BASIS, rowHash);
+        }
+        rows++;
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.dbtools.metrics.StripedCounter;
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.beans.SaturationSearchBean;
+import com.dattack.dbtools.ping.beans.SaturationSearchBean.SearchMode;
+import com.dattack.dbtools.ping.log.LogWriter;
+import com.dattack.dbtools.ping.log.StageHeader;
+import com.dattack.jtoolbox.util.TimeUtils;
+
+/**
+ * An adaptive timeline that searches the highest load sustained by a task without violating its latency objective.
+ * Each step runs for a fixed time; the first worker that reaches the end of a step waits for the executions still in
+ * progress, evaluates the throughput, the latency percentile and the error rate of the step from its own histogram and
+ * decides the load of the next step. The load grows until the objective is violated and then the interval between the
+ * last good step and the first bad one is bisected.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class SaturationSearch extends StageTimeline {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String groupName;
+    private final SaturationSearchBean bean;
+    private final int taskThreads;
+    private final long stepDurationMillis;
+    private final long maxLatencyNanos;
+    private final LogWriter logWriter;
+    private final List<Step> stepList;
+
+    private volatile Step current;
+
+    // search state, guarded by this
+    private boolean growing;
+    private int refinementsLeft;
+    private Step lastPass;
+    private Step firstFail;
+
+    private static final class Step {
+
+        private final int index;
+        private final double load;
+        private final String name;
+        private final int threads;
+        private final double targetRate;
+        private final long startNanos;
+        private final long endNanos;
+        private final LatencyHistogram histogram;
+        private final StripedCounter operations;
+        private final StripedCounter errors;
+        private final StripedCounter inFlight;
+
+        // results, written once by the evaluator
+        private volatile boolean evaluated;
+        private boolean passed;
+        private double throughput;
+        private double errorPercent;
+        private long latency;
+
+        Step(final int index, final double load, final String name, final int threads, final double targetRate,
+                final long startNanos, final long endNanos) {
+            this.index = index;
+            this.load = load;
+            this.name = name;
+            this.threads = threads;
+            this.targetRate = targetRate;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.histogram = new LatencyHistogram();
+            this.operations = new StripedCounter();
+            this.errors = new StripedCounter();
+            this.inFlight = new StripedCounter();
+        }
+    }
+
+    private static long parseTimeSpan(final PingTaskBean pingTaskBean, final String name, final String value)
+            throws DbpingParserException {
+
+        Long millis = null;
+        try {
+            millis = TimeUtils.parseTimeSpanMillis(value);
+        } catch (final IllegalArgumentException e) {
+            // handled below
+        }
+
+        if (millis == null || millis <= 0) {
+            throw new DbpingParserException(String.format("Invalid saturation search %s '%s' (task: '%s')", name,
+                    value, pingTaskBean.getName()));
+        }
+        return millis;
+    }
+
+    private static String format(final double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Creates the search of a group of workers.
+     *
+     * @param pingTaskBean
+     *            the task definition, with a saturation search
+     * @param groupName
+     *            the name of the group of workers
+     * @param originNanos
+     *            the start of the first step, as returned by {@link System#nanoTime()}
+     * @param logWriter
+     *            the log of the task
+     * @throws DbpingParserException
+     *             if the search has an invalid step duration or latency objective
+     */
+    SaturationSearch(final PingTaskBean pingTaskBean, final String groupName, final long originNanos,
+            final LogWriter logWriter) throws DbpingParserException {
+
+        this.groupName = groupName;
+        this.bean = pingTaskBean.getSaturationSearch();
+        this.taskThreads = Math.max(1, pingTaskBean.getThreads());
+        this.stepDurationMillis = parseTimeSpan(pingTaskBean, "step duration", bean.getStepDuration());
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS
+                .toNanos(parseTimeSpan(pingTaskBean, "latency objective", bean.getMaxLatency()));
+        if (bean.getMax() < bean.getStart()) {
+            throw new DbpingParserException(String.format(
+                    "The saturation search maximum is lower than its start (task: '%s')", pingTaskBean.getName()));
+        }
+
+        this.logWriter = logWriter;
+        this.stepList = new CopyOnWriteArrayList<>();
+        this.growing = true;
+        this.refinementsLeft = bean.getRefinements();
+        this.current = createStep(normalize(bean.getStart()), originNanos);
+    }
+
+    /**
+     * Evaluates the step that has just finished and starts the next one, unless another worker already did it.
+     */
+    private synchronized void advance(final Step step) {
+
+        if (current != step) {
+            return;
+        }
+
+        // the slowest executions of the step are still running: they belong to its tail
+        final long deadline = step.endNanos + TimeUnit.MILLISECONDS.toNanos(stepDurationMillis);
+        while (step.inFlight.sum() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(DRAIN_POLL_NANOS);
+        }
+
+        evaluate(step);
+        final double next = nextLoad(step);
+        current = Double.isNaN(next) ? null : createStep(next, System.nanoTime());
+    }
+
+    @Override
+    int awaitStage(final int workerIndex) {
+
+        while (!Thread.currentThread().isInterrupted()) {
+            final Step step = current;
+            if (step == null) {
+                return -1;
+            }
+
+            final long now = System.nanoTime();
+            if (now - step.endNanos >= 0) {
+                advance(step);
+                continue;
+            }
+
+            if (workerIndex < step.threads) {
+                return step.index;
+            }
+
+            // idle until the next step
+            LockSupport.parkNanos(step.endNanos - now);
+        }
+        return -1;
+    }
+
+    private Step createStep(final double load, final long startNanos) {
+
+        final boolean threadMode = bean.getMode() == SearchMode.THREADS;
+        final Step step = new Step(stepList.size(), load,
+                String.format("%s=%s", threadMode ? "threads" : "rate", format(load)), //
+                threadMode ? (int) load : taskThreads, //
+                threadMode ? 0 : load, //
+                startNanos, startNanos + TimeUnit.MILLISECONDS.toNanos(stepDurationMillis));
+        stepList.add(step);
+
+        final long eventTime = System.currentTimeMillis()
+                - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        logWriter.write(new StageHeader(step.name, step.threads, step.targetRate, stepDurationMillis, eventTime));
+        return step;
+    }
+
+    @Override
+    void enter(final int stage) {
+        stepList.get(stage).inFlight.increment();
+    }
+
+    private void evaluate(final Step step) {
+
+        final HistogramSnapshot snapshot = step.histogram.snapshot();
+        final long operations = step.operations.sum();
+        final long errors = step.errors.sum();
+
+        step.throughput = (operations - errors) * NANOS_PER_SECOND / (step.endNanos - step.startNanos);
+        step.errorPercent = operations > 0 ? errors * 100.0 / operations : 0;
+        step.latency = snapshot.getValueAtPercentile(bean.getPercentile());
+        step.passed = snapshot.getCount() > 0 && step.latency <= maxLatencyNanos
+                && step.errorPercent <= bean.getMaxErrorPercent();
+        step.evaluated = true;
+    }
+
+    @Override
+    void exit(final int stage) {
+        stepList.get(stage).inFlight.decrement();
+    }
+
+    @Override
+    long getEndNanos(final int stage) {
+        return stepList.get(stage).endNanos;
+    }
+
+    @Override
+    String getName(final int stage) {
+        return stepList.get(stage).name;
+    }
+
+    @Override
+    long getStartNanos(final int stage) {
+        return stepList.get(stage).startNanos;
+    }
+
+    @Override
+    double getTargetRate(final int stage) {
+        return stepList.get(stage).targetRate;
+    }
+
+    @Override
+    int getThreads(final int stage) {
+        return stepList.get(stage).threads;
+    }
+
+    private double grow(final double load) {
+
+        final double next = bean.getStep() > 0 ? load + bean.getStep() : load * bean.getFactor();
+        final double minimumStep = bean.getMode() == SearchMode.THREADS ? 1 : 0.1;
+        return normalize(Math.max(next, load + minimumStep));
+    }
+
+    /**
+     * Decides the load of the next step.
+     *
+     * @return the load or NaN when the search is over
+     */
+    private double nextLoad(final Step step) {
+
+        if (growing) {
+            if (step.passed) {
+                lastPass = step;
+                if (step.load >= bean.getMax()) {
+                    return Double.NaN;
+                }
+                return Math.min(grow(step.load), normalize(bean.getMax()));
+            }
+
+            growing = false;
+            firstFail = step;
+        } else {
+            if (step.passed) {
+                lastPass = step;
+            } else {
+                firstFail = step;
+            }
+            refinementsLeft--;
+        }
+
+        if (lastPass == null || refinementsLeft <= 0) {
+            return Double.NaN;
+        }
+
+        final double middle = normalize((lastPass.load + firstFail.load) / 2);
+        if (middle <= lastPass.load || middle >= firstFail.load) {
+            return Double.NaN;
+        }
+        return middle;
+    }
+
+    /**
+     * Rounds a load to the granularity of the search mode: whole workers or a tenth of execution per second.
+     */
+    private double normalize(final double load) {
+
+        if (bean.getMode() == SearchMode.THREADS) {
+            return Math.max(1, Math.floor(load));
+        }
+        return Math.max(0.1, Math.floor(load * 10) / 10);
+    }
+
+    /**
+     * Prints the throughput and latency of every evaluated step, sorted by load, and the knee point: the highest load
+     * that met the objective.
+     *
+     * @param out
+     *            the output stream
+     */
+    synchronized void print(final PrintStream out) {
+
+        final String percentileName = "p" + format(bean.getPercentile());
+        out.format("%n%nSaturation search (task: %s, mode: %s, objective: %s <= %.3f ms, errors <= %s%%)%n",
+                groupName, bean.getMode(), percentileName, maxLatencyNanos / NANOS_PER_MILLI,
+                format(bean.getMaxErrorPercent()));
+        out.format("%-20s %10s %12s %12s %10s %12s %8s%n", "step", "threads", "target-rate", "ops/s", "errors%",
+                percentileName + "(ms)", "result");
+
+        final List<Step> evaluatedList = new ArrayList<>();
+        for (final Step step : stepList) {
+            if (step.evaluated) {
+                evaluatedList.add(step);
+            }
+        }
+        Collections.sort(evaluatedList, new Comparator<Step>() {
+
+            @Override
+            public int compare(final Step o1, final Step o2) {
+                return Double.compare(o1.load, o2.load);
+            }
+        });
+
+        for (final Step step : evaluatedList) {
+            out.format("%-20s %10d %12s %12.1f %10.2f %12.3f %8s%n", step.name, step.threads,
+                    step.targetRate > 0 ? format(step.targetRate) : "-", step.throughput, step.errorPercent,
+                    step.latency / NANOS_PER_MILLI, step.passed ? "ok" : "VIOLATED");
+        }
+
+        if (lastPass == null && firstFail == null) {
+            out.format("Knee point: not found, no step was completed%n");
+        } else if (lastPass == null) {
+            out.format("Knee point: not found, the first step already violates the objective%n");
+        } else {
+            out.format("Knee point: %s (%.1f ops/s, %s %.3f ms)%s%n", lastPass.name, lastPass.throughput,
+                    percentileName, lastPass.latency / NANOS_PER_MILLI,
+                    firstFail == null ? ", the objective wasn't violated up to the maximum load" : "");
+        }
+    }
+
+    @Override
+    void record(final int stage, final LogEntry logEntry) {
+
+        if (logEntry.isWarmUp()) {
+            return;
+        }
+
+        final Step step = stepList.get(stage);
+        step.operations.increment();
+        if (logEntry.getException() != null) {
+            step.errors.increment();
+        } else if (logEntry.getTotalTime() >= 0) {
+            step.histogram.record(logEntry.getTotalTime());
+        }
+    }
+}
@@ -16,7 +16,7 @@
 package com.dattack.dbtools.ping;
 
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.dattack.dbtools.ping.beans.SqlCommandBean;
 
@@ -29,11 +29,6 @@ import com.dattack.dbtools.ping.beans.SqlCommandBean;
 public class SqlCommandRandomProvider implements SqlCommandProvider {
 
     private List<SqlCommandBean> sentenceList;
-    private final Random randomGenerator;
-
-    public SqlCommandRandomProvider() {
-        randomGenerator = new Random();
-    }
 
     @Override
     public SqlCommandBean nextSql() {
@@ -42,7 +37,7 @@ public class SqlCommandRandomProvider implements SqlCommandProvider {
             throw new IllegalArgumentException("The sentence list must not be null or empty");
         }
 
-        final int index = randomGenerator.nextInt(sentenceList.size());
+        final int index = ThreadLocalRandom.current().nextInt(sentenceList.size());
         return sentenceList.get(index);
     }
 
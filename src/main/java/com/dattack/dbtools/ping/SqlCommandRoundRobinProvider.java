@@ -16,11 +16,13 @@
 package com.dattack.dbtools.ping;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dattack.dbtools.ping.beans.SqlCommandBean;
 
 /**
- * Implements the round-robin strategy for SQL-sentence selection.
+ * Implements the round-robin strategy for SQL-sentence selection. The position is kept in an atomic counter, so the
+ * workers never block each other.
  *
  * @author cvarela
  * @since 0.1
@@ -28,24 +30,21 @@ import com.dattack.dbtools.ping.beans.SqlCommandBean;
 public class SqlCommandRoundRobinProvider implements SqlCommandProvider {
 
     private List<SqlCommandBean> sentenceList;
-    private int index;
+    private final AtomicLong counter;
 
     public SqlCommandRoundRobinProvider() {
-        index = 0;
+        counter = new AtomicLong();
     }
 
     @Override
-    public synchronized SqlCommandBean nextSql() {
+    public SqlCommandBean nextSql() {
 
         if (sentenceList == null || sentenceList.isEmpty()) {
             throw new IllegalArgumentException("The sentence list must not be null or empty");
         }
 
-        final SqlCommandBean sqlSentence = sentenceList.get(index++);
-        if (index >= sentenceList.size()) {
-            index = 0;
-        }
-        return sqlSentence;
+        final long index = (counter.getAndIncrement() & Long.MAX_VALUE) % sentenceList.size();
+        return sentenceList.get((int) index);
     }
 
     @Override
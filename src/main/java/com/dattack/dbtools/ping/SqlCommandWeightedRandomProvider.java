@@ -15,13 +15,18 @@
  */
 package com.dattack.dbtools.ping;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.dattack.dbtools.ping.beans.SqlCommandBean;
 
 /**
- * Selects a query from the provided list using a weighted randon selection algorithm.
+ * Selects a query from the provided list using a weighted randon selection algorithm. It uses the alias method (Vose's
+ * variant): the tables are built once and each selection needs two random numbers and constant time, whatever the
+ * number of queries. The random numbers are taken from {@link ThreadLocalRandom} so the workers don't share any
+ * mutable state.
  *
  * @author cvarela
  * @since 0.1
@@ -29,36 +34,65 @@ import com.dattack.dbtools.ping.beans.SqlCommandBean;
 public class SqlCommandWeightedRandomProvider implements SqlCommandProvider {
 
     private List<SqlCommandBean> sentenceList;
-    private final Random randomGenerator;
-    private float[] cumulativeWeight;
+    private double[] probability;
+    private int[] alias;
 
-    private static float norm(final float weight, final float sumWeight) {
-        return weight / sumWeight;
-    }
-
-    public SqlCommandWeightedRandomProvider() {
-        this.randomGenerator = new Random();
-    }
+    // builds the probability and alias tables
+    private void buildAliasTables() {
 
-    // the cumulative density function
-    private float[] cdf() {
+        final int size = sentenceList.size();
 
-        float totalWeight = 0;
+        double totalWeight = 0;
         for (final SqlCommandBean sentence : sentenceList) {
-            totalWeight += sentence.getWeight();
+            totalWeight += Math.max(0, sentence.getWeight());
+        }
+
+        // scaled probabilities: the mean value is 1
+        final double[] scaled = new double[size];
+        for (int i = 0; i < size; i++) {
+            if (totalWeight > 0) {
+                scaled[i] = Math.max(0, sentenceList.get(i).getWeight()) * size / totalWeight;
+            } else {
+                // no weights: all the sentences are equally likely
+                scaled[i] = 1;
+            }
+        }
+
+        final Deque<Integer> small = new ArrayDeque<>();
+        final Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            if (scaled[i] < 1) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
         }
 
-        final float[] cdfValues = new float[sentenceList.size()];
-        for (int i = 0; i < cdfValues.length; i++) {
-            final float normWeight = norm(sentenceList.get(i).getWeight(), totalWeight);
-            if (i == 0) {
-                cdfValues[i] = normWeight;
+        probability = new double[size];
+        alias = new int[size];
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            final int less = small.pop();
+            final int more = large.pop();
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small.push(more);
             } else {
-                cdfValues[i] = cdfValues[i - 1] + normWeight;
+                large.push(more);
             }
         }
 
-        return cdfValues;
+        // the remaining entries are full columns (or rounding errors)
+        while (!large.isEmpty()) {
+            probability[large.pop()] = 1;
+        }
+        while (!small.isEmpty()) {
+            probability[small.pop()] = 1;
+        }
     }
 
     @Override
@@ -68,18 +102,19 @@ public class SqlCommandWeightedRandomProvider implements SqlCommandProvider {
             throw new IllegalArgumentException("The sentence list must not be null or empty");
         }
 
-        final float randomWeight = randomGenerator.nextFloat();
-        for (int i = 0; i < cumulativeWeight.length; i++) {
-            if (cumulativeWeight[i] > randomWeight) {
-                return sentenceList.get(i);
-            }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int column = random.nextInt(probability.length);
+        if (random.nextDouble() < probability[column]) {
+            return sentenceList.get(column);
         }
-        return sentenceList.get(sentenceList.size() - 1);
+        return sentenceList.get(alias[column]);
     }
 
     @Override
     public void setSentences(final List<SqlCommandBean> sqlList) {
         this.sentenceList = sqlList;
-        this.cumulativeWeight = cdf();
+        if (sqlList != null && !sqlList.isEmpty()) {
+            buildAliasTables();
+        }
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+/**
+ * A sequence of stages shared by all the workers of a task. Each stage defines the number of active workers and,
+ * optionally, the target rate of the task. The workers ask the timeline which stage is active before every iteration.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+abstract class StageTimeline {
+
+    /**
+     * Waits until the worker must run and returns the active stage.
+     *
+     * @param workerIndex
+     *            the index of the worker
+     * @return the index of the active stage or -1 when the timeline is over
+     */
+    abstract int awaitStage(int workerIndex);
+
+    /**
+     * Marks the start of an execution of a stage.
+     *
+     * @param stage
+     *            the index of the stage
+     */
+    void enter(final int stage) {
+        // nothing to track by default
+    }
+
+    /**
+     * Marks the end of an execution of a stage.
+     *
+     * @param stage
+     *            the index of the stage
+     */
+    void exit(final int stage) {
+        // nothing to track by default
+    }
+
+    abstract long getEndNanos(int stage);
+
+    abstract String getName(int stage);
+
+    abstract long getStartNanos(int stage);
+
+    abstract double getTargetRate(int stage);
+
+    abstract int getThreads(int stage);
+
+    /**
+     * Records a finished execution of a stage.
+     *
+     * @param stage
+     *            the index of the stage
+     * @param logEntry
+     *            the execution
+     */
+    void record(final int stage, final LogEntry logEntry) {
+        // nothing to track by default
+    }
+}
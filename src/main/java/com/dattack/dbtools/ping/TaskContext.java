@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.beans.SqlBatchBean;
+import com.dattack.dbtools.ping.beans.SqlCommandBean;
+import com.dattack.dbtools.ping.beans.SqlCommandVisitor;
+import com.dattack.dbtools.ping.beans.SqlScriptBean;
+import com.dattack.dbtools.ping.beans.SqlStatementBean;
+import com.dattack.dbtools.ping.log.LogWriter;
+import com.dattack.dbtools.ping.parameters.ParameterGenerator;
+import com.dattack.dbtools.ping.thinktime.ThinkTime;
+import com.dattack.jtoolbox.util.TimeUtils;
+
+/**
+ * The objects shared by all the workers of a task that run against the same datasource.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class TaskContext {
+
+    private final PingTaskBean pingTaskBean;
+    private final SqlCommandProvider sentenceProvider;
+    private final LogWriter logWriter;
+    private final TaskMetrics taskMetrics;
+    private final Map<String, ParameterGenerator> parameterGeneratorMap;
+    private final ThinkTime thinkTime;
+    private final String datasourceName;
+    private final long warmUpNanos;
+    private final RateLimiter taskRateLimiter;
+    private final Map<SqlCommandBean, RateLimiter> commandRateLimiterMap;
+    private final ChecksumVerifier checksumVerifier;
+    private final QueryWatchdog watchdog;
+    private final long queryTimeoutNanos;
+    private final Map<SqlCommandBean, Long> commandTimeoutMap;
+
+    TaskContext(final PingTaskBean pingTaskBean, final SqlCommandProvider sentenceProvider,
+            final LogWriter logWriter, final TaskMetrics taskMetrics,
+            final Map<String, ParameterGenerator> parameterGeneratorMap, final ThinkTime thinkTime,
+            final String datasourceName, final ChecksumVerifier checksumVerifier, final QueryWatchdog watchdog,
+            final RateLimiter taskRateLimiter, final Map<SqlCommandBean, RateLimiter> commandRateLimiterMap)
+            throws DbpingParserException {
+
+        this.pingTaskBean = pingTaskBean;
+        this.sentenceProvider = sentenceProvider;
+        this.logWriter = logWriter;
+        this.taskMetrics = taskMetrics;
+        this.parameterGeneratorMap = parameterGeneratorMap;
+        this.thinkTime = thinkTime;
+        this.datasourceName = datasourceName;
+        this.warmUpNanos = parseTimeSpan(pingTaskBean, "warm-up time", pingTaskBean.getWarmUpTime());
+        this.taskRateLimiter = taskRateLimiter;
+        this.commandRateLimiterMap = commandRateLimiterMap;
+        this.checksumVerifier = checksumVerifier;
+        this.watchdog = watchdog;
+        this.queryTimeoutNanos = parseTimeSpan(pingTaskBean, "query timeout", pingTaskBean.getQueryTimeout());
+        this.commandTimeoutMap = createCommandTimeouts(pingTaskBean);
+        checkParameters();
+    }
+
+    /**
+     * Creates the limiters of the commands that define a maximum rate. They must be shared by all the datasources of
+     * the task. The rate and the burst are split evenly among the processes that run the task.
+     *
+     * @param pingTaskBean
+     *            the task definition
+     * @param processes
+     *            the number of processes that run the task: the workers of a coordinator or 1
+     * @return the limiters, by command
+     */
+    static Map<SqlCommandBean, RateLimiter> createCommandRateLimiters(final PingTaskBean pingTaskBean,
+            final int processes) {
+
+        final Map<SqlCommandBean, RateLimiter> map = new IdentityHashMap<>();
+        for (final SqlCommandBean command : pingTaskBean.getSqlStatementList()) {
+            if (command.getMaxRate() > 0) {
+                map.put(command, new RateLimiter(command.getMaxRate() / processes,
+                        Math.max(1, pingTaskBean.getMaxBurst() / processes)));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Creates the limiter of the task, if it defines a maximum rate. It must be shared by all the datasources of the
+     * task. The rate and the burst are split evenly among the processes that run the task.
+     *
+     * @param pingTaskBean
+     *            the task definition
+     * @param processes
+     *            the number of processes that run the task: the workers of a coordinator or 1
+     * @return the limiter or <code>null</code> if the task has no maximum rate
+     */
+    static RateLimiter createTaskRateLimiter(final PingTaskBean pingTaskBean, final int processes) {
+
+        if (pingTaskBean.getMaxRate() <= 0) {
+            return null;
+        }
+        return new RateLimiter(pingTaskBean.getMaxRate() / processes,
+                Math.max(1, pingTaskBean.getMaxBurst() / processes));
+    }
+
+    /**
+     * Parses the timeouts of the statements that define their own one.
+     */
+    private static Map<SqlCommandBean, Long> createCommandTimeouts(final PingTaskBean pingTaskBean)
+            throws DbpingParserException {
+
+        final List<SqlStatementBean> statementList = new ArrayList<>();
+        final SqlCommandVisitor visitor = new SqlCommandVisitor() {
+
+            @Override
+            public void visite(final SqlBatchBean command) {
+                // uses the timeout of the task
+            }
+
+            @Override
+            public void visite(final SqlScriptBean command) {
+                for (final SqlStatementBean item : command.getStatementList()) {
+                    item.accept(this);
+                }
+            }
+
+            @Override
+            public void visite(final SqlStatementBean command) {
+                if (StringUtils.isNotBlank(command.getTimeout())) {
+                    statementList.add(command);
+                }
+            }
+        };
+
+        for (final SqlCommandBean command : pingTaskBean.getSqlStatementList()) {
+            command.accept(visitor);
+        }
+
+        final Map<SqlCommandBean, Long> map = new IdentityHashMap<>();
+        for (final SqlStatementBean command : statementList) {
+            map.put(command, parseTimeSpan(pingTaskBean, "timeout of '" + command.getLabel() + "'",
+                    command.getTimeout()));
+        }
+        return map;
+    }
+
+    private static long parseTimeSpan(final PingTaskBean pingTaskBean, final String name, final String value)
+            throws DbpingParserException {
+
+        if (StringUtils.isBlank(value)) {
+            return 0;
+        }
+
+        Long millis = null;
+        try {
+            millis = TimeUtils.parseTimeSpanMillis(value);
+        } catch (final IllegalArgumentException e) {
+            // handled below
+        }
+
+        if (millis == null || millis < 0) {
+            throw new DbpingParserException(String.format("Invalid %s '%s' (task: '%s')", name, value,
+                    pingTaskBean.getName()));
+        }
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Checks that every parameter used by the statements of the task has a generator.
+     */
+    private void checkParameters() throws DbpingParserException {
+
+        final Set<String> unknownSet = new TreeSet<>();
+        final SqlCommandVisitor visitor = new SqlCommandVisitor() {
+
+            private void check(final List<String> parameterList) {
+                for (final String name : parameterList) {
+                    if (!parameterGeneratorMap.containsKey(name)) {
+                        unknownSet.add(name);
+                    }
+                }
+            }
+
+            @Override
+            public void visite(final SqlBatchBean command) {
+                check(command.getParameterList());
+            }
+
+            @Override
+            public void visite(final SqlScriptBean command) {
+                for (final SqlStatementBean item : command.getStatementList()) {
+                    item.accept(this);
+                }
+            }
+
+            @Override
+            public void visite(final SqlStatementBean command) {
+                check(command.getParameterList());
+            }
+        };
+
+        for (final SqlCommandBean command : pingTaskBean.getSqlStatementList()) {
+            command.accept(visitor);
+        }
+
+        if (!unknownSet.isEmpty()) {
+            throw new DbpingParserException(String.format("Unknown parameter %s (task: '%s')", unknownSet,
+                    pingTaskBean.getName()));
+        }
+    }
+
+    /**
+     * @return the verifier of the result checksums, shared by all the datasources of the task
+     */
+    ChecksumVerifier getChecksumVerifier() {
+        return checksumVerifier;
+    }
+
+    /**
+     * @return the JNDI name of the datasource used by the workers
+     */
+    String getDatasourceName() {
+        return datasourceName;
+    }
+
+    LogWriter getLogWriter() {
+        return logWriter;
+    }
+
+    /**
+     * Returns the generator of a parameter. The parameters used by the statements are checked when the context is
+     * created.
+     *
+     * @param name
+     *            the name of the parameter
+     * @return the generator
+     */
+    ParameterGenerator getParameterGenerator(final String name) {
+        return parameterGeneratorMap.get(name);
+    }
+
+    PingTaskBean getPingTaskBean() {
+        return pingTaskBean;
+    }
+
+    SqlCommandProvider getSentenceProvider() {
+        return sentenceProvider;
+    }
+
+    TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    ThinkTime getThinkTime() {
+        return thinkTime;
+    }
+
+    /**
+     * Waits, if needed, to keep the task and the command under their maximum rates. The limits are shared by all the
+     * workers of the task that run against the same datasource.
+     *
+     * @param command
+     *            the command about to be executed
+     * @return the time spent waiting (nanoseconds)
+     */
+    long throttle(final SqlCommandBean command) {
+
+        long waited = 0;
+        if (taskRateLimiter != null) {
+            waited += taskRateLimiter.acquire();
+        }
+
+        final RateLimiter commandRateLimiter = commandRateLimiterMap.get(command);
+        if (commandRateLimiter != null) {
+            waited += commandRateLimiter.acquire();
+        }
+        return waited;
+    }
+
+    /**
+     * Returns the time after which an execution of a command is cancelled: its own timeout or the query timeout of
+     * the task.
+     *
+     * @param command
+     *            the command
+     * @return the timeout (nanoseconds) or zero if there is no timeout
+     */
+    long getTimeoutNanos(final SqlCommandBean command) {
+
+        final Long timeout = commandTimeoutMap.get(command);
+        if (timeout != null) {
+            return timeout;
+        }
+        return queryTimeoutNanos;
+    }
+
+    /**
+     * @return the watchdog that cancels the executions that exceed their timeout
+     */
+    QueryWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * Returns the warm-up time of each worker.
+     *
+     * @return the warm-up time (nanoseconds)
+     */
+    long getWarmUpNanos() {
+        return warmUpNanos;
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.dbtools.metrics.StripedCounter;
+import com.dattack.dbtools.metrics.ThroughputMeter;
+
+/**
+ * In-memory metrics of a task: counters, throughput and a latency histogram for each SQL label. All the workers of
+ * the task record their executions concurrently without locking. The current throughput, and the task latencies
+ * merged from the histograms of the labels, are updated by a periodic {@link #sample(long)} from a reporting thread.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class TaskMetrics implements TaskMetricsMXBean {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final String taskName;
+    private final ConcurrentMap<String, LabelMetrics> labelMetricsMap;
+    private final StripedCounter operations;
+    private final StripedCounter errors;
+    private final StripedCounter checksumMismatches;
+    private final StripedCounter timeouts;
+    private final StripedCounter cancelTime;
+    private final StripedCounter inFlight;
+    private final StripedCounter throttled;
+    private final StripedCounter throttleTime;
+    private final ThroughputMeter throughputMeter;
+
+    // the latencies of all the labels served to the JMX clients, refreshed by each sample
+    private volatile HistogramSnapshot latencySnapshot;
+
+    private static double toMillis(final long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    TaskMetrics(final String taskName) {
+        this.taskName = taskName;
+        this.labelMetricsMap = new ConcurrentHashMap<>();
+        this.operations = new StripedCounter();
+        this.errors = new StripedCounter();
+        this.checksumMismatches = new StripedCounter();
+        this.timeouts = new StripedCounter();
+        this.cancelTime = new StripedCounter();
+        this.inFlight = new StripedCounter();
+        this.throttled = new StripedCounter();
+        this.throttleTime = new StripedCounter();
+        this.throughputMeter = new ThroughputMeter(System.nanoTime());
+        this.latencySnapshot = new LatencyHistogram().snapshot();
+    }
+
+    /**
+     * Marks the start of an execution.
+     */
+    void enter() {
+        inFlight.increment();
+    }
+
+    /**
+     * Marks the end of an execution.
+     */
+    void exit() {
+        inFlight.decrement();
+    }
+
+    @Override
+    public double getCancelTime() {
+        return toMillis(cancelTime.sum());
+    }
+
+    @Override
+    public long getChecksumMismatches() {
+        return checksumMismatches.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    private LabelMetrics getLabelMetrics(final String sqlLabel) {
+
+        final String key = StringUtils.trimToEmpty(sqlLabel);
+        LabelMetrics labelMetrics = labelMetricsMap.get(key);
+        if (labelMetrics == null) {
+            final LabelMetrics newLabelMetrics = new LabelMetrics();
+            labelMetrics = labelMetricsMap.putIfAbsent(key, newLabelMetrics);
+            if (labelMetrics == null) {
+                labelMetrics = newLabelMetrics;
+            }
+        }
+        return labelMetrics;
+    }
+
+    /**
+     * Returns the histogram of the time spent in each call to <code>ResultSet.next()</code> by the executions of a
+     * label.
+     *
+     * @param sqlLabel
+     *            the label
+     * @return the histogram (nanoseconds)
+     */
+    LatencyHistogram getRowGapHistogram(final String sqlLabel) {
+        return getLabelMetrics(sqlLabel).getRowGapHistogram();
+    }
+
+    /**
+     * @return the metrics of each label, sorted by label
+     */
+    Map<String, LabelMetrics> getLabelMetricsMap() {
+        return new TreeMap<>(labelMetricsMap);
+    }
+
+    @Override
+    public String[] getLabels() {
+        return getLabelMetricsMap().keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public double getMaxLatency() {
+        return toMillis(latencySnapshot.getMax());
+    }
+
+    @Override
+    public long getOperations() {
+        return operations.sum();
+    }
+
+    @Override
+    public double getP50Latency() {
+        return toMillis(latencySnapshot.getValueAtPercentile(50));
+    }
+
+    @Override
+    public double getP95Latency() {
+        return toMillis(latencySnapshot.getValueAtPercentile(95));
+    }
+
+    @Override
+    public double getP99Latency() {
+        return toMillis(latencySnapshot.getValueAtPercentile(99));
+    }
+
+    @Override
+    public double getPeakThroughput() {
+        return throughputMeter.getPeak();
+    }
+
+    @Override
+    public String getTaskName() {
+        return taskName;
+    }
+
+    @Override
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    @Override
+    public double getThrottleTime() {
+        return toMillis(throttleTime.sum());
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public double getThroughput() {
+        return throughputMeter.getCurrent();
+    }
+
+    /**
+     * Prints the latency distribution and the throughput (rows per second of query time) of each label.
+     *
+     * @param out
+     *            the output stream
+     */
+    void print(final PrintStream out) {
+
+        out.format("%n%nLatency histograms (task: %s, unit: ms)%n", taskName);
+        out.format("%-30s %10s %10s %10s %10s %10s %10s %10s %10s %10s %12s%n", "label", "count", "errors", "min",
+                "mean", "p50", "p90", "p99", "p99.9", "max", "rows/s");
+
+        for (final Map.Entry<String, LabelMetrics> entry : getLabelMetricsMap().entrySet()) {
+            final HistogramSnapshot snapshot = entry.getValue().snapshot();
+            out.format("%-30s %10d %10d %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f %12.1f%n", entry.getKey(),
+                    snapshot.getCount(), //
+                    entry.getValue().getErrors(), //
+                    toMillis(snapshot.getMin()), //
+                    snapshot.getMean() / NANOS_PER_MILLI, //
+                    toMillis(snapshot.getValueAtPercentile(50)), //
+                    toMillis(snapshot.getValueAtPercentile(90)), //
+                    toMillis(snapshot.getValueAtPercentile(99)), //
+                    toMillis(snapshot.getValueAtPercentile(99.9)), //
+                    toMillis(snapshot.getMax()), //
+                    entry.getValue().getRowsPerSecond());
+        }
+
+        printBreakdown(out);
+        printRowGaps(out);
+
+        if (timeouts.sum() > 0) {
+            out.format("Timeouts: %d (mean cancel latency: %.3f ms)%n", timeouts.sum(),
+                    getCancelTime() / timeouts.sum());
+        }
+        if (checksumMismatches.sum() > 0) {
+            out.format("Checksum mismatches: %d%n", checksumMismatches.sum());
+        }
+        if (throttled.sum() > 0) {
+            out.format("Throttled executions: %d (total wait: %.3f ms)%n", throttled.sum(), getThrottleTime());
+        }
+    }
+
+    /**
+     * Prints the mean time of each phase of the successful executions: the server execution, the fetch of the rows
+     * and the close of the result set.
+     */
+    private void printBreakdown(final PrintStream out) {
+
+        out.format("%nLatency breakdown (task: %s, unit: ms)%n", taskName);
+        out.format("%-30s %10s %10s %10s %10s %12s%n", "label", "count", "execute", "fetch", "close",
+                "round trips");
+
+        for (final Map.Entry<String, LabelMetrics> entry : getLabelMetricsMap().entrySet()) {
+            final LabelMetrics labelMetrics = entry.getValue();
+            final long count = labelMetrics.getPhasedOperations();
+            if (count == 0) {
+                continue;
+            }
+            out.format("%-30s %10d %10.3f %10.3f %10.3f %12.1f%n", entry.getKey(), count, //
+                    toMillis(labelMetrics.getExecuteTime()) / count, //
+                    toMillis(labelMetrics.getFetchTime()) / count, //
+                    toMillis(labelMetrics.getCloseTime()) / count, //
+                    (double) labelMetrics.getFetchRoundTrips() / count);
+        }
+    }
+
+    /**
+     * Prints the distribution of the time spent in each call to <code>ResultSet.next()</code>, when it is recorded.
+     */
+    private void printRowGaps(final PrintStream out) {
+
+        boolean header = false;
+        for (final Map.Entry<String, LabelMetrics> entry : getLabelMetricsMap().entrySet()) {
+            final HistogramSnapshot snapshot = entry.getValue().getRowGapSnapshot();
+            if (snapshot == null) {
+                continue;
+            }
+
+            if (!header) {
+                out.format("%nRow gaps (task: %s, unit: us)%n", taskName);
+                out.format("%-30s %12s %10s %10s %10s %10s %10s%n", "label", "calls", "mean", "p50", "p99", "p99.9",
+                        "max");
+                header = true;
+            }
+            out.format("%-30s %12d %10.1f %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), snapshot.getCount(), //
+                    snapshot.getMean() / NANOS_PER_MICRO, //
+                    snapshot.getValueAtPercentile(50) / NANOS_PER_MICRO, //
+                    snapshot.getValueAtPercentile(99) / NANOS_PER_MICRO, //
+                    snapshot.getValueAtPercentile(99.9) / NANOS_PER_MICRO, //
+                    snapshot.getMax() / NANOS_PER_MICRO);
+        }
+    }
+
+    /**
+     * Records a finished execution. Only the successful and the timed-out executions are added to the latency
+     * histograms; the warm-up executions are ignored.
+     *
+     * @param logEntry
+     *            the execution to record
+     */
+    void record(final LogEntry logEntry) {
+
+        if (logEntry.isWarmUp()) {
+            return;
+        }
+
+        operations.increment();
+        if (logEntry.getException() != null) {
+            errors.increment();
+        }
+        if (logEntry.isTimedOut()) {
+            timeouts.increment();
+            if (logEntry.getCancelTime() >= 0) {
+                cancelTime.add(logEntry.getCancelTime());
+            }
+        }
+        if (logEntry.isChecksumMismatch()) {
+            checksumMismatches.increment();
+        }
+        getLabelMetrics(logEntry.getSqlLabel()).record(logEntry);
+    }
+
+    /**
+     * Records an execution delayed by a rate limit.
+     *
+     * @param nanos
+     *            the time spent waiting (nanoseconds)
+     */
+    void recordThrottle(final long nanos) {
+        throttled.increment();
+        throttleTime.add(nanos);
+    }
+
+    /**
+     * Updates the current and peak throughput of the task and its labels, and the latencies of the task from the
+     * snapshots taken for the labels.
+     *
+     * @param nowNanos
+     *            the current time, as returned by {@link System#nanoTime()}
+     */
+    void sample(final long nowNanos) {
+
+        throughputMeter.sample(operations.sum(), nowNanos);
+        final LatencyHistogram merged = new LatencyHistogram();
+        for (final LabelMetrics labelMetrics : labelMetricsMap.values()) {
+            labelMetrics.sample(nowNanos);
+            merged.add(labelMetrics.getLatencySnapshot());
+        }
+        latencySnapshot = merged.snapshot();
+    }
+
+    /**
+     * Returns a copy of the histograms, sorted by label.
+     *
+     * @return the histogram of each label
+     */
+    Map<String, HistogramSnapshot> snapshot() {
+
+        final Map<String, HistogramSnapshot> map = new TreeMap<>();
+        for (final Map.Entry<String, LabelMetrics> entry : labelMetricsMap.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+/**
+ * Live metrics of a running task, published through JMX.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public interface TaskMetricsMXBean {
+
+    /**
+     * @return the total time elapsed since the cancel requests of the timed-out executions until their workers got the
+     *         control back (milliseconds)
+     */
+    double getCancelTime();
+
+    /**
+     * @return the number of executions whose result checksum doesn't match the expected one
+     */
+    long getChecksumMismatches();
+
+    /**
+     * @return the number of failed executions
+     */
+    long getErrors();
+
+    /**
+     * @return the number of executions in progress
+     */
+    long getInFlight();
+
+    /**
+     * @return the SQL labels executed so far
+     */
+    String[] getLabels();
+
+    /**
+     * @return the maximum latency of the successful executions of all the labels (milliseconds)
+     */
+    double getMaxLatency();
+
+    /**
+     * @return the number of finished executions, successful or not
+     */
+    long getOperations();
+
+    /**
+     * @return the median latency of the successful executions of all the labels (milliseconds)
+     */
+    double getP50Latency();
+
+    /**
+     * @return the 95th percentile of the latency of the successful executions of all the labels (milliseconds)
+     */
+    double getP95Latency();
+
+    /**
+     * @return the 99th percentile of the latency of the successful executions of all the labels (milliseconds)
+     */
+    double getP99Latency();
+
+    /**
+     * @return the highest throughput of any sampling interval (executions per second)
+     */
+    double getPeakThroughput();
+
+    /**
+     * @return the name of the task
+     */
+    String getTaskName();
+
+    /**
+     * @return the number of executions delayed by a rate limit
+     */
+    long getThrottled();
+
+    /**
+     * @return the total time spent waiting for the rate limits (milliseconds)
+     */
+    double getThrottleTime();
+
+    /**
+     * @return the number of executions cancelled because of their timeout
+     */
+    long getTimeouts();
+
+    /**
+     * @return the throughput of the last sampling interval (executions per second)
+     */
+    double getThroughput();
+}
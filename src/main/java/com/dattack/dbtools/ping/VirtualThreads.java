@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates virtual threads when the running JVM supports them (Java 21+). The project is compiled for an older target,
+ * so the <code>Thread.ofVirtual()</code> API is accessed by reflection.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class VirtualThreads {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final Method OF_VIRTUAL_METHOD;
+    private static final Method NAME_METHOD;
+    private static final Method UNSTARTED_METHOD;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method unstarted = null;
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderClass.getMethod("name", String.class);
+            unstarted = builderClass.getMethod("unstarted", Runnable.class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            LOGGER.debug("Virtual threads are not supported by this JVM: {}", e.getMessage());
+            ofVirtual = null;
+        }
+        OF_VIRTUAL_METHOD = ofVirtual;
+        NAME_METHOD = name;
+        UNSTARTED_METHOD = unstarted;
+    }
+
+    /**
+     * Checks if the current JVM is able to create virtual threads.
+     *
+     * @return <code>true</code> if virtual threads are available
+     */
+    static boolean isSupported() {
+        return OF_VIRTUAL_METHOD != null;
+    }
+
+    /**
+     * Creates a new unstarted virtual thread.
+     *
+     * @param task
+     *            the task to execute
+     * @param threadName
+     *            the name of the thread
+     * @return the new thread or <code>null</code> if virtual threads are not available
+     */
+    static Thread newThread(final Runnable task, final String threadName) {
+
+        if (!isSupported()) {
+            return null;
+        }
+
+        try {
+            final Object builder = NAME_METHOD.invoke(OF_VIRTUAL_METHOD.invoke(null), threadName);
+            return (Thread) UNSTARTED_METHOD.invoke(builder, task);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            LOGGER.warn("Unable to create a virtual thread: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private VirtualThreads() {
+        // static class
+    }
+}
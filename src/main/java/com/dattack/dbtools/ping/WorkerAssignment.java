@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The work that a coordinator sends to each worker process: the content of the task definition files, the tasks to
+ * execute, the number of workers that share them and the wall-clock time at which all the workers start.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class WorkerAssignment {
+
+    private static final int MAX_FILES = 10000;
+    private static final int MAX_FILE_LENGTH = 64 * 1024 * 1024;
+    private static final int MAX_TASKS = 10000;
+
+    private final int workerIndex;
+    private final int workers;
+    private final long startTimeMillis;
+    private final LinkedHashMap<String, byte[]> fileMap;
+    private final HashSet<String> taskNames;
+
+    /**
+     * Reads an assignment written by {@link #write(DataOutput)}.
+     *
+     * @param in
+     *            the input
+     * @return the assignment
+     * @throws IOException
+     *             if the assignment can't be read or its content is not valid
+     */
+    static WorkerAssignment read(final DataInput in) throws IOException {
+
+        final int workerIndex = in.readInt();
+        final int workers = in.readInt();
+        if (workers <= 0 || workerIndex < 0 || workerIndex >= workers) {
+            throw new IOException(String.format("Invalid worker index: %d (workers: %d)", workerIndex, workers));
+        }
+        final long startTimeMillis = in.readLong();
+
+        final int files = WorkerProtocol.readLength(in, MAX_FILES, "number of files");
+        final Map<String, byte[]> fileMap = new LinkedHashMap<>();
+        for (int i = 0; i < files; i++) {
+            final String path = in.readUTF();
+            final byte[] content = new byte[WorkerProtocol.readLength(in, MAX_FILE_LENGTH, "file length")];
+            in.readFully(content);
+            fileMap.put(path, content);
+        }
+
+        Set<String> taskNames = null;
+        if (in.readBoolean()) {
+            final int tasks = WorkerProtocol.readLength(in, MAX_TASKS, "number of tasks");
+            taskNames = new HashSet<>();
+            for (int i = 0; i < tasks; i++) {
+                taskNames.add(in.readUTF());
+            }
+        }
+        return new WorkerAssignment(workerIndex, workers, startTimeMillis, fileMap, taskNames);
+    }
+
+    WorkerAssignment(final int workerIndex, final int workers, final long startTimeMillis,
+            final Map<String, byte[]> fileMap, final Set<String> taskNames) {
+        this.workerIndex = workerIndex;
+        this.workers = workers;
+        this.startTimeMillis = startTimeMillis;
+        this.fileMap = new LinkedHashMap<>(fileMap);
+        this.taskNames = taskNames == null ? null : new HashSet<>(taskNames);
+    }
+
+    /**
+     * @return the content of each task definition file, by canonical path
+     */
+    Map<String, byte[]> getFileMap() {
+        return fileMap;
+    }
+
+    /**
+     * @return the wall-clock start time (milliseconds since the epoch)
+     */
+    long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /**
+     * @return the tasks to execute or <code>null</code> to execute all of them
+     */
+    Set<String> getTaskNames() {
+        return taskNames;
+    }
+
+    /**
+     * @return the index of the worker (0 .. workers - 1)
+     */
+    int getWorkerIndex() {
+        return workerIndex;
+    }
+
+    /**
+     * @return the number of workers of the coordinator
+     */
+    int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Writes this assignment field by field.
+     *
+     * @param out
+     *            the output
+     * @throws IOException
+     *             if the assignment can't be written
+     */
+    void write(final DataOutput out) throws IOException {
+
+        out.writeInt(workerIndex);
+        out.writeInt(workers);
+        out.writeLong(startTimeMillis);
+
+        out.writeInt(fileMap.size());
+        for (final Map.Entry<String, byte[]> entry : fileMap.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+
+        out.writeBoolean(taskNames != null);
+        if (taskNames != null) {
+            out.writeInt(taskNames.size());
+            for (final String taskName : taskNames) {
+                out.writeUTF(taskName);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The wire format shared by the coordinator and its workers. The messages are written field by field with
+ * {@link DataOutput}, never with Java serialization, so a peer can only send the values that each message defines and
+ * every length is checked before anything is allocated.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class WorkerProtocol {
+
+    /** The first value sent by a worker: "DBPW". */
+    private static final int MAGIC = 0x44425057;
+
+    private static final int VERSION = 1;
+
+    private WorkerProtocol() {
+        // static class
+    }
+
+    /**
+     * Reads a length and checks that it is in the range <code>[0, max]</code>.
+     *
+     * @param in
+     *            the input
+     * @param max
+     *            the highest valid length
+     * @param name
+     *            the name of the value, for the error message
+     * @return the length
+     * @throws IOException
+     *             if the length can't be read or it is out of range
+     */
+    static int readLength(final DataInput in, final int max, final String name) throws IOException {
+
+        final int length = in.readInt();
+        if (length < 0 || length > max) {
+            throw new IOException(String.format("Invalid %s: %d (max: %d)", name, length, max));
+        }
+        return length;
+    }
+
+    /**
+     * Reads the registration message of a worker.
+     *
+     * @param in
+     *            the input
+     * @return the name of the worker process
+     * @throws IOException
+     *             if the message can't be read or it doesn't come from a worker of the same version
+     */
+    static String readHello(final DataInput in) throws IOException {
+
+        final int magic = in.readInt();
+        if (magic != MAGIC) {
+            throw new IOException(String.format("Not a dbping worker (magic: 0x%08x)", magic));
+        }
+        final int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported worker version: %d (expected: %d)", version, VERSION));
+        }
+        return in.readUTF();
+    }
+
+    /**
+     * Writes the registration message of a worker.
+     *
+     * @param out
+     *            the output
+     * @param name
+     *            the name of the worker process
+     * @throws IOException
+     *             if the message can't be written
+     */
+    static void writeHello(final DataOutput out, final String name) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(name);
+    }
+}
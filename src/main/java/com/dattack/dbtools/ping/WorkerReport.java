@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+
+/**
+ * The cumulative metrics of a worker process, sent periodically to the coordinator. Only counters and histogram
+ * snapshots are sent, never the executions themselves, so the size of a report doesn't depend on the load.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class WorkerReport {
+
+    private static final int MAX_LABELS = 100000;
+
+    private final int workerIndex;
+    private final long elapsedNanos;
+    private final boolean finished;
+    private final ArrayList<LabelReport> labelReportList;
+
+    /**
+     * The metrics of a SQL label of a task.
+     */
+    static final class LabelReport {
+
+        private final String taskName;
+        private final String label;
+        private final long operations;
+        private final long errors;
+        private final long rows;
+        private final HistogramSnapshot snapshot;
+
+        LabelReport(final String taskName, final String label, final LabelMetrics labelMetrics) {
+            this(taskName, label, labelMetrics.getOperations(), labelMetrics.getErrors(), labelMetrics.getRows(),
+                    labelMetrics.snapshot());
+        }
+
+        private LabelReport(final String taskName, final String label, final long operations, final long errors,
+                final long rows, final HistogramSnapshot snapshot) {
+            this.taskName = taskName;
+            this.label = label;
+            this.operations = operations;
+            this.errors = errors;
+            this.rows = rows;
+            this.snapshot = snapshot;
+        }
+
+        static LabelReport read(final DataInput in) throws IOException {
+            return new LabelReport(in.readUTF(), in.readUTF(), in.readLong(), in.readLong(), in.readLong(),
+                    HistogramSnapshot.read(in));
+        }
+
+        long getErrors() {
+            return errors;
+        }
+
+        String getLabel() {
+            return label;
+        }
+
+        long getOperations() {
+            return operations;
+        }
+
+        long getRows() {
+            return rows;
+        }
+
+        HistogramSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        String getTaskName() {
+            return taskName;
+        }
+
+        void write(final DataOutput out) throws IOException {
+            out.writeUTF(taskName);
+            out.writeUTF(label);
+            out.writeLong(operations);
+            out.writeLong(errors);
+            out.writeLong(rows);
+            snapshot.write(out);
+        }
+    }
+
+    /**
+     * Reads a report written by {@link #write(DataOutput)}.
+     *
+     * @param in
+     *            the input
+     * @return the report
+     * @throws IOException
+     *             if the report can't be read or its content is not valid
+     */
+    static WorkerReport read(final DataInput in) throws IOException {
+
+        final int workerIndex = in.readInt();
+        final long elapsedNanos = in.readLong();
+        final boolean finished = in.readBoolean();
+
+        final int labels = WorkerProtocol.readLength(in, MAX_LABELS, "number of labels");
+        final List<LabelReport> labelReportList = new ArrayList<>(labels);
+        for (int i = 0; i < labels; i++) {
+            labelReportList.add(LabelReport.read(in));
+        }
+        return new WorkerReport(workerIndex, elapsedNanos, finished, labelReportList);
+    }
+
+    WorkerReport(final int workerIndex, final long elapsedNanos, final boolean finished,
+            final List<LabelReport> labelReportList) {
+        this.workerIndex = workerIndex;
+        this.elapsedNanos = elapsedNanos;
+        this.finished = finished;
+        this.labelReportList = new ArrayList<>(labelReportList);
+    }
+
+    /**
+     * @return the time since the start of the worker (nanoseconds)
+     */
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    List<LabelReport> getLabelReportList() {
+        return labelReportList;
+    }
+
+    int getWorkerIndex() {
+        return workerIndex;
+    }
+
+    /**
+     * @return <code>true</code> if this is the last report of the worker
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Writes this report field by field.
+     *
+     * @param out
+     *            the output
+     * @throws IOException
+     *             if the report can't be written
+     */
+    void write(final DataOutput out) throws IOException {
+
+        out.writeInt(workerIndex);
+        out.writeLong(elapsedNanos);
+        out.writeBoolean(finished);
+        out.writeInt(labelReportList.size());
+        for (final LabelReport labelReport : labelReportList) {
+            labelReport.write(out);
+        }
+    }
+}
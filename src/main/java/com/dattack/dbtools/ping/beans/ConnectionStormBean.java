@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import java.io.Serializable;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * Measures how a datasource behaves when many clients connect at once, like after a failover. In each round, all the
+ * clients wait on a barrier and then open a connection at the same time; the connections are closed when every client
+ * has finished.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class ConnectionStormBean implements Serializable {
+
+    private static final long serialVersionUID = 7530398812236541094L;
+
+    @XmlAttribute(name = "clients", required = false)
+    private int clients;
+
+    @XmlAttribute(name = "rounds", required = false)
+    private int rounds;
+
+    @XmlAttribute(name = "pause", required = false)
+    private String pause;
+
+    /**
+     * Returns the number of clients that connect at once. Zero means the number of threads of the task.
+     *
+     * @return the clients
+     */
+    public int getClients() {
+        return clients;
+    }
+
+    /**
+     * Returns the time span between the end of a round and the start of the next one (e.g. <code>5s</code>).
+     *
+     * @return the pause
+     */
+    public String getPause() {
+        return pause;
+    }
+
+    /**
+     * Returns the number of rounds. Defaults to 1.
+     *
+     * @return the rounds
+     */
+    public int getRounds() {
+        return Math.max(1, rounds);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * Values randomly drawn from a column of a CSV file. The file is loaded once and shared by all the workers of a task.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class CsvParameterBean implements ParameterBean {
+
+    private static final long serialVersionUID = -6020519340211779021L;
+
+    @XmlAttribute(name = "name", required = true)
+    private String name;
+
+    @XmlAttribute(name = "file", required = true)
+    private String file;
+
+    @XmlAttribute(name = "column", required = false)
+    private int column;
+
+    @XmlAttribute(name = "separator", required = false)
+    private String separator;
+
+    @Override
+    public void accept(final ParameterBeanVisitor visitor) {
+        visitor.visite(this);
+    }
+
+    /**
+     * @return the index of the column (zero-based)
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the file
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * @return the name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the separator
+     */
+    public String getSeparator() {
+        return separator;
+    }
+}
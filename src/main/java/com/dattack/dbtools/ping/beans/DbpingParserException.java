@@ -25,6 +25,10 @@ public class DbpingParserException extends DrulesNestableException {
 
     private static final long serialVersionUID = -8484578347660689604L;
 
+    public DbpingParserException(final String message) {
+        super(message);
+    }
+
     public DbpingParserException(final Throwable cause) {
         super(cause);
     }
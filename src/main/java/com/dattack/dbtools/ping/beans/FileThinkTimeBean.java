@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * Think times (milliseconds) replayed in order from the first column of a file, for instance the gaps between the
+ * requests of a production trace. The values are repeated when the end of the file is reached.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class FileThinkTimeBean implements ThinkTimeBean {
+
+    private static final long serialVersionUID = -3013938052427585539L;
+
+    @XmlAttribute(name = "file", required = true)
+    private String file;
+
+    @Override
+    public void accept(final ThinkTimeBeanVisitor visitor) {
+        visitor.visite(this);
+    }
+
+    /**
+     * @return the file
+     */
+    public String getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+
+/**
+ * A sequence of stages executed one after the other. Each stage sets the concurrency and the rate of the task during
+ * a period of time, so a ramp-up is described as a sequence of short steps followed by a longer plateau.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class LoadProfileBean implements Serializable {
+
+    private static final long serialVersionUID = -5103905458214233672L;
+
+    @XmlElement(name = "stage", required = true, type = LoadStageBean.class)
+    private List<LoadStageBean> stageList;
+
+    /**
+     * @return the stageList
+     */
+    public List<LoadStageBean> getStageList() {
+        if (stageList == null) {
+            return Collections.emptyList();
+        }
+        return stageList;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import java.io.Serializable;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * A stage of a load profile.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class LoadStageBean implements Serializable {
+
+    private static final long serialVersionUID = 2457311296140432018L;
+
+    @XmlAttribute(name = "name", required = false)
+    private String name;
+
+    @XmlAttribute(name = "threads", required = false)
+    private int threads;
+
+    @XmlAttribute(name = "targetRate", required = false)
+    private double targetRate;
+
+    @XmlAttribute(name = "duration", required = true)
+    private String duration;
+
+    /**
+     * Returns the duration of the stage as a time span (e.g. <code>30s</code>, <code>5m</code>).
+     *
+     * @return the duration
+     */
+    public String getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of active workers during the stage. Zero means the number of threads of the task.
+     *
+     * @return the threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the number of executions per second of the task during the stage. Zero means closed-loop mode.
+     *
+     * @return the targetRate
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * Normally distributed think times (milliseconds). Negative samples are truncated to zero.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class NormalThinkTimeBean implements ThinkTimeBean {
+
+    private static final long serialVersionUID = 2776106367216254950L;
+
+    @XmlAttribute(name = "mean", required = true)
+    private double mean;
+
+    @XmlAttribute(name = "stddev", required = true)
+    private double stddev;
+
+    @Override
+    public void accept(final ThinkTimeBeanVisitor visitor) {
+        visitor.visite(this);
+    }
+
+    /**
+     * @return the mean
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the standard deviation
+     */
+    public double getStddev() {
+        return stddev;
+    }
+}
@@ -16,11 +16,15 @@
 package com.dattack.dbtools.ping.beans;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElements;
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlType;
 
 /**
  * @author cvarela
@@ -30,34 +34,123 @@ public class PingTaskBean implements Serializable {
 
     private static final long serialVersionUID = 3640559668991529501L;
 
+    private static final int DEFAULT_ROUND_TRIP_THRESHOLD = 100;
+
     @XmlAttribute(name = "name", required = true)
     private String name;
 
     @XmlAttribute(name = "threads", required = false)
     private int threads;
 
+    @XmlAttribute(name = "threadMode", required = false)
+    private ThreadMode threadMode;
+
     @XmlAttribute(name = "executions", required = false)
     private int executions;
 
     @XmlAttribute(name = "timeBetweenExecutions", required = true)
     private int timeBetweenExecutions;
 
-    @XmlAttribute(name = "datasource", required = true)
+    @XmlAttribute(name = "warmUpIterations", required = false)
+    private int warmUpIterations;
+
+    @XmlAttribute(name = "warmUpTime", required = false)
+    private String warmUpTime;
+
+    @XmlAttribute(name = "logWarmUp", required = false)
+    private boolean logWarmUp;
+
+    @XmlAttribute(name = "targetRate", required = false)
+    private double targetRate;
+
+    @XmlAttribute(name = "maxRate", required = false)
+    private double maxRate;
+
+    @XmlAttribute(name = "maxBurst", required = false)
+    private int maxBurst;
+
+    @XmlAttribute(name = "queryTimeout", required = false)
+    private String queryTimeout;
+
+    @XmlAttribute(name = "roundTripThreshold", required = false)
+    private int roundTripThreshold;
+
+    @XmlAttribute(name = "rowGapHistogram", required = false)
+    private boolean rowGapHistogram;
+
+    @XmlAttribute(name = "connectionMode", required = false)
+    private ConnectionMode connectionMode;
+
+    @XmlAttribute(name = "poolSize", required = false)
+    private int poolSize;
+
+    @XmlAttribute(name = "datasource", required = false)
     private String datasource;
 
+    @XmlElement(name = "datasource", required = false)
+    private List<String> datasourceList;
+
     @XmlAttribute(name = "maxRowsToDump", required = false)
     private int maxRowsToDump;
 
     @XmlElements({ @XmlElement(name = "query", type = SqlStatementBean.class),
-        @XmlElement(name = "script", type = SqlScriptBean.class) })
+        @XmlElement(name = "script", type = SqlScriptBean.class),
+        @XmlElement(name = "batch", type = SqlBatchBean.class) })
     private List<SqlCommandBean> sqlStatementList;
 
+    @XmlElements({ @XmlElement(name = "uniform-parameter", type = UniformParameterBean.class),
+        @XmlElement(name = "zipf-parameter", type = ZipfParameterBean.class),
+        @XmlElement(name = "sequence-parameter", type = SequenceParameterBean.class),
+        @XmlElement(name = "csv-parameter", type = CsvParameterBean.class) })
+    private List<ParameterBean> parameterList;
+
+    @XmlElements({ @XmlElement(name = "exponential-think-time", type = ExponentialThinkTimeBean.class),
+        @XmlElement(name = "uniform-think-time", type = UniformThinkTimeBean.class),
+        @XmlElement(name = "normal-think-time", type = NormalThinkTimeBean.class),
+        @XmlElement(name = "file-think-time", type = FileThinkTimeBean.class) })
+    private ThinkTimeBean thinkTime;
+
+    @XmlElement(name = "load-profile", required = false)
+    private LoadProfileBean loadProfile;
+
+    @XmlElement(name = "saturation-search", required = false)
+    private SaturationSearchBean saturationSearch;
+
+    @XmlElement(name = "connection-storm", required = false)
+    private ConnectionStormBean connectionStorm;
+
     @XmlElement(name = "log-file", type = String.class)
     private String logFile;
 
     @XmlElement(name = "command-provider", type = String.class)
     private String commandProvider;
 
+    /**
+     * The lifecycle of the connections used by the workers of a task.
+     */
+    @XmlType(name = "connectionMode")
+    @XmlEnum
+    public enum ConnectionMode {
+        /** A new connection for every statement. */
+        PER_STATEMENT,
+        /** One connection for each worker, kept open during the whole task. */
+        PER_THREAD,
+        /** A bounded pool of connections shared by all the workers. */
+        POOLED;
+    }
+
+    /**
+     * The kind of thread used to run each one of the workers of a task.
+     */
+    @XmlType(name = "threadMode")
+    @XmlEnum
+    public enum ThreadMode {
+        /** One platform (OS) thread per worker. */
+        PLATFORM,
+        /** One virtual thread per worker, multiplexed on the JVM carrier pool. */
+        VIRTUAL;
+    }
+
     /**
      * @return the commandProvider
      */
@@ -65,6 +158,23 @@ public class PingTaskBean implements Serializable {
         return commandProvider;
     }
 
+    /**
+     * @return the connectionMode
+     */
+    public ConnectionMode getConnectionMode() {
+        if (connectionMode == null) {
+            return ConnectionMode.PER_STATEMENT;
+        }
+        return connectionMode;
+    }
+
+    /**
+     * @return the connectionStorm or <code>null</code> if the task doesn't define it
+     */
+    public ConnectionStormBean getConnectionStorm() {
+        return connectionStorm;
+    }
+
     /**
      * @return the datasource
      */
@@ -72,6 +182,28 @@ public class PingTaskBean implements Serializable {
         return datasource;
     }
 
+    /**
+     * Returns the JNDI names of the datasources of the task: the <code>datasource</code> attribute followed by the
+     * <code>datasource</code> elements. Each datasource runs the same workload with its own group of workers.
+     *
+     * @return the datasourceList
+     */
+    public List<String> getDatasourceList() {
+
+        final List<String> list = new ArrayList<>();
+        if (datasource != null) {
+            list.add(datasource);
+        }
+        if (datasourceList != null) {
+            for (final String item : datasourceList) {
+                if (item != null && !item.trim().isEmpty() && !list.contains(item.trim())) {
+                    list.add(item.trim());
+                }
+            }
+        }
+        return list;
+    }
+
     /**
      * @return the executions
      */
@@ -79,6 +211,13 @@ public class PingTaskBean implements Serializable {
         return executions;
     }
 
+    /**
+     * @return the loadProfile or <code>null</code> if the task doesn't define it
+     */
+    public LoadProfileBean getLoadProfile() {
+        return loadProfile;
+    }
+
     /**
      * @return the logFile
      */
@@ -86,6 +225,27 @@ public class PingTaskBean implements Serializable {
         return logFile;
     }
 
+    /**
+     * Returns the number of executions that may start back to back, after an idle period, without exceeding the
+     * maximum rate. Defaults to 1.
+     *
+     * @return the maxBurst
+     */
+    public int getMaxBurst() {
+        return Math.max(1, maxBurst);
+    }
+
+    /**
+     * Returns the maximum number of executions per second of the task, shared by all its workers and datasources.
+     * Unlike the {@link #getTargetRate() target rate}, it's an upper bound: the workers are throttled only when they
+     * would exceed it. The worker processes of a coordinator get an even share of it. Zero means no limit.
+     *
+     * @return the maxRate
+     */
+    public double getMaxRate() {
+        return maxRate;
+    }
+
     /**
      * @return the maxRowsToDump
      */
@@ -93,6 +253,26 @@ public class PingTaskBean implements Serializable {
         return maxRowsToDump;
     }
 
+    /**
+     * Returns the number of workers needed by the task: the number of threads or, if there is a load profile or a
+     * saturation search of threads, the maximum concurrency of its stages.
+     *
+     * @return the maximum number of workers
+     */
+    public int getMaxThreads() {
+
+        int maxThreads = threads;
+        if (loadProfile != null) {
+            for (final LoadStageBean stage : loadProfile.getStageList()) {
+                maxThreads = Math.max(maxThreads, stage.getThreads());
+            }
+        }
+        if (saturationSearch != null && saturationSearch.getMode() == SaturationSearchBean.SearchMode.THREADS) {
+            maxThreads = Math.max(maxThreads, (int) Math.ceil(saturationSearch.getMax()));
+        }
+        return maxThreads;
+    }
+
     /**
      * @return the name
      */
@@ -100,6 +280,59 @@ public class PingTaskBean implements Serializable {
         return name;
     }
 
+    /**
+     * @return the parameterList
+     */
+    public List<ParameterBean> getParameterList() {
+        if (parameterList == null) {
+            return Collections.emptyList();
+        }
+        return parameterList;
+    }
+
+    /**
+     * Returns the maximum number of connections of the pool when the connection mode is
+     * {@link ConnectionMode#POOLED}. Defaults to the maximum number of workers.
+     *
+     * @return the poolSize
+     */
+    public int getPoolSize() {
+        if (poolSize <= 0) {
+            return Math.max(1, getMaxThreads());
+        }
+        return poolSize;
+    }
+
+    /**
+     * Returns the time after which a running statement is cancelled (e.g. <code>30s</code>), unless the statement
+     * defines its own timeout. No timeout is applied when it isn't set.
+     *
+     * @return the queryTimeout
+     */
+    public String getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * Returns the time, in microseconds, above which a call to <code>ResultSet.next()</code> is considered a fetch
+     * round trip to the server rather than a read from the rows already received. Defaults to 100 microseconds.
+     *
+     * @return the roundTripThreshold
+     */
+    public int getRoundTripThreshold() {
+        if (roundTripThreshold <= 0) {
+            return DEFAULT_ROUND_TRIP_THRESHOLD;
+        }
+        return roundTripThreshold;
+    }
+
+    /**
+     * @return the saturationSearch or <code>null</code> if the task doesn't define it
+     */
+    public SaturationSearchBean getSaturationSearch() {
+        return saturationSearch;
+    }
+
     /**
      * @return the sqlStatementList
      */
@@ -107,6 +340,16 @@ public class PingTaskBean implements Serializable {
         return sqlStatementList;
     }
 
+    /**
+     * Returns the distribution of the pause between iterations or <code>null</code> to use the constant
+     * <code>timeBetweenExecutions</code>.
+     *
+     * @return the thinkTime
+     */
+    public ThinkTimeBean getThinkTime() {
+        return thinkTime;
+    }
+
     /**
      * @return the threads
      */
@@ -114,10 +357,67 @@ public class PingTaskBean implements Serializable {
         return threads;
     }
 
+    /**
+     * Returns the number of executions per second that the task must offer to the database. A value greater than zero
+     * enables the open-loop mode, where the executions follow a fixed timeline independent of the response time.
+     *
+     * @return the targetRate
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * @return the threadMode
+     */
+    public ThreadMode getThreadMode() {
+        if (threadMode == null) {
+            return ThreadMode.PLATFORM;
+        }
+        return threadMode;
+    }
+
     /**
      * @return the timeBetweenExecutions
      */
     public int getTimeBetweenExecutions() {
         return timeBetweenExecutions;
     }
+
+    /**
+     * Returns the number of iterations of each worker that are considered warm-up.
+     *
+     * @return the warmUpIterations
+     */
+    public int getWarmUpIterations() {
+        return warmUpIterations;
+    }
+
+    /**
+     * Returns the time span, since the start of each worker, considered warm-up (e.g. <code>30s</code>).
+     *
+     * @return the warmUpTime
+     */
+    public String getWarmUpTime() {
+        return warmUpTime;
+    }
+
+    /**
+     * Indicates whether the warm-up executions are written to the log, flagged as such, or discarded.
+     *
+     * @return the logWarmUp
+     */
+    public boolean isLogWarmUp() {
+        return logWarmUp;
+    }
+
+    /**
+     * Indicates whether the time spent in each call to <code>ResultSet.next()</code> is recorded in a histogram for
+     * each label. Every row updates the shared histogram, so it is disabled by default.
+     *
+     * @return the rowGapHistogram
+     */
+    public boolean isRowGapHistogram() {
+        return rowGapHistogram;
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import java.io.Serializable;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * Searches the maximum load that a task sustains without violating a latency objective. The load grows step by step
+ * until the objective is violated and then the interval between the last good step and the first bad one is bisected.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class SaturationSearchBean implements Serializable {
+
+    private static final long serialVersionUID = -6032893465601347514L;
+
+    private static final double DEFAULT_FACTOR = 2;
+    private static final double DEFAULT_PERCENTILE = 99;
+    private static final double DEFAULT_MAX_ERROR_PERCENT = 1;
+    private static final int DEFAULT_REFINEMENTS = 3;
+
+    @XmlAttribute(name = "mode", required = false)
+    private SearchMode mode;
+
+    @XmlAttribute(name = "start", required = false)
+    private double start;
+
+    @XmlAttribute(name = "step", required = false)
+    private double step;
+
+    @XmlAttribute(name = "factor", required = false)
+    private double factor;
+
+    @XmlAttribute(name = "max", required = true)
+    private double max;
+
+    @XmlAttribute(name = "stepDuration", required = true)
+    private String stepDuration;
+
+    @XmlAttribute(name = "percentile", required = false)
+    private double percentile;
+
+    @XmlAttribute(name = "maxLatency", required = true)
+    private String maxLatency;
+
+    @XmlAttribute(name = "maxErrorPercent", required = false)
+    private Double maxErrorPercent;
+
+    @XmlAttribute(name = "refinements", required = false)
+    private Integer refinements;
+
+    /**
+     * The load that changes from one step to the next.
+     */
+    @XmlType(name = "searchMode")
+    @XmlEnum
+    public enum SearchMode {
+        /** The number of workers, each one running in closed-loop mode. */
+        THREADS,
+        /** The number of executions per second of the task, in open-loop mode with the threads of the task. */
+        RATE;
+    }
+
+    /**
+     * Returns the factor applied to the load of a step to compute the next one when no additive step is defined.
+     * Defaults to 2.
+     *
+     * @return the factor
+     */
+    public double getFactor() {
+        return factor > 1 ? factor : DEFAULT_FACTOR;
+    }
+
+    /**
+     * @return the highest load to try
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the highest percentage of failed executions allowed in a step. Defaults to 1%.
+     *
+     * @return the maxErrorPercent
+     */
+    public double getMaxErrorPercent() {
+        return maxErrorPercent != null ? maxErrorPercent : DEFAULT_MAX_ERROR_PERCENT;
+    }
+
+    /**
+     * Returns the latency objective as a time span (e.g. <code>50ms</code>).
+     *
+     * @return the maxLatency
+     */
+    public String getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * @return the mode (defaults to {@link SearchMode#THREADS})
+     */
+    public SearchMode getMode() {
+        return mode != null ? mode : SearchMode.THREADS;
+    }
+
+    /**
+     * Returns the percentile of the latency that is compared with the objective. Defaults to 99.
+     *
+     * @return the percentile
+     */
+    public double getPercentile() {
+        return percentile > 0 ? percentile : DEFAULT_PERCENTILE;
+    }
+
+    /**
+     * Returns the number of bisection steps after the objective is violated. Defaults to 3.
+     *
+     * @return the refinements
+     */
+    public int getRefinements() {
+        return refinements != null ? Math.max(0, refinements) : DEFAULT_REFINEMENTS;
+    }
+
+    /**
+     * @return the load of the first step (defaults to 1)
+     */
+    public double getStart() {
+        return start > 0 ? start : 1;
+    }
+
+    /**
+     * Returns the increment of the load from one step to the next. Zero means that the load is multiplied by the
+     * {@link #getFactor() factor}.
+     *
+     * @return the step
+     */
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * Returns the duration of every step as a time span (e.g. <code>30s</code>).
+     *
+     * @return the stepDuration
+     */
+    public String getStepDuration() {
+        return stepDuration;
+    }
+}
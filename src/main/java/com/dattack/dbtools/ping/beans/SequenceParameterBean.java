@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * A sequence of integer values shared by all the workers of a task.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class SequenceParameterBean implements ParameterBean {
+
+    private static final long serialVersionUID = 7430866470530553218L;
+
+    @XmlAttribute(name = "name", required = true)
+    private String name;
+
+    @XmlAttribute(name = "start", required = false)
+    private long start;
+
+    @XmlAttribute(name = "step", required = false)
+    private long step;
+
+    @Override
+    public void accept(final ParameterBeanVisitor visitor) {
+        visitor.visite(this);
+    }
+
+    /**
+     * @return the name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the start
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * @return the step
+     */
+    public long getStep() {
+        if (step == 0) {
+            return 1;
+        }
+        return step;
+    }
+}
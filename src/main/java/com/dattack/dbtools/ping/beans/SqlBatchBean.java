@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlValue;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import com.dattack.dbtools.drules.beans.StringListAdapter;
+
+/**
+ * A DML statement executed as a JDBC batch. Each execution sends <code>batches</code> batches of
+ * <code>batchSize</code> parameter sets and, if a commit interval is set, commits every <code>commitInterval</code>
+ * batches.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class SqlBatchBean implements SqlCommandBean {
+
+    private static final long serialVersionUID = -1730468264993461305L;
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    @XmlValue
+    private String sql;
+
+    @XmlAttribute(name = "label", required = true)
+    private String label;
+
+    @XmlAttribute(name = "weight", required = false)
+    private float weight;
+
+    @XmlAttribute(name = "maxRate", required = false)
+    private double maxRate;
+
+    @XmlAttribute(name = "parameters", required = false)
+    @XmlJavaTypeAdapter(StringListAdapter.class)
+    private List<String> parameterList;
+
+    @XmlAttribute(name = "batchSize", required = false)
+    private int batchSize;
+
+    @XmlAttribute(name = "batches", required = false)
+    private int batches;
+
+    @XmlAttribute(name = "commitInterval", required = false)
+    private int commitInterval;
+
+    @Override
+    public void accept(final SqlCommandVisitor visitor) {
+        visitor.visite(this);
+    }
+
+    /**
+     * Returns the number of batches sent in each execution. Defaults to 1.
+     *
+     * @return the batches
+     */
+    public int getBatches() {
+        return Math.max(1, batches);
+    }
+
+    /**
+     * Returns the number of parameter sets of each batch. Defaults to 100.
+     *
+     * @return the batchSize
+     */
+    public int getBatchSize() {
+        if (batchSize <= 0) {
+            return DEFAULT_BATCH_SIZE;
+        }
+        return batchSize;
+    }
+
+    /**
+     * Returns the number of batches between commits. Zero means that the auto-commit mode of the connection is kept.
+     * The last batch of an execution is always committed.
+     *
+     * @return the commitInterval
+     */
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * @return the label
+     */
+    @Override
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the maximum number of executions per second of this command, shared by all the workers of the task.
+     * Zero means no limit.
+     *
+     * @return the maxRate
+     */
+    @Override
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    /**
+     * @return the parameterList
+     */
+    public List<String> getParameterList() {
+        if (parameterList == null) {
+            return Collections.emptyList();
+        }
+        return parameterList;
+    }
+
+    /**
+     * @return the sql
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return the weight
+     */
+    @Override
+    public float getWeight() {
+        return weight;
+    }
+}
@@ -30,6 +30,11 @@ public interface SqlCommandBean extends Serializable {
      */
     String getLabel();
 
+    /**
+     * @return the maximum number of executions per second of the command (zero means no limit)
+     */
+    double getMaxRate();
+
     /**
      * @return the weight
      */
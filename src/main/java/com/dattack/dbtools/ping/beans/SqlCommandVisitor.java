@@ -21,6 +21,8 @@ package com.dattack.dbtools.ping.beans;
  */
 public interface SqlCommandVisitor {
 
+    void visite(final SqlBatchBean command);
+
     void visite(final SqlScriptBean command);
 
     void visite(final SqlStatementBean command);
@@ -15,10 +15,13 @@
  */
 package com.dattack.dbtools.ping.beans;
 
+import java.sql.Connection;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlType;
 
 /**
  * @author cvarela
@@ -34,14 +37,57 @@ public class SqlScriptBean implements SqlCommandBean {
     @XmlAttribute(name = "weight", required = false)
     private float weight;
 
+    @XmlAttribute(name = "maxRate", required = false)
+    private double maxRate;
+
+    @XmlAttribute(name = "transactional", required = false)
+    private boolean transactional;
+
+    @XmlAttribute(name = "isolation", required = false)
+    private IsolationLevel isolation;
+
     @XmlElement(name = "query", required = true, type = SqlStatementBean.class)
     private List<SqlStatementBean> statementList;
 
+    /**
+     * The transaction isolation levels defined by JDBC.
+     */
+    @XmlType(name = "isolation")
+    @XmlEnum
+    public enum IsolationLevel {
+        READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED), //
+        READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED), //
+        REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ), //
+        SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+        private final int level;
+
+        IsolationLevel(final int level) {
+            this.level = level;
+        }
+
+        /**
+         * @return the value of the level as defined by {@link Connection}
+         */
+        public int getLevel() {
+            return level;
+        }
+    }
+
     @Override
     public void accept(final SqlCommandVisitor visitor) {
         visitor.visite(this);
     }
 
+    /**
+     * Returns the isolation level of the transaction or <code>null</code> to keep the level of the connection.
+     *
+     * @return the isolation
+     */
+    public IsolationLevel getIsolation() {
+        return isolation;
+    }
+
     /**
      * @return the label
      */
@@ -50,6 +96,17 @@ public class SqlScriptBean implements SqlCommandBean {
         return label;
     }
 
+    /**
+     * Returns the maximum number of executions per second of this command, shared by all the workers of the task.
+     * Zero means no limit.
+     *
+     * @return the maxRate
+     */
+    @Override
+    public double getMaxRate() {
+        return maxRate;
+    }
+
     /**
      * @return the statementList
      */
@@ -64,4 +121,13 @@ public class SqlScriptBean implements SqlCommandBean {
     public float getWeight() {
         return weight;
     }
+
+    /**
+     * Indicates whether the statements of the script are executed on a single connection inside one transaction.
+     *
+     * @return the transactional
+     */
+    public boolean isTransactional() {
+        return transactional;
+    }
 }
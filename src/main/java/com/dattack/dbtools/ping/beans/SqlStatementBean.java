@@ -15,8 +15,16 @@
  */
 package com.dattack.dbtools.ping.beans;
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlType;
 import javax.xml.bind.annotation.XmlValue;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import com.dattack.dbtools.drules.beans.StringListAdapter;
 
 /**
  * @author cvarela
@@ -35,11 +43,123 @@ public class SqlStatementBean implements SqlCommandBean {
     @XmlAttribute(name = "weight", required = false)
     private float weight;
 
+    @XmlAttribute(name = "maxRate", required = false)
+    private double maxRate;
+
+    @XmlAttribute(name = "parameters", required = false)
+    @XmlJavaTypeAdapter(StringListAdapter.class)
+    private List<String> parameterList;
+
+    @XmlAttribute(name = "fetchSize", required = false)
+    private int fetchSize;
+
+    @XmlAttribute(name = "fetchSizes", required = false)
+    @XmlJavaTypeAdapter(IntegerListAdapter.class)
+    private List<Integer> fetchSizeList;
+
+    @XmlAttribute(name = "maxRows", required = false)
+    private int maxRows;
+
+    @XmlAttribute(name = "consumption", required = false)
+    private ConsumptionMode consumption;
+
+    @XmlAttribute(name = "timeout", required = false)
+    private String timeout;
+
+    @XmlAttribute(name = "checksum", required = false)
+    private ChecksumMode checksum;
+
+    @XmlAttribute(name = "expectedChecksum", required = false)
+    private String expectedChecksum;
+
+    /**
+     * How the rows returned by a query are read.
+     */
+    @XmlType(name = "consumption")
+    @XmlEnum
+    public enum ConsumptionMode {
+        /** The result set isn't read. */
+        NONE,
+        /** The rows are counted but their columns aren't read. */
+        COUNT,
+        /** All the columns of all the rows are read, like an application materializing the result. */
+        FULL;
+    }
+
+    /**
+     * How the checksum of the rows returned by a query is computed.
+     */
+    @XmlType(name = "checksum")
+    @XmlEnum
+    public enum ChecksumMode {
+        /** No checksum. */
+        NONE,
+        /** The checksum depends on the order of the rows. */
+        ORDERED,
+        /** The checksum doesn't depend on the order of the rows, for queries without an ORDER BY clause. */
+        UNORDERED;
+    }
+
     @Override
     public void accept(final SqlCommandVisitor visitor) {
         visitor.visite(this);
     }
 
+    /**
+     * Returns how the checksum of the result is computed. The checksum covers all the columns of all the rows, so the
+     * rows are read whatever the consumption mode, unless it is {@link ConsumptionMode#NONE}.
+     *
+     * @return the checksum mode (defaults to {@link ChecksumMode#NONE})
+     */
+    public ChecksumMode getChecksum() {
+        if (checksum == null) {
+            return ChecksumMode.NONE;
+        }
+        return checksum;
+    }
+
+    /**
+     * @return the consumption mode (defaults to {@link ConsumptionMode#COUNT})
+     */
+    public ConsumptionMode getConsumption() {
+        if (consumption == null) {
+            return ConsumptionMode.COUNT;
+        }
+        return consumption;
+    }
+
+    /**
+     * Returns the expected checksum of the result, as an hexadecimal number. When it isn't set, the checksum of the
+     * first execution is expected, unless the statement has parameters.
+     *
+     * @return the expectedChecksum
+     */
+    public String getExpectedChecksum() {
+        return expectedChecksum;
+    }
+
+    /**
+     * Returns the fetch size hint given to the driver. Zero means the default value of the driver.
+     *
+     * @return the fetchSize
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the fetch sizes to sweep. When it isn't empty, each execution uses the next fetch size of the list and
+     * is labelled as <code>label[fetch=N]</code>.
+     *
+     * @return the fetchSizeList
+     */
+    public List<Integer> getFetchSizeList() {
+        if (fetchSizeList == null) {
+            return Collections.emptyList();
+        }
+        return fetchSizeList;
+    }
+
     /**
      * @return the label
      */
@@ -48,6 +168,39 @@ public class SqlStatementBean implements SqlCommandBean {
         return label;
     }
 
+    /**
+     * Returns the maximum number of executions per second of this command, shared by all the workers of the task.
+     * Zero means no limit.
+     *
+     * @return the maxRate
+     */
+    @Override
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    /**
+     * Returns the maximum number of rows of the result. Zero means no limit.
+     *
+     * @return the maxRows
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Returns the names of the generators that provide the values of the parameters of the statement, in the same
+     * order as the placeholders. A statement with parameters is executed as a {@link java.sql.PreparedStatement}.
+     *
+     * @return the parameterList
+     */
+    public List<String> getParameterList() {
+        if (parameterList == null) {
+            return Collections.emptyList();
+        }
+        return parameterList;
+    }
+
     /**
      * @return the sql
      */
@@ -55,6 +208,16 @@ public class SqlStatementBean implements SqlCommandBean {
         return sql;
     }
 
+    /**
+     * Returns the time after which a running execution of this statement is cancelled (e.g. <code>500ms</code>). It
+     * overrides the query timeout of the task.
+     *
+     * @return the timeout
+     */
+    public String getTimeout() {
+        return timeout;
+    }
+
     /**
      * @return the weight
      */
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * Integer values uniformly distributed in the range [min, max].
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class UniformParameterBean implements ParameterBean {
+
+    private static final long serialVersionUID = -2906326578170387339L;
+
+    @XmlAttribute(name = "name", required = true)
+    private String name;
+
+    @XmlAttribute(name = "min", required = true)
+    private long min;
+
+    @XmlAttribute(name = "max", required = true)
+    private long max;
+
+    @Override
+    public void accept(final ParameterBeanVisitor visitor) {
+        visitor.visite(this);
+    }
+
+    /**
+     * @return the max
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the min
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * @return the name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+}
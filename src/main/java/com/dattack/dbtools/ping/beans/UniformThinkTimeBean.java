@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * Think times (milliseconds) uniformly distributed in the range [min, max].
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class UniformThinkTimeBean implements ThinkTimeBean {
+
+    private static final long serialVersionUID = -6619367431846617840L;
+
+    @XmlAttribute(name = "min", required = true)
+    private double min;
+
+    @XmlAttribute(name = "max", required = true)
+    private double max;
+
+    @Override
+    public void accept(final ThinkTimeBeanVisitor visitor) {
+        visitor.visite(this);
+    }
+
+    /**
+     * @return the max
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return the min
+     */
+    public double getMin() {
+        return min;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.beans;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * Integer values in the range [min, max] following a Zipf distribution: <code>min</code> is the most frequent value,
+ * <code>min + 1</code> the second one and so on. Higher exponents concentrate the accesses on fewer values.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class ZipfParameterBean implements ParameterBean {
+
+    private static final long serialVersionUID = 4187601297455318270L;
+
+    private static final double DEFAULT_EXPONENT = 1.0;
+
+    @XmlAttribute(name = "name", required = true)
+    private String name;
+
+    @XmlAttribute(name = "min", required = true)
+    private long min;
+
+    @XmlAttribute(name = "max", required = true)
+    private long max;
+
+    @XmlAttribute(name = "exponent", required = false)
+    private double exponent;
+
+    @Override
+    public void accept(final ParameterBeanVisitor visitor) {
+        visitor.visite(this);
+    }
+
+    /**
+     * @return the exponent
+     */
+    public double getExponent() {
+        if (exponent <= 0) {
+            return DEFAULT_EXPONENT;
+        }
+        return exponent;
+    }
+
+    /**
+     * @return the max
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the min
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * @return the name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -36,6 +36,10 @@ public class CSVConfigurationFactory {
         this.separator = separator;
     }
 
+    public String getSeparator() {
+        return separator;
+    }
+
     public CSVConfiguration create() {
         return new CsvConfigurationBuilder().withSeparator(separator).build();
     }
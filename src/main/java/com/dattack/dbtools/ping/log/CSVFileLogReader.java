@@ -15,10 +15,19 @@
  */
 package com.dattack.dbtools.ping.log;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +38,10 @@ import com.dattack.formats.csv.CSVObject;
 import com.dattack.formats.csv.CSVReader;
 
 /**
+ * Reads the logs written by {@link CSVFileLogWriter}. The columns are located by the names in the header of the log,
+ * so the logs written by older versions, with fewer columns, can still be read: the missing values are unknown. The
+ * failed executions, the ones with a message, are read with an exception that holds the message.
+ *
  * @author cvarela
  * @since 0.1
  */
@@ -36,11 +49,104 @@ public class CSVFileLogReader implements LogReader {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CSVFileLogReader.class);
 
+    private static final String MESSAGE_COLUMN = "message";
+    private static final int UNKNOWN = -1;
+
     private final CSVReader reader;
     private final CSVConfiguration configuration;
+    private final List<Layout> layoutList;
+
+    /**
+     * The position of the columns of a version of the log.
+     */
+    private static final class Layout {
+
+        private final Map<String, Integer> indexMap;
+        private final int messageIndex;
+
+        Layout(final List<String> columnList) {
+            this.indexMap = new HashMap<>();
+            for (int i = 0; i < columnList.size(); i++) {
+                indexMap.put(columnList.get(i), i);
+            }
+            final Integer index = indexMap.get(MESSAGE_COLUMN);
+            this.messageIndex = index == null ? columnList.size() : index;
+        }
+
+        /**
+         * Checks if a row can have been written with this layout: the message is only written for the failed
+         * executions.
+         */
+        boolean fits(final CSVObject rawObject) {
+            return rawObject.size() == messageIndex || rawObject.size() == messageIndex + 1;
+        }
+
+        String get(final CSVObject rawObject, final String column) {
+
+            final Integer index = indexMap.get(column);
+            if (index == null || index >= rawObject.size() || index == messageIndex) {
+                return null;
+            }
+            return rawObject.get(index);
+        }
+
+        /**
+         * @return the message of a failed execution or <code>null</code> if the execution succeeded
+         */
+        String getMessage(final CSVObject rawObject) {
+            return rawObject.size() > messageIndex ? rawObject.get(messageIndex) : null;
+        }
+    }
+
+    private static long parseDuration(final String text) {
+        return StringUtils.isBlank(text) ? UNKNOWN : DurationFormat.parse(text.trim());
+    }
+
+    private static long parseLong(final String text) {
+        return StringUtils.isBlank(text) ? UNKNOWN : Long.parseLong(text.trim());
+    }
+
+    /**
+     * Reads the layouts declared by the headers of a log, the latest first. A log may have been appended by several
+     * versions.
+     */
+    private static List<Layout> readLayouts(final File dataFile, final String separator) {
+
+        final String headerStart = CSVFileLogWriter.COLUMNS[0] + separator + CSVFileLogWriter.COLUMNS[1];
+        final List<Layout> list = new ArrayList<>();
+        final List<List<String>> seenList = new ArrayList<>();
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(dataFile)))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                final int start = line.indexOf(headerStart);
+                if (start < 0 || line.substring(0, start).contains(separator)) {
+                    continue;
+                }
+
+                final List<String> columnList = new ArrayList<>();
+                for (final String column : line.substring(start).split(separator)) {
+                    columnList.add(column.trim());
+                }
+                if (!seenList.contains(columnList)) {
+                    seenList.add(columnList);
+                    list.add(0, new Layout(columnList));
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to read the header of the log: {}", e.getMessage());
+        }
+
+        if (list.isEmpty()) {
+            list.add(new Layout(Arrays.asList(CSVFileLogWriter.COLUMNS)));
+        }
+        return list;
+    }
 
     public CSVFileLogReader(final File dataFile) {
-        configuration = new CSVConfigurationFactory().create();
+        final CSVConfigurationFactory configurationFactory = new CSVConfigurationFactory();
+        configuration = configurationFactory.create();
+        layoutList = readLayouts(dataFile, configurationFactory.getSeparator());
         reader = new CSVReader(configuration, dataFile);
     }
 
@@ -49,6 +155,16 @@ public class CSVFileLogReader implements LogReader {
         reader.close();
     }
 
+    private Layout getLayout(final CSVObject rawObject) {
+
+        for (final Layout layout : layoutList) {
+            if (layout.fits(rawObject)) {
+                return layout;
+            }
+        }
+        return layoutList.get(0);
+    }
+
     @Override
     public synchronized LogEntry next() throws IOException {
 
@@ -59,22 +175,44 @@ public class CSVFileLogReader implements LogReader {
                 return null;
             }
 
-            int index = 0;
+            final Layout layout = getLayout(rawObject);
 
             try {
+                final String eventTime = layout.get(rawObject, "date");
+                final String totalTime = layout.get(rawObject, "total-time");
+                if (eventTime == null || totalTime == null) {
+                    LOGGER.warn("Ignoring an incomplete row of the log ({} columns)", rawObject.size());
+                    continue;
+                }
+
+                final String message = layout.getMessage(rawObject);
 
+                // the query time and the rows per second are skipped: they're derived values
                 return new LogEntryBuilder() //
-                        .withEventTime(configuration.getDateFormat().parse(rawObject.get(index++)).getTime()) //
-                        .withTaskName(rawObject.get(index++)) //
-                        .withThreadName(rawObject.get(index++)) //
-                        .withIteration(Long.valueOf(rawObject.get(index++))) //
-                        .withSqlLabel(rawObject.get(index++)) //
-                        .withRows(Long.valueOf(rawObject.get(index++))) //
-                        .withConnectionTime(Long.valueOf(rawObject.get(index++))) //
-                        .withFirstRowTime(Long.valueOf(rawObject.get(index++))) //
-                        .withTotalTime(Long.valueOf(rawObject.get(index++))) //
+                        .withEventTime(configuration.getDateFormat().parse(eventTime).getTime()) //
+                        .withTaskName(layout.get(rawObject, "task-name")) //
+                        .withThreadName(layout.get(rawObject, "thread-name")) //
+                        .withIteration(parseLong(layout.get(rawObject, "iteration"))) //
+                        .withSqlLabel(layout.get(rawObject, "sql-label")) //
+                        .withRows(Math.max(0, parseLong(layout.get(rawObject, "rows")))) //
+                        .withConnectionTime(parseDuration(layout.get(rawObject, "connection-time"))) //
+                        .withFirstRowTime(parseDuration(layout.get(rawObject, "first-row-time"))) //
+                        .withTotalTime(parseDuration(totalTime)) //
+                        .withStage(StringUtils.trimToNull(layout.get(rawObject, "stage"))) //
+                        .withWarmUp(Boolean.parseBoolean(layout.get(rawObject, "warm-up"))) //
+                        .withDatasource(StringUtils.trimToNull(layout.get(rawObject, "datasource"))) //
+                        .withChecksum(StringUtils.trimToNull(layout.get(rawObject, "checksum"))) //
+                        .withChecksumMismatch(Boolean.parseBoolean(layout.get(rawObject, "checksum-mismatch"))) //
+                        .withTimedOut(Boolean.parseBoolean(layout.get(rawObject, "timed-out"))) //
+                        .withCancelTime(parseDuration(layout.get(rawObject, "cancel-time"))) //
+                        .withExecuteTime(parseDuration(layout.get(rawObject, "execute-time"))) //
+                        .withFetchTime(parseDuration(layout.get(rawObject, "fetch-time"))) //
+                        .withCloseTime(parseDuration(layout.get(rawObject, "close-time"))) //
+                        .withFetchRoundTrips(parseLong(layout.get(rawObject, "fetch-round-trips"))) //
+                        .withQueueTime(parseDuration(layout.get(rawObject, "queue-time"))) //
+                        .withException(message == null ? null : new Exception(message)) //
                         .build();
-            } catch (final ParseException e) {
+            } catch (final ParseException | NumberFormatException e) {
                 LOGGER.warn(e.getMessage());
                 continue;
             }
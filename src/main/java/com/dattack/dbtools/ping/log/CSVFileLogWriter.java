@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
@@ -31,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import com.dattack.dbtools.ping.DataRow;
 import com.dattack.dbtools.ping.LogEntry;
+import com.dattack.dbtools.ping.beans.SqlBatchBean;
 import com.dattack.dbtools.ping.beans.SqlCommandBean;
 import com.dattack.dbtools.ping.beans.SqlCommandVisitor;
 import com.dattack.dbtools.ping.beans.SqlScriptBean;
@@ -46,9 +48,25 @@ public class CSVFileLogWriter implements LogWriter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CSVFileLogWriter.class);
 
+    /**
+     * The names of the columns, as written in the header of the log. The message is only written for the failed
+     * executions.
+     */
+    static final String[] COLUMNS = { "date", "task-name", "thread-name", "iteration", "sql-label", "rows",
+            "connection-time", "first-row-time", "total-time", "query-time", "rows-per-second", "stage", "warm-up",
+            "datasource", "checksum", "checksum-mismatch", "timed-out", "cancel-time", "execute-time", "fetch-time",
+            "close-time", "fetch-round-trips", "queue-time", "message" };
+
     private final CSVStringBuilder csvBuilder;
     private final String filename;
 
+    private static String formatRate(final double rate) {
+        if (rate < 0) {
+            return "-1";
+        }
+        return String.format(Locale.ROOT, "%.1f", rate);
+    }
+
     private static String normalize(final String text) {
         return text.replaceAll("\n", " ");
     }
@@ -79,9 +97,23 @@ public class CSVFileLogWriter implements LogWriter {
                     .append(entry.getIteration()) //
                     .append(StringUtils.trimToEmpty(entry.getSqlLabel())) //
                     .append(entry.getRows()) //
-                    .append(entry.getConnectionTime()) //
-                    .append(entry.getFirstRowTime()) //
-                    .append(entry.getTotalTime());
+                    .append(DurationFormat.format(entry.getConnectionTime())) //
+                    .append(DurationFormat.format(entry.getFirstRowTime())) //
+                    .append(DurationFormat.format(entry.getTotalTime())) //
+                    .append(DurationFormat.format(entry.getQueryTime())) //
+                    .append(formatRate(entry.getRowsPerSecond())) //
+                    .append(StringUtils.trimToEmpty(entry.getStage())) //
+                    .append(String.valueOf(entry.isWarmUp())) //
+                    .append(StringUtils.trimToEmpty(entry.getDatasource())) //
+                    .append(StringUtils.trimToEmpty(entry.getChecksum())) //
+                    .append(entry.getChecksum() == null ? "" : String.valueOf(entry.isChecksumMismatch())) //
+                    .append(String.valueOf(entry.isTimedOut())) //
+                    .append(DurationFormat.format(entry.getCancelTime())) //
+                    .append(DurationFormat.format(entry.getExecuteTime())) //
+                    .append(DurationFormat.format(entry.getFetchTime())) //
+                    .append(DurationFormat.format(entry.getCloseTime())) //
+                    .append(entry.getFetchRoundTrips()) //
+                    .append(DurationFormat.format(entry.getQueueTime()));
 
             if (entry.getException() != null) {
                 csvBuilder.append(normalize(entry.getException().getMessage()));
@@ -119,10 +151,17 @@ public class CSVFileLogWriter implements LogWriter {
 
                 sentence.accept(new SqlCommandVisitor() {
 
+                    @Override
+                    public void visite(final SqlBatchBean command) {
+                        csvBuilder.comment(new StringBuilder().append("  ").append(command.getLabel())
+                                .append(" (batch size: ").append(command.getBatchSize()).append("): ")
+                                .append(normalize(command.getSql())).toString());
+                    }
+
                     @Override
                     public void visite(final SqlScriptBean command) {
-                        csvBuilder.comment(
-                                new StringBuilder().append("  ").append(command.getLabel()).append(": ").toString());
+                        csvBuilder.comment(new StringBuilder().append("  ").append(command.getLabel())
+                                .append(command.isTransactional() ? " (transactional): " : ": ").toString());
 
                         for (final SqlStatementBean item : command.getStatementList()) {
                             csvBuilder.comment(new StringBuilder().append(" |-- ").append(item.getLabel()).append(": ")
@@ -139,17 +178,26 @@ public class CSVFileLogWriter implements LogWriter {
                 });
             }
 
-            csvBuilder.comment() //
-                    .append("date") //
-                    .append("task-name") //
-                    .append("thread-name") //
-                    .append("iteration") //
-                    .append("sql-label") //
-                    .append("rows") //
-                    .append("connection-time") //
-                    .append("first-row-time") //
-                    .append("total-time") //
-                    .append("message").eol();
+            csvBuilder.comment();
+            for (final String column : COLUMNS) {
+                csvBuilder.append(column);
+            }
+            csvBuilder.eol();
+
+            data = csvBuilder.toString();
+            csvBuilder.clear();
+        }
+        return data;
+    }
+
+    private String format(final StageHeader header) {
+
+        String data = null;
+        synchronized (csvBuilder) {
+            csvBuilder.comment(String.format(Locale.ROOT, "Stage '%s' started at %s (threads: %d, target rate: %s, "
+                    + "duration: %d ms)", normalize(header.getName()), new Date(header.getEventTime()),
+                    header.getThreads(), header.getTargetRate() > 0 ? header.getTargetRate() : "-",
+                    header.getDuration()));
 
             data = csvBuilder.toString();
             csvBuilder.clear();
@@ -179,6 +227,11 @@ public class CSVFileLogWriter implements LogWriter {
         write(format(logHeader));
     }
 
+    @Override
+    public void write(final StageHeader stageHeader) {
+        write(format(stageHeader));
+    }
+
     private void write(final String message) {
 
         FileOutputStream out = null;
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dattack.formats.csv.CSVConfiguration;
+import com.dattack.formats.csv.CSVObject;
+import com.dattack.formats.csv.CSVReader;
+
+/**
+ * Reads the time series written by {@link CSVJvmSeriesWriter}.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class CSVJvmSeriesReader implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CSVJvmSeriesReader.class);
+
+    /** The column of the longest GC pause, missing in the series written before it was sampled. */
+    private static final int MAX_GC_PAUSE_INDEX = 8;
+
+    private final CSVReader reader;
+    private final CSVConfiguration configuration;
+
+    public CSVJvmSeriesReader(final File dataFile) {
+        configuration = new CSVConfigurationFactory().create();
+        reader = new CSVReader(configuration, dataFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the next sample of the series.
+     *
+     * @return the sample or <code>null</code> at the end of the series
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public synchronized JvmSample next() throws IOException {
+
+        while (true) {
+            final CSVObject rawObject = reader.next();
+
+            if (rawObject == null) {
+                return null;
+            }
+
+            int index = 0;
+
+            try {
+                final long maxGcPause = rawObject.size() > MAX_GC_PAUSE_INDEX
+                        ? DurationFormat.parse(rawObject.get(MAX_GC_PAUSE_INDEX)) : -1;
+                return new JvmSample(configuration.getDateFormat().parse(rawObject.get(index++)).getTime(), //
+                        Long.parseLong(rawObject.get(index++)), //
+                        Long.parseLong(rawObject.get(index++)), //
+                        DurationFormat.parse(rawObject.get(index++)), //
+                        maxGcPause, //
+                        DurationFormat.parse(rawObject.get(index++)), //
+                        Double.parseDouble(rawObject.get(index++)), //
+                        Double.parseDouble(rawObject.get(index++)), //
+                        Long.parseLong(rawObject.get(index++)));
+            } catch (final ParseException | NumberFormatException e) {
+                LOGGER.warn(e.getMessage());
+                continue;
+            }
+        }
+    }
+}
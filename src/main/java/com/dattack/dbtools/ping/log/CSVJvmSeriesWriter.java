@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dattack.formats.csv.CSVStringBuilder;
+import com.dattack.jtoolbox.io.IOUtils;
+
+/**
+ * Writes the time series of the client JVM overhead next to a latency log, with the same CSV format.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class CSVJvmSeriesWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CSVJvmSeriesWriter.class);
+
+    private static final String FILE_SUFFIX = ".jvm";
+
+    private final CSVStringBuilder csvBuilder;
+    private final String filename;
+
+    private static String formatDecimal(final double value) {
+        if (value < 0) {
+            return "-1";
+        }
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    /**
+     * Returns the series that goes with a latency log.
+     *
+     * @param logFilename
+     *            the name of the latency log
+     * @return the name of the series
+     */
+    public static String getSeriesFilename(final String logFilename) {
+        return logFilename + FILE_SUFFIX;
+    }
+
+    /**
+     * Creates the writer of the series that goes with a latency log.
+     *
+     * @param logFilename
+     *            the name of the latency log
+     */
+    public CSVJvmSeriesWriter(final String logFilename) {
+        this.filename = getSeriesFilename(logFilename);
+        this.csvBuilder = new CSVStringBuilder(new CSVConfigurationFactory().create());
+    }
+
+    private String format(final JvmSample sample) {
+
+        String data = null;
+        synchronized (csvBuilder) {
+            csvBuilder.append(new Date(sample.getEventTime())) //
+                    .append(sample.getInterval()) //
+                    .append(sample.getGcCount()) //
+                    .append(DurationFormat.format(sample.getGcTime())) //
+                    .append(DurationFormat.format(sample.getMaxStall())) //
+                    .append(formatDecimal(sample.getProcessCpu())) //
+                    .append(formatDecimal(sample.getAllocationRate())) //
+                    .append(sample.getHeapUsed()) //
+                    .append(DurationFormat.format(sample.getMaxGcPause())) //
+                    .eol();
+
+            data = csvBuilder.toString();
+            csvBuilder.clear();
+        }
+        return data;
+    }
+
+    private String formatHeader() {
+
+        String data = null;
+        synchronized (csvBuilder) {
+            csvBuilder.comment("Client JVM overhead (times in milliseconds, process CPU as a percentage of all the "
+                    + "processors, allocation rate in bytes per second, -1 if unknown)");
+            csvBuilder.comment() //
+                    .append("date") //
+                    .append("interval") //
+                    .append("gc-count") //
+                    .append("gc-time") //
+                    .append("max-stall") //
+                    .append("process-cpu") //
+                    .append("allocation-rate") //
+                    .append("heap-used") //
+                    .append("max-gc-pause").eol();
+
+            data = csvBuilder.toString();
+            csvBuilder.clear();
+        }
+        return data;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    private FileOutputStream getOutputStream() throws FileNotFoundException {
+
+        final File file = new File(filename);
+        if (!file.exists()) {
+            final File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                LOGGER.warn("Unable to create directory: {}", parent);
+            }
+        }
+        return new FileOutputStream(file, true);
+    }
+
+    /**
+     * Writes a sample to the series.
+     *
+     * @param sample
+     *            the sample
+     */
+    public void write(final JvmSample sample) {
+        write(format(sample));
+    }
+
+    private void write(final String message) {
+
+        FileOutputStream out = null;
+        try {
+            out = getOutputStream();
+            out.write(message.getBytes());
+        } catch (final IOException e) {
+            LOGGER.warn(e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * Writes the description of the columns, at the start of a run.
+     */
+    public void writeHeader() {
+        write(formatHeader());
+    }
+}
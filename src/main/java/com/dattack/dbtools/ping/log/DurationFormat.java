@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.log;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts the durations of a log entry (nanoseconds) to and from its textual representation in the log files
+ * (milliseconds with microsecond precision). Negative values mean an unknown duration.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class DurationFormat {
+
+    private static final String UNKNOWN_VALUE = "-1";
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    static String format(final long nanos) {
+
+        if (nanos < 0) {
+            return UNKNOWN_VALUE;
+        }
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    static long parse(final String text) {
+
+        final double millis = Double.parseDouble(text);
+        if (millis < 0) {
+            return -1;
+        }
+        return Math.round(millis * NANOS_PER_MILLI);
+    }
+
+    private DurationFormat() {
+        // static class
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.log;
+
+import java.io.Serializable;
+
+/**
+ * The overhead of the client JVM during a sampling interval: time spent in garbage collection, the longest GC pause,
+ * the longest stall of the application threads, the CPU used by the process and the allocation rate.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class JvmSample implements Serializable {
+
+    private static final long serialVersionUID = -2417753870394215642L;
+
+    private final long eventTime;
+    private final long interval;
+    private final long gcCount;
+    private final long gcTime;
+    private final long maxGcPause;
+    private final long maxStall;
+    private final double processCpu;
+    private final double allocationRate;
+    private final long heapUsed;
+
+    /**
+     * Creates a new sample.
+     *
+     * @param eventTime
+     *            the end of the interval (milliseconds since the epoch)
+     * @param interval
+     *            the length of the interval (milliseconds)
+     * @param gcCount
+     *            the number of collections
+     * @param gcTime
+     *            the time spent in collections (nanoseconds)
+     * @param maxGcPause
+     *            the longest collection that stopped the application threads (nanoseconds) or -1 if unknown
+     * @param maxStall
+     *            the longest delay of a thread that should have been running (nanoseconds)
+     * @param processCpu
+     *            the CPU used by the process, as a percentage of all the processors, or -1 if unknown
+     * @param allocationRate
+     *            the bytes allocated per second or -1 if unknown
+     * @param heapUsed
+     *            the heap in use at the end of the interval (bytes)
+     */
+    public JvmSample(final long eventTime, final long interval, final long gcCount, final long gcTime,
+            final long maxGcPause, final long maxStall, final double processCpu, final double allocationRate,
+            final long heapUsed) {
+        this.eventTime = eventTime;
+        this.interval = interval;
+        this.gcCount = gcCount;
+        this.gcTime = gcTime;
+        this.maxGcPause = maxGcPause;
+        this.maxStall = maxStall;
+        this.processCpu = processCpu;
+        this.allocationRate = allocationRate;
+        this.heapUsed = heapUsed;
+    }
+
+    public double getAllocationRate() {
+        return allocationRate;
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcTime() {
+        return gcTime;
+    }
+
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public long getMaxGcPause() {
+        return maxGcPause;
+    }
+
+    public long getMaxStall() {
+        return maxStall;
+    }
+
+    public double getProcessCpu() {
+        return processCpu;
+    }
+
+    /**
+     * @return the start of the interval (milliseconds since the epoch)
+     */
+    public long getStartTime() {
+        return eventTime - interval;
+    }
+}
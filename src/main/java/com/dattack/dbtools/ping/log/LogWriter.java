@@ -38,4 +38,12 @@ public interface LogWriter {
      *            the data entity
      */
     void write(final LogEntry logEntry);
+
+    /**
+     * Writes the start of a stage of the load profile to the log.
+     *
+     * @param stageHeader
+     *            the stage entity
+     */
+    void write(final StageHeader stageHeader);
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.log;
+
+import java.io.Serializable;
+
+/**
+ * Marks the start of a stage of a load profile.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public class StageHeader implements Serializable {
+
+    private static final long serialVersionUID = 6410258871502716352L;
+
+    private final String name;
+    private final int threads;
+    private final double targetRate;
+    private final long duration;
+    private final long eventTime;
+
+    /**
+     * Creates a new stage header.
+     *
+     * @param name
+     *            the name of the stage
+     * @param threads
+     *            the number of active workers
+     * @param targetRate
+     *            the executions per second or zero in closed-loop mode
+     * @param duration
+     *            the duration of the stage (milliseconds)
+     * @param eventTime
+     *            the start time of the stage (milliseconds since the epoch)
+     */
+    public StageHeader(final String name, final int threads, final double targetRate, final long duration,
+            final long eventTime) {
+        this.name = name;
+        this.threads = threads;
+        this.targetRate = targetRate;
+        this.duration = duration;
+        this.eventTime = eventTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
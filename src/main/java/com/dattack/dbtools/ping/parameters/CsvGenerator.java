@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.dattack.dbtools.ping.log.CSVConfigurationFactory;
+import com.dattack.formats.csv.CSVObject;
+import com.dattack.formats.csv.CSVReader;
+
+/**
+ * Values randomly drawn from a column of a CSV file. The file is read once; afterwards the values are kept in an
+ * immutable array so the workers can read them without any synchronization.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class CsvGenerator implements ParameterGenerator {
+
+    private final String[] values;
+
+    private static String[] load(final File file, final int column, final String separator) throws IOException {
+
+        final CSVConfigurationFactory configurationFactory = separator == null ? new CSVConfigurationFactory()
+                : new CSVConfigurationFactory(separator);
+
+        final List<String> list = new ArrayList<>();
+        final CSVReader reader = new CSVReader(configurationFactory.create(), file);
+        try {
+            CSVObject row = reader.next();
+            while (row != null) {
+                list.add(row.get(column));
+                row = reader.next();
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (list.isEmpty()) {
+            throw new IOException(String.format("The file '%s' doesn't contain any value", file));
+        }
+        return list.toArray(new String[list.size()]);
+    }
+
+    CsvGenerator(final File file, final int column, final String separator) throws IOException {
+        this.values = load(file, column, separator);
+    }
+
+    @Override
+    public Object next() {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+}
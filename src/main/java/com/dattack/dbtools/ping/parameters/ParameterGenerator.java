@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.parameters;
+
+/**
+ * Provides the values of a parameter of a prepared statement. Implementations are shared by all the workers of a task
+ * and must be thread-safe without blocking.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public interface ParameterGenerator {
+
+    /**
+     * Returns the next value.
+     *
+     * @return the value to bind
+     */
+    Object next();
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.dattack.dbtools.ping.beans.CsvParameterBean;
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+import com.dattack.dbtools.ping.beans.ParameterBean;
+import com.dattack.dbtools.ping.beans.ParameterBeanVisitor;
+import com.dattack.dbtools.ping.beans.SequenceParameterBean;
+import com.dattack.dbtools.ping.beans.UniformParameterBean;
+import com.dattack.dbtools.ping.beans.ZipfParameterBean;
+
+/**
+ * Creates the generators of the parameters defined in a task.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class ParameterGeneratorFactory {
+
+    private static class GeneratorVisitor implements ParameterBeanVisitor {
+
+        private final Map<String, ParameterGenerator> generatorMap;
+        private DbpingParserException exception;
+
+        GeneratorVisitor() {
+            this.generatorMap = new HashMap<>();
+        }
+
+        private void put(final ParameterBean bean, final ParameterGenerator generator) {
+            if (generatorMap.put(bean.getName(), generator) != null) {
+                exception = new DbpingParserException(String.format("Duplicate parameter name: '%s'", bean.getName()));
+            }
+        }
+
+        private void fail(final ParameterBean bean, final DbpingParserException e) {
+            exception = new DbpingParserException(String.format("%s (parameter: '%s')", e.getMessage(),
+                    bean.getName()));
+        }
+
+        @Override
+        public void visite(final CsvParameterBean bean) {
+            try {
+                put(bean, new CsvGenerator(new File(bean.getFile()), bean.getColumn(), bean.getSeparator()));
+            } catch (final IOException e) {
+                exception = new DbpingParserException(e);
+            }
+        }
+
+        @Override
+        public void visite(final SequenceParameterBean bean) {
+            put(bean, new SequenceGenerator(bean.getStart(), bean.getStep()));
+        }
+
+        @Override
+        public void visite(final UniformParameterBean bean) {
+            try {
+                put(bean, new UniformGenerator(bean.getMin(), bean.getMax()));
+            } catch (final DbpingParserException e) {
+                fail(bean, e);
+            }
+        }
+
+        @Override
+        public void visite(final ZipfParameterBean bean) {
+            try {
+                put(bean, new ZipfGenerator(bean.getMin(), bean.getMax(), bean.getExponent()));
+            } catch (final DbpingParserException e) {
+                fail(bean, e);
+            }
+        }
+    }
+
+    /**
+     * Creates the generators of a list of parameters.
+     *
+     * @param parameterList
+     *            the definition of the parameters
+     * @return the generators, indexed by the name of the parameter
+     * @throws DbpingParserException
+     *             if a parameter is invalid or its values can't be loaded
+     */
+    public static Map<String, ParameterGenerator> create(final List<ParameterBean> parameterList)
+            throws DbpingParserException {
+
+        final GeneratorVisitor visitor = new GeneratorVisitor();
+        for (final ParameterBean bean : parameterList) {
+            bean.accept(visitor);
+            if (visitor.exception != null) {
+                throw visitor.exception;
+            }
+        }
+        return visitor.generatorMap;
+    }
+
+    private ParameterGeneratorFactory() {
+        // static class
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.parameters;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+
+/**
+ * Integer values uniformly distributed in a closed range.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class UniformGenerator implements ParameterGenerator {
+
+    private final long min;
+    private final long max;
+
+    UniformGenerator(final long min, final long max) throws DbpingParserException {
+
+        if (max < min) {
+            throw new DbpingParserException(String.format("Invalid range [%d, %d]", min, max));
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public Object next() {
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (max < Long.MAX_VALUE) {
+            return random.nextLong(min, max + 1);
+        }
+
+        // the exclusive bound would overflow: the range is shifted down by one
+        if (min > Long.MIN_VALUE) {
+            return random.nextLong(min - 1, max) + 1;
+        }
+        return random.nextLong();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.parameters;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+
+/**
+ * Integer values in a closed range following a Zipf distribution, where the lowest value is the most frequent one. It
+ * uses the rejection-inversion method of W. Hormann and G. Derflinger, that needs constant time and memory whatever
+ * the size of the range.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class ZipfGenerator implements ParameterGenerator {
+
+    private static final double TAYLOR_THRESHOLD = 1e-8;
+
+    private final long min;
+    private final long numberOfElements;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralNumberOfElements;
+    private final double threshold;
+
+    ZipfGenerator(final long min, final long max, final double exponent) throws DbpingParserException {
+
+        if (max < min) {
+            throw new DbpingParserException(String.format("Invalid range [%d, %d]", min, max));
+        }
+        if (exponent <= 0) {
+            throw new DbpingParserException("The exponent of a Zipf distribution must be greater than zero");
+        }
+
+        this.min = min;
+        this.numberOfElements = max - min + 1;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1d;
+        this.hIntegralNumberOfElements = hIntegral(numberOfElements + 0.5);
+        this.threshold = 2d - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Computes <code>log(1 + x) / x</code>, using a Taylor expansion near zero.
+     */
+    private static double helper1(final double value) {
+        if (Math.abs(value) > TAYLOR_THRESHOLD) {
+            return Math.log1p(value) / value;
+        }
+        return 1 - value * (0.5 - value * (1 / 3.0 - 0.25 * value));
+    }
+
+    /**
+     * Computes <code>(exp(x) - 1) / x</code>, using a Taylor expansion near zero.
+     */
+    private static double helper2(final double value) {
+        if (Math.abs(value) > TAYLOR_THRESHOLD) {
+            return Math.expm1(value) / value;
+        }
+        return 1 + value * 0.5 * (1 + value * 1 / 3.0 * (1 + 0.25 * value));
+    }
+
+    private double h(final double value) {
+        return Math.exp(-exponent * Math.log(value));
+    }
+
+    private double hIntegral(final double value) {
+        final double logX = Math.log(value);
+        return helper2((1d - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(final double value) {
+        double tmp = value * (1d - exponent);
+        if (tmp < -1d) {
+            tmp = -1;
+        }
+        return Math.exp(helper1(tmp) * value);
+    }
+
+    @Override
+    public Object next() {
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            final double uniform = hIntegralNumberOfElements
+                    + random.nextDouble() * (hIntegralX1 - hIntegralNumberOfElements);
+            final double inverse = hIntegralInverse(uniform);
+
+            long rank = (long) (inverse + 0.5);
+            if (rank < 1) {
+                rank = 1;
+            } else if (rank > numberOfElements) {
+                rank = numberOfElements;
+            }
+
+            if (rank - inverse <= threshold || uniform >= hIntegral(rank + 0.5) - h(rank)) {
+                return min + rank - 1;
+            }
+        }
+    }
+}
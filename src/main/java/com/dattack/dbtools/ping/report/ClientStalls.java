@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.dattack.dbtools.ping.LogEntry;
+import com.dattack.dbtools.ping.log.CSVJvmSeriesReader;
+import com.dattack.dbtools.ping.log.CSVJvmSeriesWriter;
+import com.dattack.dbtools.ping.log.JvmSample;
+
+/**
+ * The overhead of the client JVM during the executions of a log. The executions that overlap a sampling interval
+ * whose longest stall or longest GC pause reaches the threshold are reported apart: their latency may come from the
+ * client rather than from the database. The intervals are coarse, so the classification errs on the side of caution.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+class ClientStalls {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final List<JvmSample> sampleList;
+    private final List<JvmSample> stallList;
+    private final long thresholdNanos;
+    private final LatencyTable latencyTable;
+
+    /**
+     * Reads the series of the client JVM that goes with a latency log.
+     *
+     * @param logFile
+     *            the latency log
+     * @param context
+     *            the report context
+     * @return the samples within the report dates or <code>null</code> if the log has no series
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    static ClientStalls load(final File logFile, final ReportContext context) throws IOException {
+
+        final File seriesFile = new File(CSVJvmSeriesWriter.getSeriesFilename(logFile.getPath()));
+        if (!seriesFile.isFile()) {
+            return null;
+        }
+
+        final long startDate = context.getStartDate() == null ? Long.MIN_VALUE : context.getStartDate().getTime();
+        final long endDate = context.getEndDate() == null ? Long.MAX_VALUE : context.getEndDate().getTime();
+
+        final List<JvmSample> list = new ArrayList<>();
+        try (CSVJvmSeriesReader reader = new CSVJvmSeriesReader(seriesFile)) {
+            while (true) {
+                final JvmSample sample = reader.next();
+                if (sample == null) {
+                    break;
+                }
+                if (sample.getEventTime() >= startDate && sample.getStartTime() <= endDate) {
+                    list.add(sample);
+                }
+            }
+        }
+        return new ClientStalls(list, TimeUnit.MILLISECONDS.toNanos(context.getStallThreshold()));
+    }
+
+    ClientStalls(final List<JvmSample> sampleList, final long thresholdNanos) {
+
+        this.sampleList = sampleList;
+        this.thresholdNanos = thresholdNanos;
+        this.stallList = new ArrayList<>();
+        for (final JvmSample sample : sampleList) {
+            if (Math.max(sample.getMaxStall(), sample.getMaxGcPause()) >= thresholdNanos) {
+                stallList.add(sample);
+            }
+        }
+        this.latencyTable = new LatencyTable("Client stalls", "executions", false);
+    }
+
+    /**
+     * Classifies an execution.
+     *
+     * @param logEntry
+     *            the execution
+     */
+    void add(final LogEntry logEntry) {
+
+        latencyTable.add("all", logEntry);
+        latencyTable.add(isStalled(logEntry) ? "overlapping a client stall" : "excluding client stalls", logEntry);
+    }
+
+    List<JvmSample> getSamples() {
+        return sampleList;
+    }
+
+    /**
+     * @return <code>true</code> if the execution overlaps an interval with a stall of the client
+     */
+    private boolean isStalled(final LogEntry logEntry) {
+
+        final long start = logEntry.getEventTime();
+        final long end = start + (long) Math.ceil(Math.max(0, logEntry.getTotalTime()) / NANOS_PER_MILLI);
+
+        // the first interval that ends after the start of the execution
+        int low = 0;
+        int high = stallList.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (stallList.get(middle).getEventTime() < start) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < stallList.size() && stallList.get(low).getStartTime() <= end;
+    }
+
+    void print(final PrintStream out) {
+
+        long intervalMillis = 0;
+        long gcCount = 0;
+        long gcTime = 0;
+        long maxGcPause = -1;
+        long maxStall = 0;
+        double maxCpu = -1;
+        double allocationRate = 0;
+        int allocationSamples = 0;
+        for (final JvmSample sample : sampleList) {
+            intervalMillis += sample.getInterval();
+            gcCount += sample.getGcCount();
+            gcTime += sample.getGcTime();
+            maxGcPause = Math.max(maxGcPause, sample.getMaxGcPause());
+            maxStall = Math.max(maxStall, sample.getMaxStall());
+            maxCpu = Math.max(maxCpu, sample.getProcessCpu());
+            if (sample.getAllocationRate() >= 0) {
+                allocationRate += sample.getAllocationRate();
+                allocationSamples++;
+            }
+        }
+
+        out.format("%n%nClient JVM (samples: %d, threshold of a stall: %.3f ms)%n", sampleList.size(),
+                thresholdNanos / NANOS_PER_MILLI);
+        out.format("GC: %d collections, %.3f ms (%.2f%% of the time)%n", gcCount, gcTime / NANOS_PER_MILLI,
+                intervalMillis > 0 ? gcTime / NANOS_PER_MILLI * 100 / intervalMillis : 0);
+        out.format("Longest GC pause: %s%n",
+                maxGcPause < 0 ? "-" : String.format("%.3f ms", maxGcPause / NANOS_PER_MILLI));
+        out.format("Longest stall: %.3f ms, intervals with a stall: %d%n", maxStall / NANOS_PER_MILLI,
+                stallList.size());
+        out.format("Peak process CPU: %s%n", maxCpu < 0 ? "-" : String.format("%.1f%%", maxCpu));
+        out.format("Mean allocation rate: %s%n", allocationSamples == 0 ? "-"
+                : String.format("%.1f MB/s", allocationRate / allocationSamples / BYTES_PER_MEGABYTE));
+
+        if (latencyTable.size() > 0) {
+            latencyTable.print(out);
+        }
+    }
+}
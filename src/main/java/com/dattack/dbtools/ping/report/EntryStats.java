@@ -22,10 +22,10 @@ package com.dattack.dbtools.ping.report;
 public class EntryStats {
 
     private final long valueX;
-    private final long valueY;
+    private final double valueY;
     private final int group;
 
-    public EntryStats(final long valueX, final long valueY, final int group) {
+    public EntryStats(final long valueX, final double valueY, final int group) {
         this.valueX = valueX;
         this.valueY = valueY;
         this.group = group;
@@ -35,7 +35,7 @@ public class EntryStats {
         return valueX;
     }
 
-    public long getY() {
+    public double getY() {
         return valueY;
     }
 
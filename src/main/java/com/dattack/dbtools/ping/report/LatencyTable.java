@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.report;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.dattack.dbtools.metrics.HistogramSnapshot;
+import com.dattack.dbtools.metrics.LatencyHistogram;
+import com.dattack.dbtools.ping.LogEntry;
+
+/**
+ * Throughput and latency of groups of executions, like the stages of a load profile or the datasources of a task.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+class LatencyTable {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double MILLIS_PER_SECOND = TimeUnit.SECONDS.toMillis(1);
+
+    private final String title;
+    private final String keyHeader;
+    private final Map<String, Row> rowMap;
+
+    private static class Row {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long errors;
+        private long firstEventTime = Long.MAX_VALUE;
+        private long lastEventTime = Long.MIN_VALUE;
+
+        /**
+         * Adds an execution. Like the live metrics, the latency of the failed executions is ignored, except for the
+         * timed-out ones.
+         */
+        void add(final LogEntry logEntry) {
+            firstEventTime = Math.min(firstEventTime, logEntry.getEventTime());
+            lastEventTime = Math.max(lastEventTime, logEntry.getEventTime());
+            if (logEntry.getException() != null) {
+                errors++;
+                if (!logEntry.isTimedOut()) {
+                    return;
+                }
+            }
+            if (logEntry.getTotalTime() >= 0) {
+                histogram.record(logEntry.getTotalTime());
+            }
+        }
+
+        /**
+         * Returns the executions per second, estimated from the event times of the first and last executions.
+         */
+        double getThroughput(final long count) {
+            if (count < 2 || lastEventTime <= firstEventTime) {
+                return Double.NaN;
+            }
+            return (count - 1) * MILLIS_PER_SECOND / (lastEventTime - firstEventTime);
+        }
+    }
+
+    /**
+     * Creates a new table.
+     *
+     * @param title
+     *            the title of the table
+     * @param keyHeader
+     *            the header of the column that identifies each row
+     * @param sorted
+     *            <code>true</code> to sort the rows by key or <code>false</code> to keep the order of appearance
+     */
+    LatencyTable(final String title, final String keyHeader, final boolean sorted) {
+        this.title = title;
+        this.keyHeader = keyHeader;
+        if (sorted) {
+            this.rowMap = new TreeMap<>();
+        } else {
+            this.rowMap = new LinkedHashMap<>();
+        }
+    }
+
+    void add(final String key, final LogEntry logEntry) {
+
+        Row row = rowMap.get(key);
+        if (row == null) {
+            row = new Row();
+            rowMap.put(key, row);
+        }
+        row.add(logEntry);
+    }
+
+    int size() {
+        return rowMap.size();
+    }
+
+    void print(final PrintStream out) {
+
+        out.format("%n%n%s (latency unit: ms)%n", title);
+        out.format("%-40s %10s %10s %12s %10s %10s %10s %10s %10s%n", keyHeader, "count", "errors", "throughput",
+                "mean", "p50", "p90", "p99", "max");
+
+        for (final Map.Entry<String, Row> entry : rowMap.entrySet()) {
+            final HistogramSnapshot snapshot = entry.getValue().histogram.snapshot();
+            out.format("%-40s %10d %10d %12.2f %10.3f %10.3f %10.3f %10.3f %10.3f%n", entry.getKey(), //
+                    snapshot.getCount(), //
+                    entry.getValue().errors, //
+                    entry.getValue().getThroughput(snapshot.getCount()), //
+                    snapshot.getMean() / NANOS_PER_MILLI, //
+                    snapshot.getValueAtPercentile(50) / NANOS_PER_MILLI, //
+                    snapshot.getValueAtPercentile(90) / NANOS_PER_MILLI, //
+                    snapshot.getValueAtPercentile(99) / NANOS_PER_MILLI, //
+                    snapshot.getMax() / NANOS_PER_MILLI);
+        }
+    }
+}
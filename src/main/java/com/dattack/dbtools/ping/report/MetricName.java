@@ -31,6 +31,24 @@ public class MetricName {
 
     public static final String FIRST_ROW_TIME_KEY = "First row time";
     public static final String EXECUTION_TIME_KEY = "Total time";
+    public static final String QUERY_TIME_KEY = "Query time";
+    public static final String ROWS_PER_SECOND_KEY = "Rows per second";
+    public static final String EXECUTE_TIME_KEY = "Execute time";
+    public static final String FETCH_TIME_KEY = "Fetch time";
+    public static final String CLOSE_TIME_KEY = "Close time";
+    public static final String FETCH_ROUND_TRIPS_KEY = "Fetch round trips";
+    public static final String TIMEOUT_TIME_KEY = "Timeout time";
+    public static final String CANCEL_TIME_KEY = "Cancel time";
+
+    /**
+     * The task name of the metrics of the client JVM, which are shared by all the tasks of a log.
+     */
+    public static final String JVM_TASK_NAME = "JVM";
+    public static final String GC_TIME_KEY = "GC time";
+    public static final String MAX_GC_PAUSE_KEY = "Max GC pause";
+    public static final String MAX_STALL_KEY = "Max stall";
+    public static final String PROCESS_CPU_KEY = "Process CPU";
+    public static final String ALLOCATION_RATE_KEY = "Allocation rate";
 
     /**
      * Creates a MetricName from its value.
@@ -26,16 +26,21 @@ import java.util.List;
  */
 public class ReportContext {
 
+    private static final long DEFAULT_STALL_THRESHOLD = 10;
+
     private SimpleDateFormat dateFormat;
     private Date endDate;
     private Date startDate;
     private Long timeSpan;
+    private long stallThreshold;
     private Long maxValue;
     private Long minValue;
+    private boolean includeWarmUp;
     private final List<MetricName> metricNameList;
 
     public ReportContext() {
         dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        this.stallThreshold = DEFAULT_STALL_THRESHOLD;
         this.metricNameList = new ArrayList<MetricName>();
     }
 
@@ -55,6 +60,19 @@ public class ReportContext {
         this.minValue = minValue;
     }
 
+    /**
+     * Indicates whether the executions flagged as warm-up are included in the report.
+     *
+     * @return the includeWarmUp
+     */
+    public boolean isIncludeWarmUp() {
+        return includeWarmUp;
+    }
+
+    public void setIncludeWarmUp(final boolean includeWarmUp) {
+        this.includeWarmUp = includeWarmUp;
+    }
+
     public SimpleDateFormat getDateFormat() {
         return dateFormat;
     }
@@ -75,6 +93,20 @@ public class ReportContext {
         this.startDate = startDate;
     }
 
+    /**
+     * Returns the longest stall of the client JVM (milliseconds) that doesn't taint the executions that overlap it.
+     * Defaults to 10 ms.
+     *
+     * @return the stallThreshold
+     */
+    public long getStallThreshold() {
+        return stallThreshold;
+    }
+
+    public void setStallThreshold(final long stallThreshold) {
+        this.stallThreshold = stallThreshold;
+    }
+
     public Long getTimeSpan() {
         return timeSpan;
     }
@@ -19,8 +19,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import com.dattack.dbtools.ping.LogEntry;
+import com.dattack.dbtools.ping.log.JvmSample;
 
 /**
  * @author cvarela
@@ -28,6 +30,9 @@ import com.dattack.dbtools.ping.LogEntry;
  */
 class ReportStats {
 
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
     private final Map<MetricName, EntryGroup> groupMap;
     private final Map<Integer, EntryStats> entryStatsMap;
     private final Map<Integer, GroupStats> groupStatsMap;
@@ -49,23 +54,95 @@ class ReportStats {
         // connection time
         addEntryStats(list,
                 new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.CONNECTION_TIME_KEY),
-                eventTime, logEntry.getConnectionTime());
+                eventTime, toMillis(logEntry.getConnectionTime()));
+
+        if (logEntry.isTimedOut()) {
+            // a distinct outcome: the total time of a cancelled execution isn't comparable with the others
+            addEntryStats(list,
+                    new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.TIMEOUT_TIME_KEY),
+                    eventTime, toMillis(logEntry.getTotalTime()));
+            addEntryStats(list,
+                    new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.CANCEL_TIME_KEY),
+                    eventTime, toMillis(logEntry.getCancelTime()));
+            return list;
+        }
 
         // first row
         addEntryStats(list,
                 new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.FIRST_ROW_TIME_KEY),
-                eventTime, logEntry.getFirstRowTime());
+                eventTime, toMillis(logEntry.getFirstRowTime()));
 
         // execution time
         addEntryStats(list,
                 new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.EXECUTION_TIME_KEY),
-                eventTime, logEntry.getTotalTime());
+                eventTime, toMillis(logEntry.getTotalTime()));
+
+        // query time (excluding the connection time)
+        addEntryStats(list, new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.QUERY_TIME_KEY),
+                eventTime, toMillis(logEntry.getQueryTime()));
+
+        // phases of the query time: server execution, fetch of the rows and close
+        if (logEntry.getExecuteTime() >= 0) {
+            addEntryStats(list,
+                    new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.EXECUTE_TIME_KEY),
+                    eventTime, toMillis(logEntry.getExecuteTime()));
+        }
+        if (logEntry.getFetchTime() >= 0) {
+            addEntryStats(list,
+                    new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.FETCH_TIME_KEY),
+                    eventTime, toMillis(logEntry.getFetchTime()));
+            addEntryStats(list,
+                    new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.FETCH_ROUND_TRIPS_KEY),
+                    eventTime, logEntry.getFetchRoundTrips());
+        }
+        if (logEntry.getCloseTime() >= 0) {
+            addEntryStats(list,
+                    new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.CLOSE_TIME_KEY),
+                    eventTime, toMillis(logEntry.getCloseTime()));
+        }
+
+        // throughput (fetched or affected rows)
+        if (logEntry.getRows() > 0) {
+            addEntryStats(list,
+                    new MetricName(logEntry.getTaskName(), logEntry.getSqlLabel(), MetricName.ROWS_PER_SECOND_KEY),
+                    eventTime, logEntry.getRowsPerSecond());
+        }
+
+        return list;
+    }
+
+    /**
+     * Adds a sample of the client JVM: the time in GC, the longest GC pause and the longest stall (ms), the process
+     * CPU (%) and the allocation rate (MB/s).
+     */
+    List<EntryStats> add(final JvmSample sample) {
+
+        final long eventTime = normalizeEventTime(sample.getEventTime());
+
+        final List<EntryStats> list = new ArrayList<EntryStats>();
+
+        addEntryStats(list, new MetricName(MetricName.JVM_TASK_NAME, null, MetricName.GC_TIME_KEY), eventTime,
+                toMillis(sample.getGcTime()));
+        if (sample.getMaxGcPause() >= 0) {
+            addEntryStats(list, new MetricName(MetricName.JVM_TASK_NAME, null, MetricName.MAX_GC_PAUSE_KEY),
+                    eventTime, toMillis(sample.getMaxGcPause()));
+        }
+        addEntryStats(list, new MetricName(MetricName.JVM_TASK_NAME, null, MetricName.MAX_STALL_KEY), eventTime,
+                toMillis(sample.getMaxStall()));
+        if (sample.getProcessCpu() >= 0) {
+            addEntryStats(list, new MetricName(MetricName.JVM_TASK_NAME, null, MetricName.PROCESS_CPU_KEY),
+                    eventTime, sample.getProcessCpu());
+        }
+        if (sample.getAllocationRate() >= 0) {
+            addEntryStats(list, new MetricName(MetricName.JVM_TASK_NAME, null, MetricName.ALLOCATION_RATE_KEY),
+                    eventTime, sample.getAllocationRate() / BYTES_PER_MEGABYTE);
+        }
 
         return list;
     }
 
     private void addEntryStats(final List<EntryStats> list, final MetricName metricName, final long valueX,
-            final long valueY) {
+            final double valueY) {
 
         if (context.getMetricNameList().isEmpty() || context.getMetricNameList().contains(metricName)) {
 
@@ -103,6 +180,13 @@ class ReportStats {
         return groupStatsMap.get(group);
     }
 
+    private static double toMillis(final long nanos) {
+        if (nanos < 0) {
+            return nanos;
+        }
+        return nanos / NANOS_PER_MILLI;
+    }
+
     private long normalizeEventTime(final long eventTime) {
         if (context.getTimeSpan() != null && context.getTimeSpan() > 0) {
             return (eventTime / context.getTimeSpan()) * context.getTimeSpan();
@@ -110,9 +194,9 @@ class ReportStats {
         return eventTime;
     }
 
-    private long normalizeValue(final long value) {
+    private double normalizeValue(final double value) {
 
-        long normalizedValue = value;
+        double normalizedValue = value;
         if (context.getMinValue() != null && normalizedValue < context.getMinValue()) {
             normalizedValue = context.getMinValue();
         } else if (context.getMaxValue() != null && normalizedValue > context.getMaxValue()) {
@@ -19,10 +19,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
 
 import com.dattack.dbtools.ping.LogEntry;
 import com.dattack.dbtools.ping.log.CSVFileLogReader;
+import com.dattack.dbtools.ping.log.JvmSample;
 
 /**
  * @author cvarela
@@ -57,9 +62,12 @@ public class Reporter {
     }
 
     private static void createJs(final ReportContext context, final PrintWriter writer,
-            final CSVFileLogReader logReader) throws IOException {
+            final CSVFileLogReader logReader, final ClientStalls clientStalls) throws IOException {
 
         final ReportStats reportStats = new ReportStats(context);
+        final LatencyTable stageTable = new LatencyTable("Stages", "stage", false);
+        final LatencyTable datasourceTable = new LatencyTable("Datasources", "label @ datasource", true);
+        final Set<String> datasourceSet = new HashSet<>();
 
         writer.println("var items = [");
 
@@ -85,6 +93,11 @@ public class Reporter {
                 break;
             }
 
+            // excludes the warm-up executions
+            if (item.isWarmUp() && !context.isIncludeWarmUp()) {
+                continue;
+            }
+
             // apply time filters
             if (item.getEventTime() < reportStartDateFilter || item.getEventTime() > reportEndDateFilter) {
                 continue;
@@ -93,17 +106,23 @@ public class Reporter {
             startDate = Math.min(startDate, item.getEventTime());
             endDate = Math.max(endDate, item.getEventTime());
 
-            final List<EntryStats> entryStatsList = reportStats.add(item);
-
-            for (final EntryStats entryStats : entryStatsList) {
-                final String line = String.format("{x: '%s', y: %d, group: %d}",
-                        context.getDateFormat().format(new Date(entryStats.getX())), entryStats.getY(),
-                        entryStats.getGroup());
-                if (items > 0) {
-                    writer.print(",");
-                }
-                writer.print(line);
-                items++;
+            if (item.getStage() != null) {
+                stageTable.add(item.getStage(), item);
+            }
+            if (item.getDatasource() != null) {
+                datasourceSet.add(item.getDatasource());
+                datasourceTable.add(StringUtils.trimToEmpty(item.getSqlLabel()) + " @ " + item.getDatasource(), item);
+            }
+            if (clientStalls != null) {
+                clientStalls.add(item);
+            }
+            items = print(context, writer, reportStats.add(item), items);
+        }
+
+        // the overhead of the client JVM, overlaid on the latencies
+        if (clientStalls != null) {
+            for (final JvmSample sample : clientStalls.getSamples()) {
+                items = print(context, writer, reportStats.add(sample), items);
             }
         }
 
@@ -121,10 +140,25 @@ public class Reporter {
                 System.out.format("Mean: %s%n", groupStats.getStatistics().getMean());
                 System.out.format("Standard deviation: %s%n", groupStats.getStatistics().getStandardDeviation());
             }
-            writer.println(
-                    String.format("groups.add({id: '%d', content: '%s', options: {drawPoints: {style: 'circle'}}});",
-                            entryGroup.getId(), entryGroup.getName()));
+            // the metrics of the client JVM have their own scale
+            final boolean jvmMetric = MetricName.JVM_TASK_NAME.equals(entryGroup.getName().getTaskName());
+            writer.println(String.format(
+                    "groups.add({id: '%d', content: '%s', options: {drawPoints: {style: 'circle'}%s}});",
+                    entryGroup.getId(), entryGroup.getName(), jvmMetric ? ", yAxisOrientation: 'right'" : ""));
+
+        }
+
+        if (stageTable.size() > 0) {
+            stageTable.print(System.out);
+        }
+
+        // side-by-side comparison of the datasources of the task
+        if (datasourceSet.size() > 1) {
+            datasourceTable.print(System.out);
+        }
 
+        if (clientStalls != null) {
+            clientStalls.print(System.out);
         }
 
         writer.println("var container = document.getElementById('visualization');");
@@ -135,8 +169,26 @@ public class Reporter {
         writer.println("var graph2d = new vis.Graph2d(container, dataset, groups, options);");
     }
 
+    private static int print(final ReportContext context, final PrintWriter writer,
+            final List<EntryStats> entryStatsList, final int items) {
+
+        int count = items;
+        for (final EntryStats entryStats : entryStatsList) {
+            final String line = String.format("{x: '%s', y: %s, group: %d}",
+                    context.getDateFormat().format(new Date(entryStats.getX())), entryStats.getY(),
+                    entryStats.getGroup());
+            if (count > 0) {
+                writer.print(",");
+            }
+            writer.print(line);
+            count++;
+        }
+        return count;
+    }
+
     /**
-     * Process all data from an input file and generates a HTML report.
+     * Process all data from an input file and generates a HTML report. The series of the client JVM written next to
+     * the file, if any, is overlaid on the latencies.
      *
      * @param dataFile
      *            the input file
@@ -152,7 +204,7 @@ public class Reporter {
             // Javascript file
             final String jsFilename = dataFile.getName() + ".js";
             try (PrintWriter jsWriter = new PrintWriter(new File(dataFile.getParent(), jsFilename), "UTF-8")) {
-                createJs(context, jsWriter, logReader);
+                createJs(context, jsWriter, logReader, ClientStalls.load(dataFile, context));
             }
 
             // HTML file
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.thinktime;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+
+/**
+ * Exponentially distributed think times, sampled by inversion.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class ExponentialThinkTime implements ThinkTime {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final double meanNanos;
+
+    ExponentialThinkTime(final double meanMillis) throws DbpingParserException {
+        if (meanMillis < 0) {
+            throw new DbpingParserException("The mean think time must be greater than or equal to zero");
+        }
+        this.meanNanos = meanMillis * NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long nextNanos() {
+        // 1 - U is in (0, 1] so the logarithm is always defined
+        return (long) (-meanNanos * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.thinktime;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dattack.dbtools.ping.log.CSVConfigurationFactory;
+import com.dattack.formats.csv.CSVObject;
+import com.dattack.formats.csv.CSVReader;
+
+/**
+ * Think times replayed in order from the first column of a file. The workers share the position in the sequence, so
+ * the whole task reproduces the recorded gaps.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class FileThinkTime implements ThinkTime {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long[] values;
+    private final AtomicLong position;
+
+    private static long[] load(final File file) throws IOException {
+
+        final List<Long> list = new ArrayList<>();
+        final CSVReader reader = new CSVReader(new CSVConfigurationFactory().create(), file);
+        try {
+            CSVObject row = reader.next();
+            while (row != null) {
+                final double millis;
+                try {
+                    millis = Double.parseDouble(row.get(0).trim());
+                } catch (final NumberFormatException e) {
+                    throw new IOException(String.format("Invalid think time '%s' (file: '%s')", row.get(0), file), e);
+                }
+                list.add(Math.max(0, (long) (millis * NANOS_PER_MILLI)));
+                row = reader.next();
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (list.isEmpty()) {
+            throw new IOException(String.format("The file '%s' doesn't contain any value", file));
+        }
+
+        final long[] array = new long[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    FileThinkTime(final File file) throws IOException {
+        this.values = load(file);
+        this.position = new AtomicLong();
+    }
+
+    @Override
+    public long nextNanos() {
+        return values[(int) ((position.getAndIncrement() & Long.MAX_VALUE) % values.length)];
+    }
+}
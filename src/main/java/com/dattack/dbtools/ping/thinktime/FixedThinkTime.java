@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.thinktime;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A constant think time.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class FixedThinkTime implements ThinkTime {
+
+    private final long nanos;
+
+    FixedThinkTime(final long millis) {
+        this.nanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+    }
+
+    @Override
+    public long nextNanos() {
+        return nanos;
+    }
+}
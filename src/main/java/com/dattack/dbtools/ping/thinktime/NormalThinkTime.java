@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.thinktime;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+
+/**
+ * Normally distributed think times, truncated to zero.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class NormalThinkTime implements ThinkTime {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final double meanNanos;
+    private final double stddevNanos;
+
+    NormalThinkTime(final double meanMillis, final double stddevMillis) throws DbpingParserException {
+        if (stddevMillis < 0) {
+            throw new DbpingParserException("The standard deviation must be greater than or equal to zero");
+        }
+        this.meanNanos = meanMillis * NANOS_PER_MILLI;
+        this.stddevNanos = stddevMillis * NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long nextNanos() {
+        return Math.max(0, (long) (meanNanos + stddevNanos * ThreadLocalRandom.current().nextGaussian()));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.thinktime;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+import com.dattack.dbtools.ping.beans.ExponentialThinkTimeBean;
+import com.dattack.dbtools.ping.beans.FileThinkTimeBean;
+import com.dattack.dbtools.ping.beans.NormalThinkTimeBean;
+import com.dattack.dbtools.ping.beans.PingTaskBean;
+import com.dattack.dbtools.ping.beans.ThinkTimeBeanVisitor;
+import com.dattack.dbtools.ping.beans.UniformThinkTimeBean;
+
+/**
+ * Creates the think time of a task.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+public final class ThinkTimeFactory {
+
+    private static class ThinkTimeVisitor implements ThinkTimeBeanVisitor {
+
+        private ThinkTime thinkTime;
+        private DbpingParserException exception;
+
+        @Override
+        public void visite(final ExponentialThinkTimeBean bean) {
+            try {
+                thinkTime = new ExponentialThinkTime(bean.getMean());
+            } catch (final DbpingParserException e) {
+                exception = e;
+            }
+        }
+
+        @Override
+        public void visite(final FileThinkTimeBean bean) {
+            try {
+                thinkTime = new FileThinkTime(new File(bean.getFile()));
+            } catch (final IOException e) {
+                exception = new DbpingParserException(e);
+            }
+        }
+
+        @Override
+        public void visite(final NormalThinkTimeBean bean) {
+            try {
+                thinkTime = new NormalThinkTime(bean.getMean(), bean.getStddev());
+            } catch (final DbpingParserException e) {
+                exception = e;
+            }
+        }
+
+        @Override
+        public void visite(final UniformThinkTimeBean bean) {
+            try {
+                thinkTime = new UniformThinkTime(bean.getMin(), bean.getMax());
+            } catch (final DbpingParserException e) {
+                exception = e;
+            }
+        }
+    }
+
+    /**
+     * Creates the think time of a task: the distribution defined by the task or, if there is none, the constant
+     * <code>timeBetweenExecutions</code>.
+     *
+     * @param pingTaskBean
+     *            the task definition
+     * @return the think time
+     * @throws DbpingParserException
+     *             if the think time is invalid or the values of a file can't be loaded
+     */
+    public static ThinkTime create(final PingTaskBean pingTaskBean) throws DbpingParserException {
+
+        if (pingTaskBean.getThinkTime() == null) {
+            return new FixedThinkTime(pingTaskBean.getTimeBetweenExecutions());
+        }
+
+        final ThinkTimeVisitor visitor = new ThinkTimeVisitor();
+        pingTaskBean.getThinkTime().accept(visitor);
+        if (visitor.exception != null) {
+            throw visitor.exception;
+        }
+        return visitor.thinkTime;
+    }
+
+    private ThinkTimeFactory() {
+        // static class
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.thinktime;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.dattack.dbtools.ping.beans.DbpingParserException;
+
+/**
+ * Think times uniformly distributed in a range.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+final class UniformThinkTime implements ThinkTime {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final double minNanos;
+    private final double rangeNanos;
+
+    UniformThinkTime(final double minMillis, final double maxMillis) throws DbpingParserException {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new DbpingParserException(
+                    String.format("Invalid think time range [%s, %s]", minMillis, maxMillis));
+        }
+        this.minNanos = minMillis * NANOS_PER_MILLI;
+        this.rangeNanos = (maxMillis - minMillis) * NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long nextNanos() {
+        return (long) (minNanos + rangeNanos * ThreadLocalRandom.current().nextDouble());
+    }
+}
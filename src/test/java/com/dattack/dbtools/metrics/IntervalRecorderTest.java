@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * @author cvarela
+ * @since 0.1
+ */
+public class IntervalRecorderTest {
+
+    private static final int WRITERS = 4;
+    private static final int VALUES_PER_WRITER = 200000;
+
+    @Test
+    public void testEmptyInterval() {
+
+        final IntervalRecorder recorder = new IntervalRecorder();
+        assertEquals(0, recorder.nextInterval().getCount());
+        assertEquals(0, recorder.nextInterval().getCount());
+    }
+
+    @Test
+    public void testNextIntervalStartsAnEmptyInterval() {
+
+        final IntervalRecorder recorder = new IntervalRecorder();
+        recorder.record(10);
+        recorder.record(20);
+
+        final HistogramSnapshot first = recorder.nextInterval();
+        assertEquals(2, first.getCount());
+        assertEquals(10, first.getMin());
+        assertEquals(20, first.getMax());
+
+        recorder.record(30);
+        final HistogramSnapshot second = recorder.nextInterval();
+        assertEquals(1, second.getCount());
+        assertEquals(30, second.getMin());
+
+        assertEquals(0, recorder.nextInterval().getCount());
+    }
+
+    @Test
+    public void testNoValueIsLostWhileSwapping() throws InterruptedException {
+
+        final IntervalRecorder recorder = new IntervalRecorder();
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean failed = new AtomicBoolean();
+
+        final List<Thread> writerList = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            final Thread writer = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < VALUES_PER_WRITER; j++) {
+                            recorder.record(j);
+                        }
+                    } catch (final InterruptedException e) {
+                        failed.set(true);
+                    }
+                }
+            });
+            writer.start();
+            writerList.add(writer);
+        }
+
+        // the reader swaps the histograms as fast as it can while the writers are recording
+        long total = 0;
+        int intervals = 0;
+        start.countDown();
+        for (final Thread writer : writerList) {
+            while (writer.isAlive()) {
+                total += recorder.nextInterval().getCount();
+                intervals++;
+            }
+            writer.join();
+        }
+        total += recorder.nextInterval().getCount();
+
+        assertFalse(failed.get());
+        assertEquals("values recorded in " + intervals + " intervals", (long) WRITERS * VALUES_PER_WRITER, total);
+    }
+}
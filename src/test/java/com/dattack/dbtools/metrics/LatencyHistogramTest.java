@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author cvarela
+ * @since 0.1
+ */
+public class LatencyHistogramTest {
+
+    /** The values of a bucket differ by less than 1/64 of its lowest value. */
+    private static final double MAX_RELATIVE_WIDTH = 1.0 / 64;
+
+    private static void assertBucketContains(final long value) {
+
+        final int index = LatencyHistogram.bucketIndex(value);
+        final long lowest = LatencyHistogram.lowestEquivalentValue(index);
+        final long highest = LatencyHistogram.highestEquivalentValue(index);
+        assertTrue("lowest value of the bucket of " + value, lowest <= value);
+        assertTrue("highest value of the bucket of " + value, highest >= value);
+        assertTrue("width of the bucket of " + value, highest - lowest < Math.max(1, lowest * MAX_RELATIVE_WIDTH));
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+
+        assertEquals(0, LatencyHistogram.lowestEquivalentValue(0));
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            assertEquals("bucket " + i, LatencyHistogram.highestEquivalentValue(i - 1) + 1,
+                    LatencyHistogram.lowestEquivalentValue(i));
+        }
+    }
+
+    @Test
+    public void testBucketsContainTheirValues() {
+
+        for (int shift = 0; shift < 43; shift++) {
+            final long power = 1L << shift;
+            assertBucketContains(power - 1);
+            assertBucketContains(power);
+            assertBucketContains(power + 1);
+            assertBucketContains(power + power / 3);
+        }
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+
+        final HistogramSnapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getMean(), 0);
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testExactValues() {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(100, snapshot.getMax());
+        assertEquals(50.5, snapshot.getMean(), 1e-9);
+        assertEquals(50, snapshot.getValueAtPercentile(50));
+        assertEquals(99, snapshot.getValueAtPercentile(99));
+        assertEquals(100, snapshot.getValueAtPercentile(100));
+        assertEquals(1, snapshot.getValueAtPercentile(0));
+        assertEquals(10, snapshot.getCountAtOrBelow(10));
+    }
+
+    @Test
+    public void testMerge() {
+
+        final LatencyHistogram first = new LatencyHistogram();
+        final LatencyHistogram second = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            first.record(TimeUnit.MICROSECONDS.toNanos(i));
+            second.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        final LatencyHistogram merged = new LatencyHistogram();
+        merged.add(first.snapshot());
+        merged.add(second.snapshot());
+
+        final HistogramSnapshot snapshot = merged.snapshot();
+        assertEquals(2000, snapshot.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1), snapshot.getMin());
+        assertEquals(TimeUnit.SECONDS.toNanos(1), snapshot.getMax());
+        // the 1000th value: the highest one in microseconds shares its bucket with the lowest one in milliseconds
+        assertEquals(LatencyHistogram.highestEquivalentValue(LatencyHistogram.bucketIndex(first.snapshot().getMax())),
+                snapshot.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(1, snapshot.getBucketCount(0));
+        assertEquals(1, snapshot.getBucketCount(LatencyHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void testPercentileRelativeError() {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+        final double[] percentiles = { 50, 90, 99, 99.9 };
+        for (final double percentile : percentiles) {
+            final double expected = TimeUnit.MICROSECONDS.toNanos((long) (percentile * 1000));
+            final long actual = snapshot.getValueAtPercentile(percentile);
+            assertTrue("p" + percentile + ": " + actual, actual >= expected);
+            assertTrue("p" + percentile + ": " + actual, actual <= expected * (1 + MAX_RELATIVE_WIDTH));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), snapshot.getMax());
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 12345L);
+        }
+        final HistogramSnapshot snapshot = histogram.snapshot();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot.write(new DataOutputStream(bytes));
+        final HistogramSnapshot copy = HistogramSnapshot
+                .read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(snapshot.getCount(), copy.getCount());
+        assertEquals(snapshot.getMin(), copy.getMin());
+        assertEquals(snapshot.getMax(), copy.getMax());
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            assertEquals("bucket " + i, snapshot.getBucketCount(i), copy.getBucketCount(i));
+        }
+    }
+}
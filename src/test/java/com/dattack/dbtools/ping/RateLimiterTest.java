@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author cvarela
+ * @since 0.1
+ */
+public class RateLimiterTest {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurst() {
+
+        // 10 executions per second: a slot every 100 ms
+        final RateLimiter limiter = new RateLimiter(10, 3);
+        assertEquals(0, limiter.acquire());
+        assertEquals(0, limiter.acquire());
+        assertEquals(0, limiter.acquire());
+
+        final long waited = limiter.acquire();
+        assertTrue("waited " + waited, waited > 0);
+        assertTrue("waited " + waited, waited <= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testIdleTimeDoesNotExceedTheBurst() throws InterruptedException {
+
+        final RateLimiter limiter = new RateLimiter(10, 2);
+        Thread.sleep(500);
+
+        // five idle slots, but only two executions may start back to back
+        assertEquals(0, limiter.acquire());
+        assertEquals(0, limiter.acquire());
+        assertTrue(limiter.acquire() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        new RateLimiter(0, 1);
+    }
+
+    @Test
+    public void testSharedByThreads() throws InterruptedException {
+
+        final double rate = 100;
+        final int threads = 4;
+        final int acquiresPerThread = 10;
+        final RateLimiter limiter = new RateLimiter(rate, 1);
+
+        final Thread[] workers = new Thread[threads];
+        final long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < acquiresPerThread; j++) {
+                        limiter.acquire();
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        // 40 slots, 10 ms apart, whatever the thread that takes each one
+        final long expected = (long) ((threads * acquiresPerThread - 1) * NANOS_PER_SECOND / rate);
+        assertTrue("elapsed " + elapsed, elapsed >= expected - TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testSustainedRate() {
+
+        final double rate = 200;
+        final long intervalNanos = (long) (NANOS_PER_SECOND / rate);
+        final RateLimiter limiter = new RateLimiter(rate, 1);
+
+        // the slots start at the creation of the limiter, one interval apart
+        final long start = System.nanoTime();
+        for (int i = 0; i <= 20; i++) {
+            limiter.acquire();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        assertTrue("elapsed " + elapsed, elapsed >= 19 * intervalNanos);
+        assertTrue("elapsed " + elapsed, elapsed < NANOS_PER_SECOND);
+    }
+}
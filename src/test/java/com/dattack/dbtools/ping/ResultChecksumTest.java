@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.junit.Test;
+
+/**
+ * @author cvarela
+ * @since 0.1
+ */
+public class ResultChecksumTest {
+
+    private static final int[] BIGINT_VARCHAR = { Types.BIGINT, Types.VARCHAR };
+    private static final int[] NUMERIC_VARCHAR = { Types.NUMERIC, Types.VARCHAR };
+
+    /**
+     * A forward-only result set over an array, with the getters that the checksum uses.
+     */
+    private static final class ArrayResultSet implements InvocationHandler {
+
+        private final Object[][] rows;
+        private final int[] columnTypes;
+        private int current = -1;
+        private boolean wasNull;
+
+        ArrayResultSet(final Object[][] rows, final int[] columnTypes) {
+            this.rows = rows;
+            this.columnTypes = columnTypes;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+
+            switch (method.getName()) {
+                case "next":
+                    current++;
+                    return current < rows.length;
+                case "wasNull":
+                    return wasNull;
+                case "getColumnCount":
+                    return columnTypes.length;
+                case "getColumnType":
+                    return columnTypes[(Integer) args[0] - 1];
+                default:
+                    break;
+            }
+
+            final Object value = rows[current][(Integer) args[0] - 1];
+            wasNull = value == null;
+            switch (method.getName()) {
+                case "getLong":
+                    return wasNull ? 0L : ((Number) value).longValue();
+                case "getDouble":
+                    return wasNull ? 0d : ((Number) value).doubleValue();
+                case "getBigDecimal":
+                    return wasNull ? null : new BigDecimal(value.toString());
+                case "getString":
+                    return wasNull ? null : value.toString();
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+
+    private static long checksum(final Object[][] rows, final int[] columnTypes, final boolean orderedRows)
+            throws SQLException {
+
+        final ArrayResultSet handler = new ArrayResultSet(rows, columnTypes);
+        final ClassLoader classLoader = ResultChecksumTest.class.getClassLoader();
+        final ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(classLoader,
+                new Class<?>[] { ResultSet.class }, handler);
+        final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(classLoader,
+                new Class<?>[] { ResultSetMetaData.class }, handler);
+
+        final ResultChecksum checksum = new ResultChecksum();
+        checksum.start(metaData, orderedRows);
+        while (resultSet.next()) {
+            checksum.update(resultSet);
+        }
+        return checksum.getValue();
+    }
+
+    @Test
+    public void testDecimalScale() throws SQLException {
+
+        final int[] types = { Types.DECIMAL };
+        assertEquals(checksum(new Object[][] { { "1.5" } }, types, true),
+                checksum(new Object[][] { { "1.500" } }, types, true));
+        assertNotEquals(checksum(new Object[][] { { "1.5" } }, types, true),
+                checksum(new Object[][] { { "1.05" } }, types, true));
+    }
+
+    @Test
+    public void testIntegerAndDecimalTypes() throws SQLException {
+
+        // BIGINT in a database, NUMBER(19,0) in another one: the same values give the same checksum
+        final Object[][] longRows = { { 1L, "a" }, { Long.MAX_VALUE, "b" }, { -7L, null } };
+        final Object[][] decimalRows = { { "1", "a" }, { "9223372036854775807", "b" }, { "-7.00", null } };
+        assertEquals(checksum(longRows, BIGINT_VARCHAR, true), checksum(decimalRows, NUMERIC_VARCHAR, true));
+
+        final int[] integerTypes = { Types.INTEGER, Types.VARCHAR };
+        final Object[][] intRows = { { 1, "a" }, { 0, "b" } };
+        final Object[][] zeroRows = { { "1.0", "a" }, { "0.000", "b" } };
+        assertEquals(checksum(intRows, integerTypes, true), checksum(zeroRows, NUMERIC_VARCHAR, true));
+    }
+
+    @Test
+    public void testNullIsNotAnEmptyString() throws SQLException {
+
+        final int[] types = { Types.VARCHAR };
+        assertNotEquals(checksum(new Object[][] { { null } }, types, true),
+                checksum(new Object[][] { { "" } }, types, true));
+    }
+
+    @Test
+    public void testNumberIsNotAString() throws SQLException {
+
+        final int[] stringTypes = { Types.VARCHAR, Types.VARCHAR };
+        final Object[][] rows = { { 1L, "a" } };
+        assertNotEquals(checksum(rows, BIGINT_VARCHAR, true), checksum(rows, stringTypes, true));
+    }
+
+    @Test
+    public void testRowCount() throws SQLException {
+
+        assertNotEquals(checksum(new Object[0][], BIGINT_VARCHAR, false),
+                checksum(new Object[][] { { 0L, null } }, BIGINT_VARCHAR, false));
+    }
+
+    @Test
+    public void testRowOrder() throws SQLException {
+
+        final Object[][] rows = { { 1L, "a" }, { 2L, "b" }, { 3L, null } };
+        final Object[][] shuffled = { { 3L, null }, { 1L, "a" }, { 2L, "b" } };
+
+        assertNotEquals(checksum(rows, BIGINT_VARCHAR, true), checksum(shuffled, BIGINT_VARCHAR, true));
+        assertEquals(checksum(rows, BIGINT_VARCHAR, false), checksum(shuffled, BIGINT_VARCHAR, false));
+    }
+
+    @Test
+    public void testValues() throws SQLException {
+
+        final int[] types = { Types.BIGINT, Types.DOUBLE, Types.VARCHAR };
+        final long checksum = checksum(new Object[][] { { 1L, 0.5, "a" } }, types, true);
+        assertEquals(checksum, checksum(new Object[][] { { 1L, 0.5, "a" } }, types, true));
+        assertNotEquals(checksum, checksum(new Object[][] { { 2L, 0.5, "a" } }, types, true));
+        assertNotEquals(checksum, checksum(new Object[][] { { 1L, 0.25, "a" } }, types, true));
+        assertNotEquals(checksum, checksum(new Object[][] { { 1L, 0.5, "b" } }, types, true));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dattack.dbtools.ping.beans.SqlCommandBean;
+import com.dattack.dbtools.ping.beans.SqlCommandVisitor;
+
+/**
+ * Measures the cost of selecting the next command with each {@link SqlCommandProvider}, with several workers sharing
+ * the same provider as the threads of a task do. Run it with the <code>main</code> method or through the JMH runner.
+ *
+ * @author cvarela
+ * @since 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SqlCommandProviderBenchmark {
+
+    /**
+     * A command with a weight, and nothing else.
+     */
+    private static final class WeightedCommand implements SqlCommandBean {
+
+        private static final long serialVersionUID = 1L;
+
+        private final float weight;
+
+        WeightedCommand(final float weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public void accept(final SqlCommandVisitor visitor) {
+            // not used
+        }
+
+        @Override
+        public String getLabel() {
+            return "weight-" + weight;
+        }
+
+        @Override
+        public double getMaxRate() {
+            return 0;
+        }
+
+        @Override
+        public float getWeight() {
+            return weight;
+        }
+    }
+
+    // public: JMH sets the parameters from its generated classes
+    @Param({ "4", "64", "1024" })
+    public int commands;
+
+    private SqlCommandProvider roundRobinProvider;
+    private SqlCommandProvider randomProvider;
+    private SqlCommandProvider weightedRandomProvider;
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SqlCommandProviderBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Benchmark
+    public SqlCommandBean random() {
+        return randomProvider.nextSql();
+    }
+
+    @Benchmark
+    public SqlCommandBean roundRobin() {
+        return roundRobinProvider.nextSql();
+    }
+
+    @Setup
+    public void setUp() {
+
+        // uneven weights, so that the alias tables are not trivial
+        final List<SqlCommandBean> list = new ArrayList<>();
+        for (int i = 0; i < commands; i++) {
+            list.add(new WeightedCommand(1 + i % 10));
+        }
+
+        roundRobinProvider = new SqlCommandRoundRobinProvider();
+        roundRobinProvider.setSentences(list);
+        randomProvider = new SqlCommandRandomProvider();
+        randomProvider.setSentences(list);
+        weightedRandomProvider = new SqlCommandWeightedRandomProvider();
+        weightedRandomProvider.setSentences(list);
+    }
+
+    @Benchmark
+    public SqlCommandBean weightedRandom() {
+        return weightedRandomProvider.nextSql();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.dattack.dbtools.ping.beans.SqlCommandBean;
+import com.dattack.dbtools.ping.beans.SqlCommandVisitor;
+
+/**
+ * @author cvarela
+ * @since 0.1
+ */
+public class SqlCommandWeightedRandomProviderTest {
+
+    private static final int SELECTIONS = 200000;
+
+    /** The tolerance of an observed frequency: more than six standard deviations for these sample sizes. */
+    private static final double TOLERANCE = 0.007;
+
+    /**
+     * A command with a weight, and nothing else.
+     */
+    private static final class WeightedCommand implements SqlCommandBean {
+
+        private static final long serialVersionUID = 1L;
+
+        private final float weight;
+
+        WeightedCommand(final float weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public void accept(final SqlCommandVisitor visitor) {
+            // not used
+        }
+
+        @Override
+        public String getLabel() {
+            return "weight-" + weight;
+        }
+
+        @Override
+        public double getMaxRate() {
+            return 0;
+        }
+
+        @Override
+        public float getWeight() {
+            return weight;
+        }
+    }
+
+    private static List<SqlCommandBean> createCommands(final float... weights) {
+
+        final List<SqlCommandBean> list = new ArrayList<>();
+        for (final float weight : weights) {
+            list.add(new WeightedCommand(weight));
+        }
+        return list;
+    }
+
+    private static void assertFrequencies(final List<SqlCommandBean> commands, final double... expected) {
+
+        final SqlCommandWeightedRandomProvider provider = new SqlCommandWeightedRandomProvider();
+        provider.setSentences(commands);
+
+        final Map<SqlCommandBean, Integer> countMap = new IdentityHashMap<>();
+        for (final SqlCommandBean command : commands) {
+            countMap.put(command, 0);
+        }
+        for (int i = 0; i < SELECTIONS; i++) {
+            final SqlCommandBean command = provider.nextSql();
+            countMap.put(command, countMap.get(command) + 1);
+        }
+
+        for (int i = 0; i < commands.size(); i++) {
+            final double frequency = countMap.get(commands.get(i)) / (double) SELECTIONS;
+            assertEquals("frequency of command " + i, expected[i], frequency, TOLERANCE);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyList() {
+
+        final SqlCommandWeightedRandomProvider provider = new SqlCommandWeightedRandomProvider();
+        provider.setSentences(Collections.<SqlCommandBean> emptyList());
+        provider.nextSql();
+    }
+
+    @Test
+    public void testManyCommands() {
+
+        final float[] weights = new float[50];
+        final double[] expected = new double[weights.length];
+        Arrays.fill(weights, 1);
+        weights[7] = 51;
+        for (int i = 0; i < weights.length; i++) {
+            expected[i] = weights[i] / 100.0;
+        }
+        assertFrequencies(createCommands(weights), expected);
+    }
+
+    @Test
+    public void testNoWeights() {
+        assertFrequencies(createCommands(0, 0, 0, 0), 0.25, 0.25, 0.25, 0.25);
+    }
+
+    @Test
+    public void testSingleCommand() {
+
+        final List<SqlCommandBean> commands = createCommands(3);
+        final SqlCommandWeightedRandomProvider provider = new SqlCommandWeightedRandomProvider();
+        provider.setSentences(commands);
+        for (int i = 0; i < 100; i++) {
+            assertSame(commands.get(0), provider.nextSql());
+        }
+    }
+
+    @Test
+    public void testSkewedWeights() {
+        assertFrequencies(createCommands(98, 1, 1), 0.98, 0.01, 0.01);
+    }
+
+    @Test
+    public void testWeights() {
+        assertFrequencies(createCommands(1, 2, 3, 4), 0.1, 0.2, 0.3, 0.4);
+    }
+
+    @Test
+    public void testZeroWeight() {
+        assertFrequencies(createCommands(1, 0, 3, 0), 0.25, 0, 0.75, 0);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016, The Dattack team (http://www.dattack.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dattack.dbtools.ping.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dattack.dbtools.ping.LogEntry;
+import com.dattack.dbtools.ping.LogEntry.LogEntryBuilder;
+import com.dattack.formats.csv.CSVConfiguration;
+
+/**
+ * @author cvarela
+ * @since 0.1
+ */
+public class CSVFileLogRoundTripTest {
+
+    private static final long EVENT_TIME = 1451649600000L;
+
+    private File logFile;
+
+    private static LogEntry read(final File file, final int expected) throws IOException {
+
+        LogEntry last = null;
+        int count = 0;
+        try (CSVFileLogReader reader = new CSVFileLogReader(file)) {
+            LogEntry entry;
+            while ((entry = reader.next()) != null) {
+                last = entry;
+                count++;
+            }
+        }
+        assertEquals(expected, count);
+        return last;
+    }
+
+    private static long millis(final long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        logFile = File.createTempFile("dbping", ".log");
+        assertTrue(logFile.delete());
+    }
+
+    @After
+    public void tearDown() {
+        logFile.delete();
+    }
+
+    @Test
+    public void testFailedExecution() throws IOException {
+
+        new CSVFileLogWriter(logFile.getPath()).write(new LogEntryBuilder().withEventTime(EVENT_TIME) //
+                .withTaskName("task") //
+                .withSqlLabel("query") //
+                .withTotalTime(millis(7)) //
+                .withTimedOut(true) //
+                .withException(new Exception("ORA-01013: user requested cancel")) //
+                .build());
+
+        final LogEntry entry = read(logFile, 1);
+        assertNotNull(entry.getException());
+        assertEquals("ORA-01013: user requested cancel", entry.getException().getMessage());
+        assertTrue(entry.isTimedOut());
+        assertEquals(millis(7), entry.getTotalTime());
+    }
+
+    @Test
+    public void testLegacyLayout() throws IOException {
+
+        // a log written before the phases of an execution were recorded, appended by the current version
+        final CSVConfigurationFactory factory = new CSVConfigurationFactory();
+        final CSVConfiguration configuration = factory.create();
+        final String separator = factory.getSeparator();
+        final String date = configuration.getDateFormat().format(new Date(EVENT_TIME));
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(logFile))) {
+            out.write("# date" + separator + "task-name" + separator + "thread-name" + separator + "iteration"
+                    + separator + "sql-label" + separator + "rows" + separator + "connection-time" + separator
+                    + "first-row-time" + separator + "total-time" + separator + "message\n");
+            out.write(date + separator + "old" + separator + "thread" + separator + "1" + separator + "query"
+                    + separator + "3" + separator + "1.000" + separator + "2.000" + separator + "7.000\n");
+            out.write(date + separator + "old" + separator + "thread" + separator + "2" + separator + "query"
+                    + separator + "0" + separator + "1.000" + separator + "-1" + separator + "9.000" + separator
+                    + "failed\n");
+        }
+        new CSVFileLogWriter(logFile.getPath()).write(new LogEntryBuilder().withEventTime(EVENT_TIME) //
+                .withTaskName("new") //
+                .withSqlLabel("query") //
+                .withTotalTime(millis(5)) //
+                .build());
+
+        try (CSVFileLogReader reader = new CSVFileLogReader(logFile)) {
+            final LogEntry first = reader.next();
+            assertEquals("old", first.getTaskName());
+            assertEquals(1, first.getIteration());
+            assertEquals(3, first.getRows());
+            assertEquals(millis(7), first.getTotalTime());
+            assertNull(first.getException());
+
+            final LogEntry second = reader.next();
+            assertEquals(-1, second.getFirstRowTime());
+            assertEquals("failed", second.getException().getMessage());
+
+            final LogEntry third = reader.next();
+            assertEquals("new", third.getTaskName());
+            assertEquals(millis(5), third.getTotalTime());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testSuccessfulExecution() throws IOException {
+
+        new CSVFileLogWriter(logFile.getPath()).write(new LogEntryBuilder().withEventTime(EVENT_TIME) //
+                .withTaskName("task") //
+                .withThreadName("thread-1") //
+                .withIteration(42) //
+                .withSqlLabel("query[fetch=100]") //
+                .withRows(250) //
+                .withQueueTime(millis(2)) //
+                .withConnectionTime(millis(3)) //
+                .withFirstRowTime(millis(8)) //
+                .withTotalTime(millis(20)) //
+                .withExecuteTime(millis(6)) //
+                .withFetchTime(millis(9)) //
+                .withCloseTime(millis(1)) //
+                .withFetchRoundTrips(3) //
+                .withStage("ramp") //
+                .withDatasource("jdbc/db1") //
+                .withChecksum("0123456789abcdef") //
+                .build());
+
+        final LogEntry entry = read(logFile, 1);
+        assertEquals(EVENT_TIME, entry.getEventTime());
+        assertEquals("task", entry.getTaskName());
+        assertEquals("thread-1", entry.getThreadName());
+        assertEquals(42, entry.getIteration());
+        assertEquals("query[fetch=100]", entry.getSqlLabel());
+        assertEquals(250, entry.getRows());
+        assertEquals(millis(2), entry.getQueueTime());
+        assertEquals(millis(3), entry.getConnectionTime());
+        assertEquals(millis(15), entry.getQueryTime());
+        assertEquals(millis(8), entry.getFirstRowTime());
+        assertEquals(millis(20), entry.getTotalTime());
+        assertEquals(millis(6), entry.getExecuteTime());
+        assertEquals(millis(9), entry.getFetchTime());
+        assertEquals(millis(1), entry.getCloseTime());
+        assertEquals(3, entry.getFetchRoundTrips());
+        assertEquals("ramp", entry.getStage());
+        assertEquals("jdbc/db1", entry.getDatasource());
+        assertEquals("0123456789abcdef", entry.getChecksum());
+        assertFalse(entry.isChecksumMismatch());
+        assertFalse(entry.isTimedOut());
+        assertFalse(entry.isWarmUp());
+        assertNull(entry.getException());
+    }
+}